@@ -0,0 +1,409 @@
+package net.rain.api.core;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import cpw.mods.modlauncher.LaunchPluginHandler;
+import cpw.mods.modlauncher.Launcher;
+import cpw.mods.modlauncher.serviceapi.ILaunchPluginService;
+import net.minecraftforge.fml.loading.FMLPaths;
+import net.rain.api.coremod.manager.CoreModManager;
+import net.rain.api.mixin.manager.MixinManager;
+import net.rain.api.mixin.transformer.MixinTransformer;
+import net.rain.benchmark.corpus.ClassCorpus;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Boot time of a RainJava directory of a given size, phase by phase. Generates
+ * {@code RainJava/mixins} with {@code --mixins} mixins and {@code RainJava/coremod} with a plugin
+ * registering {@code --coremods} transformers, targeting {@code --classes} classes generated by
+ * {@link ClassCorpus}. Then boots {@code --runs} fresh JVMs in that game directory ({@link Run}),
+ * each timing the {@link BootPhases} of {@link RainAPIService}'s static initialization, the
+ * registration of the compiled mixins and the transformation of every class.
+ * <p>
+ * Prints the median, min and max of each phase and writes them, with every run's values, to
+ * {@code --output} as JSON ({@code <work>/startup-<label>.json} by default), to be compared
+ * across versions. The transform cache is cleared before each run unless {@code --warm} is
+ * given; {@code -Drain.*} properties are passed on to the runs.
+ * <pre>
+ * ./gradlew startupBenchmark -Pstartup.args="--mixins 200 --coremods 20 --runs 5 --label 1.0.0"
+ * </pre>
+ */
+public final class StartupBenchmark {
+    private static final String MIXIN_SOURCE = """
+            package startup;
+
+            import net.rain.api.mixin.IMixin;
+            import net.rain.api.mixin.annotation.*;
+            import net.rain.api.mixin.callback.CallbackInfo;
+            import net.rain.api.mixin.callback.IntCallbackInfoReturnable;
+
+            public class %1$s implements IMixin {
+                @Override
+                public String getTargetClass() {
+                    return "%2$s";
+                }
+
+                @Inject(method = "method0", at = @At("HEAD"))
+                public void onHead(Object self, int a, int b, CallbackInfo ci) {
+                }
+
+                @Inject(method = "method1", at = @At("RETURN"))
+                public void onReturn(Object self, int a, int b, IntCallbackInfoReturnable cir) {
+                }
+
+                @Redirect(method = "method2", at = @At(value = "INVOKE", target = "java.lang.Math.max"))
+                public int redirectMax(Object self, int a, int b) {
+                    return a > b ? a : b;
+                }
+
+                @ModifyConstant(method = "method3", constant = @ModifyConstant.Constant(intValue = %3$d))
+                public int modifyConstant(Object self, int value) {
+                    return value;
+                }
+            }
+            """;
+
+    private static final String PLUGIN_SOURCE = """
+            package startup;
+
+            import net.rain.api.coremod.ICoreModLoadingPlugin;
+
+            import java.util.Map;
+
+            public class StartupPlugin implements ICoreModLoadingPlugin {
+                @Override
+                public String[] getASMTransformerClass() {
+                    return new String[]{%s};
+                }
+
+                @Override
+                public void injectData(Map<String, Object> data) {
+                }
+            }
+            """;
+
+    /** The transformers cycle through these, as {@code CorpusTransformers} do. */
+    private static final String[] TRANSFORMER_SOURCES = {"""
+            package startup;
+
+            import net.rain.api.coremod.ICoreClassTransformer;
+            import org.objectweb.asm.Opcodes;
+            import org.objectweb.asm.tree.*;
+
+            public class %1$s implements ICoreClassTransformer {
+                @Override
+                public ClassNode transform(String className, ClassNode node) {
+                    int n = node.fields.size();
+                    String field = "rain$counter" + n;
+                    node.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, field, "I", null, null));
+                    MethodNode getter = new MethodNode(Opcodes.ACC_PUBLIC, "rain$getCounter" + n, "()I", null, null);
+                    getter.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+                    getter.instructions.add(new FieldInsnNode(Opcodes.GETFIELD, node.name, field, "I"));
+                    getter.instructions.add(new InsnNode(Opcodes.IRETURN));
+                    getter.maxStack = 1;
+                    getter.maxLocals = 1;
+                    node.methods.add(getter);
+                    return node;
+                }
+            }
+            """, """
+            package startup;
+
+            import net.rain.api.coremod.ICoreClassTransformer;
+            import org.objectweb.asm.Opcodes;
+            import org.objectweb.asm.tree.*;
+
+            public class %1$s implements ICoreClassTransformer {
+                public static void onEnter() {
+                }
+
+                @Override
+                public ClassNode transform(String className, ClassNode node) {
+                    for (MethodNode method : node.methods) {
+                        if (method.name.startsWith("<") || method.instructions.size() == 0) continue;
+                        method.instructions.insert(new MethodInsnNode(Opcodes.INVOKESTATIC,
+                                "startup/%1$s", "onEnter", "()V", false));
+                    }
+                    return node;
+                }
+            }
+            """, """
+            package startup;
+
+            import net.rain.api.coremod.ICoreClassTransformer;
+            import org.objectweb.asm.tree.*;
+
+            public class %1$s implements ICoreClassTransformer {
+                public static int found;
+
+                @Override
+                public ClassNode transform(String className, ClassNode node) {
+                    for (MethodNode method : node.methods) {
+                        for (AbstractInsnNode insn : method.instructions) {
+                            if (insn instanceof MethodInsnNode && ((MethodInsnNode) insn).name.equals("hashCode")) found++;
+                        }
+                    }
+                    return node;
+                }
+            }
+            """};
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int mixins = 100;
+        int coremods = 10;
+        int classes = 512;
+        int runs = 5;
+        boolean warm = false;
+        String label = "dev";
+        Path work = Paths.get("build", "rain-startup");
+        Path output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mixins": mixins = Integer.parseInt(args[++i]); break;
+                case "--coremods": coremods = Integer.parseInt(args[++i]); break;
+                case "--classes": classes = Integer.parseInt(args[++i]); break;
+                case "--runs": runs = Integer.parseInt(args[++i]); break;
+                case "--warm": warm = true; break;
+                case "--label": label = args[++i]; break;
+                case "--work": work = Paths.get(args[++i]); break;
+                case "--output": output = Paths.get(args[++i]); break;
+                default:
+                    System.err.println("Usage: StartupBenchmark [--mixins <n>] [--coremods <n>] [--classes <n>] "
+                            + "[--runs <n>] [--warm] [--label <name>] [--work <dir>] [--output <file>]");
+                    System.exit(2);
+            }
+        }
+        classes = Math.max(classes, mixins);
+        work = work.toAbsolutePath().normalize();
+        if (output == null) output = work.resolve("startup-" + label + ".json");
+
+        Path gameDir = work.resolve("game");
+        Path targets = work.resolve("targets");
+        delete(gameDir);
+        delete(targets);
+        writeTargets(targets, classes);
+        writeMixins(gameDir.resolve("RainJava").resolve("mixins").resolve("startup"), mixins, classes);
+        writeCoremods(gameDir.resolve("RainJava").resolve("coremod"), coremods);
+        System.out.printf("RainJava: %d mixin(s), %d coremod transformer(s), %d class(es), %d %s run(s)%n",
+                mixins, coremods, classes, runs, warm ? "warm" : "cold");
+
+        List<Map<String, Long>> results = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            if (!warm) delete(gameDir.resolve("RainJava").resolve("cache"));
+            results.add(boot(gameDir, targets, work.resolve("run-" + i + ".log"), work.resolve("run-" + i + ".txt")));
+        }
+        report(results, output, label, mixins, coremods, classes, warm);
+    }
+
+    private static void writeTargets(Path targets, int classes) throws IOException {
+        // The methods and sizes of TransformBenchmark's defaults
+        for (Map.Entry<String, byte[]> entry : ClassCorpus.generate(classes, 24, 16, 6).entrySet()) {
+            Path file = targets.resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, entry.getValue());
+        }
+    }
+
+    private static void writeMixins(Path directory, int mixins, int classes) throws IOException {
+        Files.createDirectories(directory);
+        for (int m = 0; m < mixins; m++) {
+            String name = String.format("StartupMixin%05d", m);
+            String source = String.format(MIXIN_SOURCE, name, ClassCorpus.className(m * classes / mixins),
+                    ClassCorpus.CONSTANT);
+            Files.writeString(directory.resolve(name + ".java"), source);
+        }
+    }
+
+    private static void writeCoremods(Path directory, int coremods) throws IOException {
+        Path sources = directory.resolve("startup");
+        Files.createDirectories(sources);
+        List<String> names = new ArrayList<>();
+        for (int t = 0; t < coremods; t++) {
+            String name = String.format("StartupTransformer%05d", t);
+            names.add('"' + "startup." + name + '"');
+            Files.writeString(sources.resolve(name + ".java"),
+                    String.format(TRANSFORMER_SOURCES[t % TRANSFORMER_SOURCES.length], name));
+        }
+        Files.writeString(sources.resolve("StartupPlugin.java"), String.format(PLUGIN_SOURCE, String.join(", ", names)));
+        Files.writeString(directory.resolve("coremod.json"), "{\"plugins\": \"startup.StartupPlugin\"}\n");
+    }
+
+    /** Runs {@link Run} in the game directory; its output goes to {@code log}, its phases to {@code result}. */
+    private static Map<String, Long> boot(Path gameDir, Path targets, Path log, Path result)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("rain.")) command.add("-D" + name + "=" + System.getProperty(name));
+        }
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), Run.class.getName(),
+                targets.toString(), result.toString()));
+
+        Files.deleteIfExists(result);
+        Process process = new ProcessBuilder(command).directory(gameDir.toFile())
+                .redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        int exit = process.waitFor();
+        if (exit != 0 || !Files.exists(result)) {
+            throw new IllegalStateException("Run failed with exit code " + exit + ", see " + log);
+        }
+        Map<String, Long> phases = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(result)) {
+            String[] parts = line.split(" ");
+            phases.put(parts[0], Long.parseLong(parts[1]));
+        }
+        return phases;
+    }
+
+    private static void report(List<Map<String, Long>> results, Path output, String label, int mixins,
+            int coremods, int classes, boolean warm) throws IOException {
+        Set<String> phases = new LinkedHashSet<>();
+        for (Map<String, Long> result : results) phases.addAll(result.keySet());
+
+        JsonObject json = new JsonObject();
+        json.addProperty("label", label);
+        json.addProperty("mixins", mixins);
+        json.addProperty("coremods", coremods);
+        json.addProperty("classes", classes);
+        json.addProperty("runs", results.size());
+        json.addProperty("warm", warm);
+        JsonObject phasesJson = new JsonObject();
+
+        System.out.printf("%-16s %10s %10s %10s%n", "phase", "median ms", "min ms", "max ms");
+        for (String phase : phases) {
+            List<Long> values = new ArrayList<>();
+            for (Map<String, Long> result : results) {
+                Long value = result.get(phase);
+                if (value != null) values.add(value);
+            }
+            values.sort(null);
+            int n = values.size();
+            double median = (values.get((n - 1) / 2) + values.get(n / 2)) / 2.0;
+            System.out.printf("%-16s %10.1f %10.1f %10.1f%n", phase, millis(median), millis(values.get(0)),
+                    millis(values.get(n - 1)));
+
+            JsonObject phaseJson = new JsonObject();
+            phaseJson.addProperty("medianMs", millis(median));
+            phaseJson.addProperty("minMs", millis(values.get(0)));
+            phaseJson.addProperty("maxMs", millis(values.get(n - 1)));
+            JsonArray valuesJson = new JsonArray();
+            for (long value : values) valuesJson.add(millis(value));
+            phaseJson.add("valuesMs", valuesJson);
+            phasesJson.add(phase, phaseJson);
+        }
+        json.add("phases", phasesJson);
+
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+        System.out.println("Results written to " + output);
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path file : files) Files.delete(file);
+    }
+
+    /**
+     * One boot, in a JVM whose working directory is the game directory, as RainJava is looked up
+     * there. Stands in for modlauncher with a Launcher holding only an empty plugin handler, and
+     * for Forge by pointing {@link FMLPaths} at the working directory, then initializes
+     * {@link RainAPIService}. Registration and transformation follow as the first class loads
+     * would trigger them, with the target classes served by their own class loader.
+     */
+    public static final class Run {
+        private Run() {
+        }
+
+        public static void main(String[] args) throws Exception {
+            Path targets = Paths.get(args[0]);
+            Path result = Paths.get(args[1]);
+            installLauncher();
+            FMLPaths.loadAbsolutePaths(Paths.get(".").toAbsolutePath().normalize());
+
+            Map<String, Long> phases = new LinkedHashMap<>();
+            long start = System.nanoTime();
+            Class.forName(RainAPIService.class.getName(), true, Run.class.getClassLoader());
+            long boot = System.nanoTime() - start;
+            phases.putAll(BootPhases.get());
+            phases.put("boot", boot);
+
+            try (URLClassLoader gameLoader = new URLClassLoader("StartupTargets", new URL[]{targets.toUri().toURL()},
+                    Run.class.getClassLoader())) {
+                Thread.currentThread().setContextClassLoader(gameLoader);
+
+                // Loads and registers every compiled mixin, as the first transformed class does
+                start = System.nanoTime();
+                MixinManager.hasMixins("", gameLoader);
+                phases.put("register", System.nanoTime() - start);
+
+                start = System.nanoTime();
+                transformAll(targets);
+                phases.put("transform", System.nanoTime() - start);
+            }
+
+            List<String> lines = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : phases.entrySet()) lines.add(entry.getKey() + " " + entry.getValue());
+            Files.write(result, lines);
+            // Threads started during the boot must not keep the JVM alive
+            System.exit(0);
+        }
+
+        private static void installLauncher() throws Exception {
+            Launcher launcher = (Launcher) UnsafeHelper.getUnsafe().allocateInstance(Launcher.class);
+            LaunchPluginHandler handler = (LaunchPluginHandler) UnsafeHelper.getUnsafe()
+                    .allocateInstance(LaunchPluginHandler.class);
+            UnsafeHelper.setFieldValue(handler, "plugins", new HashMap<String, ILaunchPluginService>());
+            UnsafeHelper.setFieldValue(launcher, "launchPlugins", handler);
+            UnsafeHelper.setFieldValue(Launcher.class.getDeclaredField("INSTANCE"), null, launcher);
+        }
+
+        /** Every class through the coremods and the launch plugins, superclasses first; nothing is written back. */
+        private static void transformAll(Path targets) throws IOException {
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(targets)) {
+                files = paths.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+            }
+            MixinTransformer mixinTransformer = new MixinTransformer();
+            AccessTransformer accessTransformer = new AccessTransformer();
+            for (Path file : files) {
+                ClassNode node = new ClassNode();
+                new ClassReader(Files.readAllBytes(file)).accept(node, ClassReader.EXPAND_FRAMES);
+                node = CoreModManager.transformClassNode(node.name.replace('/', '.'), node);
+                Type type = Type.getObjectType(node.name);
+                mixinTransformer.processClassWithFlags(ILaunchPluginService.Phase.AFTER, node, type, "classloading");
+                accessTransformer.processClass(ILaunchPluginService.Phase.AFTER, node, type, "classloading");
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.ClassPath;
+import javassist.ClassPool;
+import javassist.NotFoundException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Class file lookup through Javassist's own jar class path ({@code ClassPool.appendClassPath(String)})
+ * against {@link MappedJarClassPath}, over the same jars: reading a class that exists, probing for
+ * one that does not (which visits every jar), and appending all jars to a fresh pool.
+ * <p>
+ * {@code -p jars=<dir>} benchmarks every jar below a directory, e.g. a {@code .minecraft}; by
+ * default the jars on the benchmark's own class path are used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassPathBenchmark {
+    private static final int SAMPLE = 4096;
+
+    @Param("")
+    public String jars;
+
+    @Param({"javassist", "mapped"})
+    public String classPath;
+
+    private List<Path> jarFiles;
+    /** Searched in order, like the tail of a {@link ClassPool}. */
+    private ClassPath[] classPaths;
+    private String[] classNames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        jarFiles = findJars();
+        if (jarFiles.isEmpty()) throw new IllegalStateException("No jars found for: " + jars);
+        classPaths = appendAll(new ClassPool(false)).toArray(new ClassPath[0]);
+
+        List<String> names = new ArrayList<>();
+        for (Path jar : jarFiles) names.addAll(MappedJarClassPath.open(jar).classNames());
+        Collections.shuffle(names, new Random(42));
+        classNames = new String[SAMPLE];
+        for (int i = 0; i < SAMPLE; i++) classNames[i] = names.get(i % names.size());
+    }
+
+    @Benchmark
+    public byte[] readClass() throws NotFoundException, IOException {
+        String name = classNames[next++ & (SAMPLE - 1)];
+        for (ClassPath path : classPaths) {
+            InputStream in = path.openClassfile(name);
+            if (in == null) continue;
+            try (in) {
+                return in.readAllBytes();
+            }
+        }
+        throw new NotFoundException(name);
+    }
+
+    @Benchmark
+    public URL missingClass() {
+        String name = "net.rain.api.benchmark.Missing" + (next++ & 7);
+        for (ClassPath path : classPaths) {
+            URL url = path.find(name);
+            if (url != null) return url;
+        }
+        return null;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public List<ClassPath> appendJars() throws Exception {
+        return appendAll(new ClassPool(false));
+    }
+
+    private List<ClassPath> appendAll(ClassPool pool) throws NotFoundException, IOException {
+        List<ClassPath> appended = new ArrayList<>();
+        for (Path jar : jarFiles) {
+            if ("mapped".equals(classPath)) appended.add(pool.appendClassPath(MappedJarClassPath.open(jar)));
+            else appended.add(pool.appendClassPath(jar.toString()));
+        }
+        return appended;
+    }
+
+    private List<Path> findJars() throws IOException {
+        if (!jars.isEmpty()) {
+            try (Stream<Path> paths = Files.walk(Paths.get(jars))) {
+                return paths.filter(p -> p.toString().endsWith(".jar")).filter(Files::isRegularFile)
+                        .sorted().collect(Collectors.toList());
+            }
+        }
+        List<Path> result = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (entry.endsWith(".jar") && Files.isRegularFile(Paths.get(entry))) result.add(Paths.get(entry));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package net.rain.api.mixin.transformer;
+
+import net.rain.benchmark.dispatch.ArgsMixin;
+import net.rain.benchmark.dispatch.ArgsTarget;
+import net.rain.benchmark.dispatch.DispatchMixin;
+import net.rain.benchmark.dispatch.DispatchTarget;
+import net.rain.benchmark.dispatch.DispatchWorkload;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of an injected handler call in a hot method, for each injection kind: an empty method
+ * with @Inject at HEAD, RETURN and cancellable HEAD, a primitive return and a primitive-heavy
+ * signature, @Redirect, @ModifyArg, @ModifyArgs, @ModifyVariable and @ModifyConstant. The targets
+ * in {@code net.rain.benchmark.dispatch} are transformed by {@link MixinTransformer} outside
+ * modlauncher (see {@link MixinTargetLoader}).
+ * <p>
+ * {@code engine=none} runs the untransformed targets as the baseline; {@code javassist} and
+ * {@code asm} select {@code rain.mixin.engine}, and {@code sharedCallbackInfo} sets
+ * {@code rain.mixin.sharedCallbackInfo}, so every dispatch strategy is measured on the same
+ * calls. @ModifyArgs always runs on the Javassist engine. For bytes/op add the GC profiler:
+ * {@code ./gradlew jmh -Pjmh.includes=DispatchBenchmark -Pjmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Drain.mixin.cache=false")
+public class DispatchBenchmark {
+    private static final List<String> TARGETS = List.of(DispatchTarget.class.getName(), ArgsTarget.class.getName());
+    private static final List<String> MIXINS = List.of(DispatchMixin.class.getName(), ArgsMixin.class.getName());
+
+    @Param({"none", "javassist", "asm"})
+    public String engine;
+
+    @Param({"true", "false"})
+    public boolean sharedCallbackInfo;
+
+    private DispatchWorkload target;
+    private DispatchWorkload argsTarget;
+
+    // Read from fields so that the JIT cannot fold the calls into constants
+    private int i = 17;
+    private long l = 1L << 40;
+    private double d = 2.5;
+    private float f = 0.5f;
+    private boolean z = true;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        boolean transform = !"none".equals(engine);
+        // Read once by MixinTransformer's static initializer, which has not run yet in this fork
+        if (transform) System.setProperty("rain.mixin.engine", engine);
+        System.setProperty("rain.mixin.sharedCallbackInfo", String.valueOf(sharedCallbackInfo));
+        if (transform) MixinTargetLoader.cacheMixins(MIXINS);
+
+        ClassLoader loader = new MixinTargetLoader(getClass().getClassLoader(), TARGETS, MIXINS, transform);
+        target = (DispatchWorkload) loader.loadClass(DispatchTarget.class.getName())
+                .getDeclaredConstructor().newInstance();
+        argsTarget = (DispatchWorkload) loader.loadClass(ArgsTarget.class.getName())
+                .getDeclaredConstructor().newInstance();
+    }
+
+    @Benchmark
+    public void empty() {
+        target.empty();
+    }
+
+    @Benchmark
+    public void injectHead() {
+        target.head();
+    }
+
+    @Benchmark
+    public void injectReturn() {
+        target.ret();
+    }
+
+    @Benchmark
+    public int injectHeadCancellable() {
+        return target.headCancellable(i);
+    }
+
+    @Benchmark
+    public int injectReturnInt() {
+        return target.returnInt(i);
+    }
+
+    @Benchmark
+    public long injectHeadPrimitives() {
+        return target.primitives(i, l, d, f, z);
+    }
+
+    @Benchmark
+    public int redirect() {
+        return target.redirect(i, 7);
+    }
+
+    @Benchmark
+    public int modifyArg() {
+        return target.modifyArg(i, 7);
+    }
+
+    @Benchmark
+    public int modifyArgs() {
+        return argsTarget.modifyArgs(i, 7);
+    }
+
+    @Benchmark
+    public double modifyVariable() {
+        return target.modifyVariable(d);
+    }
+
+    @Benchmark
+    public int modifyConstant() {
+        return target.modifyConstant(i);
+    }
+}
@@ -0,0 +1,222 @@
+package net.rain.api.mixin.transformer;
+
+import cpw.mods.modlauncher.serviceapi.ILaunchPluginService;
+import net.rain.api.core.AccessTransformer;
+import net.rain.api.coremod.ICoreClassTransformer;
+import net.rain.api.coremod.manager.CoreModManager;
+import net.rain.api.mixin.manager.MixinManager;
+import net.rain.benchmark.corpus.ClassCorpus;
+import net.rain.benchmark.corpus.CorpusMixin;
+import net.rain.benchmark.corpus.CorpusTransformers;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Classes per second through the transformation pipeline, over a corpus generated by
+ * {@link ClassCorpus}. Each operation reads the next class of the corpus into a ClassNode, as
+ * modlauncher does, and hands it to {@link CoreModManager#transformClassNode},
+ * {@link MixinTransformer#processClassWithFlags} or {@link AccessTransformer#processClass};
+ * {@link #pipeline} runs all three in modlauncher's order and writes the class back, and
+ * {@link #read} is the cost of reading the class alone.
+ * <p>
+ * {@code mixins} classes, spread over the corpus, are each the target of a copy of
+ * {@link CorpusMixin}; {@code coremods} transformers from {@link CorpusTransformers} are
+ * registered. The corpus is served from a directory by a URLClassLoader, the context class
+ * loader of every benchmark thread, so the engines resolve its hierarchy as they would in the
+ * game.
+ * <p>
+ * {@code -Pjmh.threads=N} transforms on N loader threads, each starting at another place in the
+ * corpus. {@code -Pjmh.profilers=gc} gives the allocation per class as gc.alloc.rate.norm. The
+ * heap still retained at the end of a trial, over what the corpus itself takes, is printed at
+ * the end of each fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Drain.mixin.cache=false", "-Drain.mixin.preTransform=false",
+        "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class TransformBenchmark {
+    private static final String REASON = "classloading";
+
+    @Param("1024")
+    public int classes;
+
+    @Param("24")
+    public int methods;
+
+    /** Blocks per method, about 30 bytes of code each. */
+    @Param("16")
+    public int methodSize;
+
+    @Param("6")
+    public int depth;
+
+    @Param({"0", "32"})
+    public int mixins;
+
+    @Param("2")
+    public int coremods;
+
+    @Param({"javassist", "asm"})
+    public String engine;
+
+    private Path directory;
+    private URLClassLoader corpusLoader;
+    private byte[][] corpus;
+    private MixinTransformer mixinTransformer;
+    private AccessTransformer accessTransformer;
+    private long baselineHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Read once by MixinTransformer's static initializer, which has not run yet in this fork
+        System.setProperty("rain.mixin.engine", engine);
+        if (mixins > classes) throw new IllegalArgumentException("More mixins than classes");
+
+        Map<String, byte[]> generated = ClassCorpus.generate(classes, methods, methodSize, depth);
+        directory = Files.createTempDirectory("rain-corpus");
+        corpus = new byte[generated.size()][];
+        int i = 0;
+        for (Map.Entry<String, byte[]> entry : generated.entrySet()) {
+            Path file = directory.resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, entry.getValue());
+            corpus[i++] = entry.getValue();
+        }
+        corpusLoader = new URLClassLoader("TransformCorpus", new URL[]{directory.toUri().toURL()},
+                getClass().getClassLoader());
+
+        for (int m = 0; m < mixins; m++) {
+            String target = ClassCorpus.className(m * classes / mixins);
+            MixinManager.cacheMixinBytecode(ClassCorpus.mixinName(m), ClassCorpus.mixin(m, target), null);
+        }
+        for (ICoreClassTransformer transformer : CorpusTransformers.create(coremods)) {
+            CoreModManager.registerTransformer(transformer);
+        }
+        mixinTransformer = new MixinTransformer();
+        accessTransformer = new AccessTransformer();
+        baselineHeap = usedHeap();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        long retained = usedHeap() - baselineHeap;
+        System.out.printf("%nRetained heap: %d KB, %d bytes per corpus class%n", retained / 1024, retained / classes);
+        corpusLoader.close();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path file : files) Files.delete(file);
+    }
+
+    /** A class loading thread, with the corpus loader as its game class loader. */
+    @State(Scope.Thread)
+    public static class LoaderThread {
+        private ClassLoader corpusLoader;
+        private byte[][] corpus;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(TransformBenchmark benchmark, ThreadParams threads) {
+            corpusLoader = benchmark.corpusLoader;
+            corpus = benchmark.corpus;
+            next = threads.getThreadIndex() * corpus.length / threads.getThreadCount();
+        }
+
+        @Setup(Level.Iteration)
+        public void useCorpusLoader() {
+            Thread.currentThread().setContextClassLoader(corpusLoader);
+        }
+
+        ClassNode nextClass() {
+            byte[] bytes = corpus[next];
+            if (++next == corpus.length) next = 0;
+            ClassNode node = new ClassNode();
+            new ClassReader(bytes).accept(node, ClassReader.EXPAND_FRAMES);
+            return node;
+        }
+    }
+
+    @Benchmark
+    public ClassNode read(LoaderThread thread) {
+        return thread.nextClass();
+    }
+
+    @Benchmark
+    public ClassNode transformCoreMods(LoaderThread thread) {
+        ClassNode node = thread.nextClass();
+        return CoreModManager.transformClassNode(node.name.replace('/', '.'), node);
+    }
+
+    @Benchmark
+    public ClassNode transformMixins(LoaderThread thread, Blackhole blackhole) {
+        ClassNode node = thread.nextClass();
+        blackhole.consume(mixinTransformer.processClassWithFlags(ILaunchPluginService.Phase.AFTER, node,
+                Type.getObjectType(node.name), REASON));
+        return node;
+    }
+
+    @Benchmark
+    public ClassNode transformAccess(LoaderThread thread, Blackhole blackhole) {
+        ClassNode node = thread.nextClass();
+        blackhole.consume(accessTransformer.processClass(ILaunchPluginService.Phase.AFTER, node,
+                Type.getObjectType(node.name), REASON));
+        return node;
+    }
+
+    /** Coremods (modlauncher's transformers) first, then the launch plugins, then the class file. */
+    @Benchmark
+    public byte[] pipeline(LoaderThread thread) {
+        ClassNode node = thread.nextClass();
+        node = CoreModManager.transformClassNode(node.name.replace('/', '.'), node);
+        Type type = Type.getObjectType(node.name);
+        int flags = mixinTransformer.processClassWithFlags(ILaunchPluginService.Phase.AFTER, node, type, REASON);
+        accessTransformer.processClass(ILaunchPluginService.Phase.AFTER, node, type, REASON);
+
+        ClassWriter writer = new CorpusClassWriter(flags & (ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES),
+                thread.corpusLoader);
+        node.accept(writer);
+        return writer.toByteArray();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /** Resolves common superclasses through the corpus, as modlauncher's writer does through the game. */
+    private static final class CorpusClassWriter extends ClassWriter {
+        private final ClassLoader loader;
+
+        CorpusClassWriter(int flags, ClassLoader loader) {
+            super(flags);
+            this.loader = loader;
+        }
+
+        @Override
+        protected ClassLoader getClassLoader() {
+            return loader;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package net.rain.benchmark.corpus;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Generates class files that look like game classes to the transformers: fields of every access
+ * level, {@code methods} instance methods of {@code (II)I} whose bodies repeat a block of
+ * arithmetic, a static call, a field read, a constant and a branch {@code methodSize} times, and
+ * chains of superclasses {@code depth} deep. Mixins for them are copies of {@link CorpusMixin}.
+ */
+public final class ClassCorpus {
+    /** Every class has at least these methods, which {@link CorpusMixin} injects into. */
+    public static final int MIN_METHODS = 4;
+    /** Pushed once per block; the constant {@link CorpusMixin} modifies. */
+    public static final int CONSTANT = 42;
+    /** Returned by the template's {@code getTargetClass}, replaced in each copy. */
+    static final String TEMPLATE_TARGET = "net.rain.benchmark.corpus.generated.Template";
+
+    private static final String PACKAGE = "net.rain.benchmark.corpus.generated.";
+    private static final String[] FIELD_TYPES = {"I", "J", "Ljava/lang/String;", "[Ljava/lang/Object;"};
+    private static final int[] FIELD_ACCESS = {ACC_PRIVATE, ACC_PROTECTED, ACC_PRIVATE | ACC_FINAL, 0, ACC_PUBLIC};
+    private static final int[] METHOD_ACCESS = {ACC_PUBLIC, ACC_PROTECTED, ACC_PRIVATE, ACC_PUBLIC | ACC_FINAL, 0};
+    private static final int FIELDS = 8;
+
+    private ClassCorpus() {
+    }
+
+    public static String className(int index) {
+        return PACKAGE + String.format("Class%05d", index);
+    }
+
+    public static String mixinName(int index) {
+        return PACKAGE + String.format("Mixin%05d", index);
+    }
+
+    /**
+     * The corpus by class name, superclasses before their subclasses: every class extends the one
+     * before it, except every {@code depth}-th, which extends Object.
+     */
+    public static Map<String, byte[]> generate(int classes, int methods, int methodSize, int depth) {
+        if (methods < MIN_METHODS) throw new IllegalArgumentException("At least " + MIN_METHODS + " methods");
+        Map<String, byte[]> corpus = new LinkedHashMap<>();
+        for (int i = 0; i < classes; i++) {
+            String superName = i % depth == 0 ? "java/lang/Object" : internalName(className(i - 1));
+            corpus.put(className(i), generateClass(internalName(className(i)), superName, methods, methodSize));
+        }
+        return corpus;
+    }
+
+    private static byte[] generateClass(String name, String superName, int methods, int methodSize) {
+        // Only int locals and this are merged, so frames never need a common superclass
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        writer.visit(V17, ACC_PUBLIC | ACC_SUPER, name, null, superName, null);
+        for (int f = 0; f < FIELDS; f++) {
+            writer.visitField(FIELD_ACCESS[f % FIELD_ACCESS.length], "field" + f,
+                    FIELD_TYPES[f % FIELD_TYPES.length], null, null).visitEnd();
+        }
+
+        MethodVisitor init = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V", false);
+        init.visitVarInsn(ALOAD, 0);
+        init.visitLdcInsn(name.hashCode());
+        init.visitFieldInsn(PUTFIELD, name, "field0", "I");
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        for (int m = 0; m < methods; m++) {
+            int access = m < MIN_METHODS ? ACC_PUBLIC : METHOD_ACCESS[m % METHOD_ACCESS.length];
+            generateMethod(writer.visitMethod(access, "method" + m, "(II)I", null, null), name, methodSize);
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /** {@code a = a * 42 + b; b = Math.max(a, b); a ^= field0; if (a > b) b += n;}, repeated. */
+    private static void generateMethod(MethodVisitor mv, String owner, int methodSize) {
+        mv.visitCode();
+        for (int i = 0; i < methodSize; i++) {
+            mv.visitVarInsn(ILOAD, 1);
+            mv.visitIntInsn(BIPUSH, CONSTANT);
+            mv.visitInsn(IMUL);
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitInsn(IADD);
+            mv.visitVarInsn(ISTORE, 1);
+
+            mv.visitVarInsn(ILOAD, 1);
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "max", "(II)I", false);
+            mv.visitVarInsn(ISTORE, 2);
+
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, owner, "field0", "I");
+            mv.visitVarInsn(ILOAD, 1);
+            mv.visitInsn(IXOR);
+            mv.visitVarInsn(ISTORE, 1);
+
+            Label skip = new Label();
+            mv.visitVarInsn(ILOAD, 1);
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitJumpInsn(IF_ICMPLE, skip);
+            mv.visitIincInsn(2, (i & 63) + 1);
+            mv.visitLabel(skip);
+        }
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitVarInsn(ILOAD, 2);
+        mv.visitInsn(IADD);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /** A copy of {@link CorpusMixin} named {@link #mixinName mixinName(index)}, targeting {@code target}. */
+    public static byte[] mixin(int index, String target) throws IOException {
+        byte[] template;
+        try (InputStream in = CorpusMixin.class.getResourceAsStream("CorpusMixin.class")) {
+            if (in == null) throw new IOException("CorpusMixin.class is not on the class path");
+            template = in.readAllBytes();
+        }
+        ClassWriter writer = new ClassWriter(0);
+        // Without debug information the template's own name only appears as the class name
+        new ClassReader(template).accept(new ClassVisitor(ASM9, writer) {
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName,
+                    String[] interfaces) {
+                super.visit(version, access, internalName(mixinName(index)), signature, superName, interfaces);
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                    String[] exceptions) {
+                return new MethodVisitor(ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                    @Override
+                    public void visitLdcInsn(Object value) {
+                        super.visitLdcInsn(TEMPLATE_TARGET.equals(value) ? target : value);
+                    }
+                };
+            }
+        }, ClassReader.SKIP_DEBUG);
+        return writer.toByteArray();
+    }
+
+    private static String internalName(String className) {
+        return className.replace('.', '/');
+    }
+}
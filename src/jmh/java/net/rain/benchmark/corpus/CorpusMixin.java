@@ -0,0 +1,36 @@
+package net.rain.benchmark.corpus;
+
+import net.rain.api.mixin.IMixin;
+import net.rain.api.mixin.annotation.*;
+import net.rain.api.mixin.callback.CallbackInfo;
+import net.rain.api.mixin.callback.IntCallbackInfoReturnable;
+
+/**
+ * Template for the mixins of the corpus; never registered itself. {@link ClassCorpus#mixin}
+ * copies it under a new name for each target, replacing {@link ClassCorpus#TEMPLATE_TARGET}.
+ * One injection of each common kind, on the first four methods that every corpus class has.
+ */
+public class CorpusMixin implements IMixin {
+    @Override
+    public String getTargetClass() {
+        return ClassCorpus.TEMPLATE_TARGET;
+    }
+
+    @Inject(method = "method0", at = @At("HEAD"))
+    public void onHead(Object self, int a, int b, CallbackInfo ci) {
+    }
+
+    @Inject(method = "method1", at = @At("RETURN"))
+    public void onReturn(Object self, int a, int b, IntCallbackInfoReturnable cir) {
+    }
+
+    @Redirect(method = "method2", at = @At(value = "INVOKE", target = "java.lang.Math.max"))
+    public int redirectMax(Object self, int a, int b) {
+        return a > b ? a : b;
+    }
+
+    @ModifyConstant(method = "method3", constant = @ModifyConstant.Constant(intValue = ClassCorpus.CONSTANT))
+    public int modifyConstant(Object self, int value) {
+        return value;
+    }
+}
@@ -0,0 +1,80 @@
+package net.rain.benchmark.corpus;
+
+import net.rain.api.coremod.ICoreClassTransformer;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coremod transformers doing what coremods commonly do: add a field with an accessor, call a hook
+ * at the start of every method, and scan every method for a call without changing anything.
+ */
+public final class CorpusTransformers {
+    private CorpusTransformers() {
+    }
+
+    /** {@code count} transformers, cycling through the three kinds. */
+    public static List<ICoreClassTransformer> create(int count) {
+        List<ICoreClassTransformer> transformers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0: transformers.add(new AddField()); break;
+                case 1: transformers.add(new MethodEntry()); break;
+                default: transformers.add(new Scan()); break;
+            }
+        }
+        return transformers;
+    }
+
+    /** Called at the start of every method by {@link MethodEntry}. */
+    public static void onEnter() {
+    }
+
+    public static final class AddField implements ICoreClassTransformer {
+        @Override
+        public ClassNode transform(String className, ClassNode node) {
+            // Numbered, so that several of these can transform the same class
+            int n = node.fields.size();
+            String field = "rain$counter" + n;
+            node.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, field, "I", null, null));
+
+            MethodNode getter = new MethodNode(Opcodes.ACC_PUBLIC, "rain$getCounter" + n, "()I", null, null);
+            getter.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+            getter.instructions.add(new FieldInsnNode(Opcodes.GETFIELD, node.name, field, "I"));
+            getter.instructions.add(new InsnNode(Opcodes.IRETURN));
+            getter.maxStack = 1;
+            getter.maxLocals = 1;
+            node.methods.add(getter);
+            return node;
+        }
+    }
+
+    public static final class MethodEntry implements ICoreClassTransformer {
+        @Override
+        public ClassNode transform(String className, ClassNode node) {
+            for (MethodNode method : node.methods) {
+                if (method.name.startsWith("<") || method.instructions.size() == 0) continue;
+                method.instructions.insert(new MethodInsnNode(Opcodes.INVOKESTATIC,
+                        "net/rain/benchmark/corpus/CorpusTransformers", "onEnter", "()V", false));
+            }
+            return node;
+        }
+    }
+
+    public static final class Scan implements ICoreClassTransformer {
+        /** Only so that the scan is not optimized away; loader threads may race on it. */
+        private int found;
+
+        @Override
+        public ClassNode transform(String className, ClassNode node) {
+            for (MethodNode method : node.methods) {
+                for (AbstractInsnNode insn : method.instructions) {
+                    if (insn instanceof MethodInsnNode && ((MethodInsnNode) insn).name.equals("hashCode")) found++;
+                }
+            }
+            return node;
+        }
+    }
+}
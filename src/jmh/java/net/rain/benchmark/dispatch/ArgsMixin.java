@@ -0,0 +1,16 @@
+package net.rain.benchmark.dispatch;
+
+import net.rain.api.mixin.IMixin;
+import net.rain.api.mixin.annotation.*;
+import net.rain.api.mixin.callback.Args;
+
+public class ArgsMixin implements IMixin {
+    @Override
+    public String getTargetClass() {
+        return "net.rain.benchmark.dispatch.ArgsTarget";
+    }
+
+    @ModifyArgs(method = "modifyArgs", at = @At(value = "INVOKE", target = "java.lang.Math.max"))
+    public void modifyMaxArgs(Object self, Args args) {
+    }
+}
@@ -0,0 +1,12 @@
+package net.rain.benchmark.dispatch;
+
+/**
+ * Target of {@link ArgsMixin}. @ModifyArgs is only implemented by the Javassist engine, so it is
+ * kept off {@link DispatchTarget}, which would otherwise never be transformed by the ASM engine.
+ */
+public class ArgsTarget extends DispatchTarget {
+    @Override
+    public int modifyArgs(int a, int b) {
+        return Math.max(a, b);
+    }
+}
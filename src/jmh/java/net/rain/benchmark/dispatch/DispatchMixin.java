@@ -0,0 +1,58 @@
+package net.rain.benchmark.dispatch;
+
+import net.rain.api.mixin.IMixin;
+import net.rain.api.mixin.annotation.*;
+import net.rain.api.mixin.callback.CallbackInfo;
+import net.rain.api.mixin.callback.IntCallbackInfoReturnable;
+
+/**
+ * One handler per injection kind, each doing as little as its kind allows, so that what is
+ * measured is the dispatch. Handlers never touch {@code self}: the target is still being
+ * defined when the mixin is loaded.
+ */
+public class DispatchMixin implements IMixin {
+    @Override
+    public String getTargetClass() {
+        return "net.rain.benchmark.dispatch.DispatchTarget";
+    }
+
+    @Inject(method = "head", at = @At("HEAD"))
+    public void onHead(Object self, CallbackInfo ci) {
+    }
+
+    @Inject(method = "ret", at = @At("RETURN"))
+    public void onReturn(Object self, CallbackInfo ci) {
+    }
+
+    @Inject(method = "headCancellable", at = @At("HEAD"), cancellable = true)
+    public void onHeadCancellable(Object self, int x, CallbackInfo ci) {
+    }
+
+    @Inject(method = "returnInt", at = @At("RETURN"))
+    public void onReturnInt(Object self, int x, IntCallbackInfoReturnable cir) {
+    }
+
+    @Inject(method = "primitives", at = @At("HEAD"))
+    public void onPrimitives(Object self, int i, long l, double d, float f, boolean z, CallbackInfo ci) {
+    }
+
+    @Redirect(method = "redirect", at = @At(value = "INVOKE", target = "java.lang.Math.max"))
+    public int redirectMax(Object self, int a, int b) {
+        return a > b ? a : b;
+    }
+
+    @ModifyArg(method = "modifyArg", at = @At(value = "INVOKE", target = "java.lang.Math.max"), index = 1)
+    public int modifyMaxArg(Object self, int b) {
+        return b;
+    }
+
+    @ModifyVariable(method = "modifyVariable", index = 1, at = @At("HEAD"))
+    public double modifyX(Object self, double x) {
+        return x;
+    }
+
+    @ModifyConstant(method = "modifyConstant", constant = @ModifyConstant.Constant(intValue = 42))
+    public int modify42(Object self, int value) {
+        return value;
+    }
+}
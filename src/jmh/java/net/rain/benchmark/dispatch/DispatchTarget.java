@@ -0,0 +1,60 @@
+package net.rain.benchmark.dispatch;
+
+/**
+ * Stands in for a game class. Each method is the target of one injection in
+ * {@link DispatchMixin}, except {@link #empty}, which stays untouched; untransformed, each is
+ * the baseline for its injection.
+ */
+public class DispatchTarget implements DispatchWorkload {
+    @Override
+    public void empty() {
+    }
+
+    @Override
+    public void head() {
+    }
+
+    @Override
+    public void ret() {
+    }
+
+    @Override
+    public int headCancellable(int x) {
+        return x;
+    }
+
+    @Override
+    public int returnInt(int x) {
+        return x;
+    }
+
+    @Override
+    public long primitives(int i, long l, double d, float f, boolean z) {
+        return z ? i + l : (long) (d + f);
+    }
+
+    @Override
+    public int redirect(int a, int b) {
+        return Math.max(a, b);
+    }
+
+    @Override
+    public int modifyArg(int a, int b) {
+        return Math.max(a, b);
+    }
+
+    @Override
+    public int modifyArgs(int a, int b) {
+        return Math.max(a, b);
+    }
+
+    @Override
+    public double modifyVariable(double x) {
+        return x;
+    }
+
+    @Override
+    public int modifyConstant(int x) {
+        return x + 42;
+    }
+}
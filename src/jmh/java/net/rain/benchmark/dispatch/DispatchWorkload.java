@@ -0,0 +1,29 @@
+package net.rain.benchmark.dispatch;
+
+/**
+ * What {@code DispatchBenchmark} calls on the transformed targets. The interface itself is shared
+ * with the application class loader, so the benchmark can call into targets loaded separately.
+ */
+public interface DispatchWorkload {
+    void empty();
+
+    void head();
+
+    void ret();
+
+    int headCancellable(int x);
+
+    int returnInt(int x);
+
+    long primitives(int i, long l, double d, float f, boolean z);
+
+    int redirect(int a, int b);
+
+    int modifyArg(int a, int b);
+
+    int modifyArgs(int a, int b);
+
+    double modifyVariable(double x);
+
+    int modifyConstant(int x);
+}
@@ -0,0 +1,68 @@
+package net.rain.api.bake;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code rain-bake.json}, written by {@link RainBake} next to the baked jars. It records
+ * <ul>
+ *   <li>for every RainJava source, its SHA-256 and the classes compiled from it (stored under
+ *   {@code compiled/}), so that unchanged sources are not compiled again at boot;</li>
+ *   <li>the fingerprint of the coremod transformers the jars were baked with;</li>
+ *   <li>for every baked class, the jar holding it, the SHA-256 of the class it was baked from and
+ *   the fingerprint of the mixins applied to it.</li>
+ * </ul>
+ * Class hashes are taken over the class as modlauncher hands it to transformers: read with
+ * {@code EXPAND_FRAMES} and written back without computing anything.
+ */
+public final class BakeManifest {
+    static final String FILE_NAME = "rain-bake.json";
+    static final int VERSION = 1;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    int version = VERSION;
+    String coremods;
+    /** By path relative to the RainJava directory, with '/' separators. */
+    Map<String, Source> sources = new LinkedHashMap<>();
+    Map<String, BakedClass> classes = new LinkedHashMap<>();
+
+    static final class Source {
+        String sha256;
+        /** Class name to file under {@code compiled/}. */
+        Map<String, String> classes = new LinkedHashMap<>();
+    }
+
+    static final class BakedClass {
+        /** Relative to the manifest's directory. */
+        String jar;
+        String input;
+        String mixins;
+    }
+
+    static BakeManifest read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            BakeManifest manifest = GSON.fromJson(reader, BakeManifest.class);
+            if (manifest == null || manifest.version != VERSION) {
+                throw new IOException("unsupported manifest version");
+            }
+            return manifest;
+        }
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            GSON.toJson(this, writer);
+        }
+    }
+}
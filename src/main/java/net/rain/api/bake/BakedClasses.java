@@ -0,0 +1,174 @@
+package net.rain.api.bake;
+
+import net.rain.api.core.HashHelper;
+import net.rain.api.coremod.manager.CoreModManager;
+import net.rain.api.mixin.manager.MixinManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Runtime side of {@link RainBake}. If {@code <gameDir>/RainJava/bake/rain-bake.json} exists (the
+ * directory can be moved with {@code -Drain.bake.dir}), RainJava sources whose hash is unchanged
+ * are taken from the compiled classes stored with it instead of being compiled, and a class that
+ * was baked from exactly the bytes it is loaded from, with the same coremods and mixins, gets its
+ * baked version instead of being transformed. Anything else is transformed live as usual.
+ */
+public final class BakedClasses {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BakedClasses.class);
+
+    private static volatile BakedClasses instance;
+
+    private final Path directory;
+    private final BakeManifest manifest;
+    private final Map<String, JarFile> jars = new ConcurrentHashMap<>();
+    /**
+     * Baked classes the coremod transformer already looked up, mapped to whether it installed the
+     * baked version; the mixin transformer then neither looks them up again nor transforms them.
+     */
+    private final Map<String, Boolean> lookedUp = new ConcurrentHashMap<>();
+    private volatile String coremodFingerprint;
+
+    private BakedClasses(Path directory, BakeManifest manifest) {
+        this.directory = directory;
+        this.manifest = manifest;
+    }
+
+    public static BakedClasses getInstance() {
+        BakedClasses result = instance;
+        if (result == null) {
+            synchronized (BakedClasses.class) {
+                result = instance;
+                if (result == null) instance = result = load(directory());
+            }
+        }
+        return result;
+    }
+
+    /** {@code <gameDir>/RainJava/bake}, or {@code -Drain.bake.dir}. */
+    static Path directory() {
+        String configured = System.getProperty("rain.bake.dir");
+        if (configured != null) return Paths.get(configured);
+        return Paths.get(".").toAbsolutePath().normalize().resolve("RainJava").resolve("bake");
+    }
+
+    private static BakedClasses load(Path directory) {
+        Path file = directory.resolve(BakeManifest.FILE_NAME);
+        if (!Files.isRegularFile(file)) return new BakedClasses(directory, null);
+        try {
+            BakeManifest manifest = BakeManifest.read(file);
+            LOGGER.info("Using baked classes from {}: {} source(s), {} class(es)", directory,
+                    manifest.sources.size(), manifest.classes.size());
+            return new BakedClasses(directory, manifest);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring bake manifest {}: {}", file, e.toString());
+            return new BakedClasses(directory, null);
+        }
+    }
+
+    /** Whether a class was baked at all; checked before it is serialized and hashed for {@link #find}. */
+    public boolean has(String className) {
+        return manifest != null && manifest.classes.containsKey(className);
+    }
+
+    /**
+     * The classes compiled from a RainJava source at bake time, by name, if the source is
+     * unchanged since; null if it has to be compiled.
+     */
+    public Map<String, byte[]> compiled(Path rainJavaDir, Path sourceFile) {
+        if (manifest == null) return null;
+        String key = rainJavaDir.toAbsolutePath().normalize().relativize(sourceFile.toAbsolutePath().normalize())
+                .toString().replace('\\', '/');
+        BakeManifest.Source source = manifest.sources.get(key);
+        if (source == null || source.classes.isEmpty()) return null;
+        try {
+            if (!source.sha256.equals(HashHelper.sha256(Files.readAllBytes(sourceFile)))) return null;
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : source.classes.entrySet()) {
+                classes.put(entry.getKey(), Files.readAllBytes(directory.resolve(entry.getValue())));
+            }
+            return classes;
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read the baked classes of {}, compiling it", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * The baked class file for a class about to be transformed, if it was baked from exactly
+     * {@code input} with the coremod transformers now loaded and the given mixins; null otherwise.
+     */
+    public byte[] find(String className, byte[] input, List<Class<?>> mixins) {
+        if (manifest == null) return null;
+        BakeManifest.BakedClass baked = manifest.classes.get(className);
+        if (baked == null) return null;
+        if (!baked.input.equals(HashHelper.sha256(input))) return null;
+        if (!Objects.equals(manifest.coremods, coremodFingerprint()) || !baked.mixins.equals(mixinFingerprint(mixins))) {
+            LOGGER.debug("{} was baked with other coremods or mixins, transforming it", className);
+            return null;
+        }
+        try {
+            JarFile jar = jars.computeIfAbsent(baked.jar, this::open);
+            JarEntry entry = jar.getJarEntry(className.replace('.', '/') + ".class");
+            if (entry == null) return null;
+            try (InputStream in = jar.getInputStream(entry)) {
+                return in.readAllBytes();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot read baked {} from {}, transforming it", className, baked.jar, e);
+            return null;
+        }
+    }
+
+    private JarFile open(String jar) {
+        try {
+            return new JarFile(directory.resolve(jar).toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void markLookedUp(String className, boolean installed) {
+        lookedUp.put(className, installed);
+    }
+
+    /**
+     * Once, whether the coremod transformer installed the baked version of the class; null if it
+     * did not look the class up.
+     */
+    public Boolean takeLookedUp(String className) {
+        return lookedUp.remove(className);
+    }
+
+    private String coremodFingerprint() {
+        String fingerprint = coremodFingerprint;
+        if (fingerprint == null) coremodFingerprint = fingerprint = CoreModManager.getTransformerFingerprint();
+        return fingerprint;
+    }
+
+    /** Over the mixins' names in sorted order and their bytecode; null if one is not cached. */
+    public static String mixinFingerprint(List<Class<?>> mixins) {
+        List<String> names = new ArrayList<>(mixins.size());
+        for (Class<?> mixin : mixins) names.add(mixin.getName());
+        Collections.sort(names);
+        return HashHelper.fingerprint(names, name -> {
+            MixinManager.MixinMetadata metadata = MixinManager.getMetadata(name);
+            return metadata == null ? null : metadata.bytecode;
+        });
+    }
+}
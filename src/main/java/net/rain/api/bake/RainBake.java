@@ -0,0 +1,211 @@
+package net.rain.api.bake;
+
+import net.rain.api.core.HashHelper;
+import net.rain.api.coremod.manager.CoreModManager;
+import net.rain.api.mixin.loader.MixinLoader;
+import net.rain.api.mixin.manager.MixinManager;
+import net.rain.api.mixin.transformer.MixinTransformer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Offline bake tool. Loads {@code RainJava/coremod} and {@code RainJava/mixins} the way
+ * {@link CoreModManager} and {@link MixinLoader} do at boot, applies the coremod transformers and
+ * mixins to every class of the given jars, and writes copies of the jars with the transformed
+ * classes plus a {@link BakeManifest}. At runtime {@link BakedClasses} picks them up, so a server
+ * started from the same jars and RainJava sources skips compiling and transforming.
+ * <pre>
+ * java -cp RainAPI.jar:&lt;game class path&gt;:&lt;jars&gt; net.rain.api.bake.RainBake \
+ *     [--game-dir &lt;dir&gt;] [--output &lt;dir&gt;] &lt;jar&gt;...
+ * </pre>
+ * The jars must be on the class path too, since RainJava sources are compiled against it. The
+ * output defaults to {@code <gameDir>/RainJava/bake}, where the runtime looks for it.
+ */
+public final class RainBake {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RainBake.class);
+
+    /** Never transformed at runtime either; see {@code MixinTransformer} and {@code RainClassTransformer}. */
+    private static final String[] EXCLUDED = {
+            "net.rain.api.", "java.", "javax.", "sun.", "jdk.", "javassist.", "org.objectweb.asm."
+    };
+
+    private final Path gameDir;
+    private final Path output;
+    private final ClassLoader loader;
+    private final BakeManifest manifest = new BakeManifest();
+    private int baked;
+    private int failed;
+
+    private RainBake(Path gameDir, Path output, ClassLoader loader) {
+        this.gameDir = gameDir;
+        this.output = output;
+        this.loader = loader;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path gameDir = Paths.get(".");
+        Path output = null;
+        List<Path> jars = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--game-dir") && i + 1 < args.length) {
+                gameDir = Paths.get(args[++i]);
+            } else if (args[i].equals("--output") && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else {
+                jars.add(Paths.get(args[i]));
+            }
+        }
+        if (jars.isEmpty()) {
+            System.err.println("Usage: RainBake [--game-dir <dir>] [--output <dir>] <jar>...");
+            System.exit(2);
+        }
+        gameDir = gameDir.toAbsolutePath().normalize();
+        if (output == null) output = gameDir.resolve("RainJava").resolve("bake");
+
+        URL[] urls = new URL[jars.size()];
+        for (int i = 0; i < urls.length; i++) urls[i] = jars.get(i).toUri().toURL();
+        try (URLClassLoader loader = new URLClassLoader("RainBake", urls, RainBake.class.getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(loader);
+            new RainBake(gameDir, output.toAbsolutePath().normalize(), loader).run(jars);
+        }
+    }
+
+    private void run(List<Path> jars) throws IOException {
+        long start = System.nanoTime();
+        CoreModManager.loadCoreMods(gameDir);
+        MixinLoader.init();
+        MixinLoader.loadMixinsFromRainJava(gameDir);
+
+        recordSources();
+        manifest.coremods = CoreModManager.getTransformerFingerprint();
+        for (Path jar : jars) bake(jar);
+        manifest.write(output.resolve(BakeManifest.FILE_NAME));
+
+        LOGGER.info("Baked {} class(es) from {} jar(s) into {} in {} ms; {} failed and will be transformed at runtime",
+                baked, jars.size(), output, (System.nanoTime() - start) / 1_000_000, failed);
+    }
+
+    /** Stores the compiled RainJava classes, so that unchanged sources are not compiled at boot. */
+    private void recordSources() throws IOException {
+        Path rainJavaDir = gameDir.resolve("RainJava");
+        for (MixinManager.MixinMetadata metadata : MixinManager.getAllMetadata()) {
+            if (metadata.sourceFile != null) {
+                recordSource(rainJavaDir, metadata.sourceFile, Map.of(metadata.className, metadata.bytecode));
+            }
+        }
+        for (Map.Entry<Path, Map<String, byte[]>> entry : CoreModManager.getCompiledSources().entrySet()) {
+            recordSource(rainJavaDir, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void recordSource(Path rainJavaDir, Path sourceFile, Map<String, byte[]> classes) throws IOException {
+        Path absolute = sourceFile.toAbsolutePath().normalize();
+        String key = rainJavaDir.relativize(absolute).toString().replace('\\', '/');
+        BakeManifest.Source source = manifest.sources.computeIfAbsent(key, k -> new BakeManifest.Source());
+        source.sha256 = HashHelper.sha256(Files.readAllBytes(absolute));
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            String file = "compiled/" + entry.getKey().replace('.', '/') + ".class";
+            Path target = output.resolve(file);
+            Files.createDirectories(target.getParent());
+            Files.write(target, entry.getValue());
+            source.classes.put(entry.getKey(), file);
+        }
+    }
+
+    private void bake(Path jar) throws IOException {
+        // Jars of the same name from different directories must not overwrite each other
+        String directory = HashHelper.sha256(jar.toAbsolutePath().normalize().toString()
+                .getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        String name = "jars/" + directory + "/" + jar.getFileName();
+        Path target = output.resolve(name);
+        Files.createDirectories(target.getParent());
+        LOGGER.info("Baking {}", jar);
+
+        try (JarFile in = new JarFile(jar.toFile());
+             JarOutputStream out = new JarOutputStream(Files.newOutputStream(target))) {
+            Enumeration<JarEntry> entries = in.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+                // The classes no longer match the signatures
+                if (entryName.startsWith("META-INF/") && (entryName.endsWith(".SF") || entryName.endsWith(".DSA")
+                        || entryName.endsWith(".RSA") || entryName.endsWith(".EC"))) {
+                    continue;
+                }
+                byte[] bytes;
+                try (InputStream stream = in.getInputStream(entry)) {
+                    bytes = stream.readAllBytes();
+                }
+                if (!entry.isDirectory() && entryName.endsWith(".class") && !entryName.startsWith("META-INF/")
+                        && !entryName.endsWith("module-info.class")) {
+                    bytes = bakeClass(name, entryName.substring(0, entryName.length() - 6).replace('/', '.'), bytes);
+                }
+                out.putNextEntry(new JarEntry(entryName));
+                out.write(bytes);
+                out.closeEntry();
+            }
+        }
+    }
+
+    /** The class to write to the baked jar; the input itself if nothing applies to it or baking fails. */
+    private byte[] bakeClass(String jar, String className, byte[] bytes) {
+        for (String prefix : EXCLUDED) {
+            if (className.startsWith(prefix)) return bytes;
+        }
+        try {
+            // Hashed the way modlauncher hands classes to transformers, as BakedClasses hashes them
+            ClassNode node = new ClassNode();
+            new ClassReader(bytes).accept(node, ClassReader.EXPAND_FRAMES);
+            byte[] input = toBytecode(node);
+
+            byte[] transformed = input;
+            if (CoreModManager.hasTransformers()) {
+                transformed = toBytecode(CoreModManager.transformClassNode(className, node));
+            }
+            List<Class<?>> mixins = MixinManager.getMixinsFor(className, loader);
+            if (mixins.isEmpty() && Arrays.equals(transformed, input)) return bytes;
+
+            String mixinFingerprint = BakedClasses.mixinFingerprint(mixins);
+            if (mixinFingerprint == null) throw new IllegalStateException("a mixin has no cached bytecode");
+            byte[] result = MixinTransformer.bake(className, transformed, loader);
+
+            BakeManifest.BakedClass entry = new BakeManifest.BakedClass();
+            entry.jar = jar;
+            entry.input = HashHelper.sha256(input);
+            entry.mixins = mixinFingerprint;
+            manifest.classes.put(className, entry);
+            baked++;
+            return result;
+        } catch (Exception | LinkageError e) {
+            failed++;
+            LOGGER.error("Failed to bake {}", className, e);
+            return bytes;
+        }
+    }
+
+    private static byte[] toBytecode(ClassNode node) {
+        ClassWriter writer = new ClassWriter(0);
+        node.accept(writer);
+        return writer.toByteArray();
+    }
+}
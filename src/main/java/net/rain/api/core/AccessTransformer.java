@@ -1,6 +1,7 @@
 package net.rain.api.core;
 
 import cpw.mods.modlauncher.serviceapi.ILaunchPluginService;
+import net.rain.api.core.jfr.AccessTransformEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.objectweb.asm.Opcodes;
@@ -31,67 +32,80 @@ public class AccessTransformer implements ILaunchPluginService {
             return false;
         }
         if ("classloading".equals(reason)){
-            boolean changed=false;
-            if (isPrivate(classNode.access)){
-                classNode.access&=~Opcodes.ACC_PRIVATE;
-                classNode.access|=Opcodes.ACC_PUBLIC;
-                changed=true;
+            AccessTransformEvent event=new AccessTransformEvent();
+            event.begin();
+            boolean changed=widen(classNode);
+            if (event.shouldCommit()){
+                event.className=className;
+                event.members=classNode.methods.size()+classNode.fields.size();
+                event.changed=changed;
+                event.commit();
             }
-            if (isProtected(classNode.access)){
-                classNode.access&=~Opcodes.ACC_PROTECTED;
-                classNode.access|=Opcodes.ACC_PUBLIC;
-                changed=true;
-            }
-            if (isFinal(classNode.access)){
-                classNode.access&=~Opcodes.ACC_FINAL;
-                changed=true;
-            }
-            for (MethodNode method:classNode.methods){
-                if (!method.name.equals("<clinit>")){
-                    if (isPrivate(method.access)){
-                        method.access&=~Opcodes.ACC_PRIVATE;
-                        method.access|=Opcodes.ACC_PUBLIC;
-                        changed=true;
-                    }
-                    if (isProtected(method.access)){
-                        method.access&=~Opcodes.ACC_PROTECTED;
-                        method.access|=Opcodes.ACC_PUBLIC;
-                        changed=true;
-                    }
-                    if (isFinal(method.access)){
-                        method.access&=~Opcodes.ACC_FINAL;
-                        changed=true;
-                    }
-                    if (!isPublic(method.access)){
-                        method.access|=Opcodes.ACC_PUBLIC;
-                        changed=true;
-                    }
+            return changed;
+        }
+        return false;
+    }
+    
+    private boolean widen(ClassNode classNode) {
+        boolean changed=false;
+        if (isPrivate(classNode.access)){
+            classNode.access&=~Opcodes.ACC_PRIVATE;
+            classNode.access|=Opcodes.ACC_PUBLIC;
+            changed=true;
+        }
+        if (isProtected(classNode.access)){
+            classNode.access&=~Opcodes.ACC_PROTECTED;
+            classNode.access|=Opcodes.ACC_PUBLIC;
+            changed=true;
+        }
+        if (isFinal(classNode.access)){
+            classNode.access&=~Opcodes.ACC_FINAL;
+            changed=true;
+        }
+        for (MethodNode method:classNode.methods){
+            if (!method.name.equals("<clinit>")){
+                if (isPrivate(method.access)){
+                    method.access&=~Opcodes.ACC_PRIVATE;
+                    method.access|=Opcodes.ACC_PUBLIC;
+                    changed=true;
+                }
+                if (isProtected(method.access)){
+                    method.access&=~Opcodes.ACC_PROTECTED;
+                    method.access|=Opcodes.ACC_PUBLIC;
+                    changed=true;
+                }
+                if (isFinal(method.access)){
+                    method.access&=~Opcodes.ACC_FINAL;
+                    changed=true;
+                }
+                if (!isPublic(method.access)){
+                    method.access|=Opcodes.ACC_PUBLIC;
+                    changed=true;
                 }
             }
-            for (FieldNode field:classNode.fields){
-                if (!"$VALUES".equals(field.name)){
-                    if (isPrivate(field.access)){
-                        field.access&=~Opcodes.ACC_PRIVATE;
-                        field.access|=Opcodes.ACC_PUBLIC;
-                        changed=true;
-                    }
-                    if (isProtected(field.access)){
-                        field.access&=~Opcodes.ACC_PROTECTED;
-                        field.access|=Opcodes.ACC_PUBLIC;
-                        changed=true;
-                    }
-                    if (isFinal(field.access)&&!isInterface(classNode.access)){
-                        field.access&=~Opcodes.ACC_FINAL;
-                        changed=true;
-                    }
-                    if (!isPublic(field.access)){
-                        field.access|=Opcodes.ACC_PUBLIC;
-                        changed=true;
-                    }
+        }
+        for (FieldNode field:classNode.fields){
+            if (!"$VALUES".equals(field.name)){
+                if (isPrivate(field.access)){
+                    field.access&=~Opcodes.ACC_PRIVATE;
+                    field.access|=Opcodes.ACC_PUBLIC;
+                    changed=true;
+                }
+                if (isProtected(field.access)){
+                    field.access&=~Opcodes.ACC_PROTECTED;
+                    field.access|=Opcodes.ACC_PUBLIC;
+                    changed=true;
+                }
+                if (isFinal(field.access)&&!isInterface(classNode.access)){
+                    field.access&=~Opcodes.ACC_FINAL;
+                    changed=true;
+                }
+                if (!isPublic(field.access)){
+                    field.access|=Opcodes.ACC_PUBLIC;
+                    changed=true;
                 }
             }
-            return changed;
         }
-        return false;
+        return changed;
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package net.rain.api.core;
+
+import net.rain.api.core.jfr.BootPhaseEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Wall time of each phase of {@link RainAPIService}'s static initialization, logged once it is
+ * done. The startup benchmark reads them to tell compilation from the rest of the boot.
+ */
+public final class BootPhases {
+    private static final Logger LOGGER = LogManager.getLogger("RainAPIService");
+
+    private static final Map<String, Long> NANOS = new LinkedHashMap<>();
+
+    private BootPhases() {
+    }
+
+    static void run(String phase, Runnable action) {
+        BootPhaseEvent event = new BootPhaseEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            synchronized (NANOS) {
+                NANOS.merge(phase, elapsed, Long::sum);
+            }
+            if (event.shouldCommit()) {
+                event.phase = phase;
+                event.commit();
+            }
+        }
+    }
+
+    /** Nanoseconds by phase, in the order the phases ran. */
+    public static Map<String, Long> get() {
+        synchronized (NANOS) {
+            return new LinkedHashMap<>(NANOS);
+        }
+    }
+
+    static void log() {
+        StringJoiner phases = new StringJoiner(", ");
+        for (Map.Entry<String, Long> entry : get().entrySet()) {
+            phases.add(entry.getKey() + " " + entry.getValue() / 1_000_000 + " ms");
+        }
+        LOGGER.info("Boot phases: {}", phases);
+    }
+}
@@ -0,0 +1,56 @@
+package net.rain.api.core;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.function.Function;
+
+/** SHA-256 hashing shared by the transform cache, the class metadata and the bake manifest. */
+public final class HashHelper {
+
+    private HashHelper() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Length-prefixed, so that different splits of the same bytes never collide. */
+    public static void update(MessageDigest digest, byte[] bytes) {
+        int length = bytes.length;
+        digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+
+    public static String hex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public static String sha256(byte[] bytes) {
+        return hex(newDigest().digest(bytes));
+    }
+
+    /**
+     * SHA-256 over names and the bytecode of each, in order; null if any bytecode is missing.
+     * Identifies a list of mixins or coremod transformers.
+     */
+    public static String fingerprint(List<String> classNames, Function<String, byte[]> bytecode) {
+        MessageDigest digest = newDigest();
+        for (String className : classNames) {
+            byte[] bytes = bytecode.apply(className);
+            if (bytes == null) return null;
+            update(digest, className.getBytes(StandardCharsets.UTF_8));
+            update(digest, bytes);
+        }
+        return hex(digest.digest());
+    }
+}
@@ -39,6 +39,14 @@ public class RainAPIService implements ITransformationService {
     private static final Logger LOGGER = LogManager.getLogger("RainAPIService");
 
     static {
+        BootPhases.run("launchPlugins", RainAPIService::registerLaunchPlugins);
+        BootPhases.run("coremods", CoreModManager::loadCoreMods);
+        BootPhases.run("compiler", MixinLoader::init);
+        BootPhases.run("mixins", MixinLoader::loadMixinsFromRainJava);
+        BootPhases.log();
+    }
+
+    private static void registerLaunchPlugins() {
         LaunchPluginHandler handler = UnsafeHelper.getFieldValue(Launcher.INSTANCE, "launchPlugins", LaunchPluginHandler.class);
         Map<String, ILaunchPluginService> plugins = (Map<String,ILaunchPluginService>) UnsafeHelper.getFieldValue(handler, "plugins", Map.class);
         Map<String, ILaunchPluginService> newMap = new ConcurrentHashMap<>();
@@ -49,9 +57,6 @@ public class RainAPIService implements ITransformationService {
                 newMap.put(name, plugins.get(name));
         UnsafeHelper.setFieldValue(handler, "plugins", newMap);
         System.out.println("成功注册我的ILaunchPluginService");
-        CoreModManager.loadCoreMods();
-        MixinLoader.init();
-        MixinLoader.loadMixinsFromRainJava();
     }
 
     @Override
@@ -0,0 +1,22 @@
+package net.rain.api.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** The access transformer widening one class. */
+@Name("rain.AccessTransform")
+@Label("Access Transform")
+@Category({"RainAPI", "Transformation"})
+@StackTrace(false)
+public final class AccessTransformEvent extends jdk.jfr.Event {
+    @Label("Class Name")
+    public String className;
+
+    @Label("Members")
+    public int members;
+
+    @Label("Changed")
+    public boolean changed;
+}
@@ -0,0 +1,16 @@
+package net.rain.api.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One phase of {@code RainAPIService}'s static initialization; the other Boot events happen inside it. */
+@Name("rain.BootPhase")
+@Label("RainAPI Boot Phase")
+@Category({"RainAPI", "Boot"})
+@StackTrace(false)
+public final class BootPhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    public String phase;
+}
@@ -0,0 +1,34 @@
+package net.rain.api.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A sampled call of an injected mixin handler. Only recorded with
+ * {@code -Drain.mixin.jfr.dispatch=true}, for one call in
+ * {@code rain.mixin.jfr.dispatch.sampleInterval}; see {@code MixinDispatchEvents}.
+ */
+@Name("rain.CallbackDispatch")
+@Label("Callback Dispatch")
+@Category({"RainAPI", "Runtime"})
+@StackTrace(false)
+public final class CallbackDispatchEvent extends jdk.jfr.Event {
+    @Label("Target Class")
+    public String targetClass;
+
+    @Label("Mixin Class")
+    public String mixinClass;
+
+    @Label("Handler")
+    public String handler;
+
+    @Label("Injection")
+    @Description("The injected method and point, e.g. tick@HEAD")
+    public String injection;
+
+    @Label("Sample Interval")
+    public int sampleInterval;
+}
@@ -0,0 +1,33 @@
+package net.rain.api.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One RainJava source compiled with ecj (or taken from the bake) at boot. */
+@Name("rain.Compile")
+@Label("RainJava Compile")
+@Category({"RainAPI", "Boot"})
+@StackTrace(false)
+public final class CompileEvent extends jdk.jfr.Event {
+    @Label("Kind")
+    @Description("mixin or coremod")
+    public String kind;
+
+    @Label("Source File")
+    public String sourceFile;
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Bytecode Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    @Description("compiled, baked or failed")
+    public String outcome;
+}
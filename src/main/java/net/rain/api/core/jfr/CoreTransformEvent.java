@@ -0,0 +1,24 @@
+package net.rain.api.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One coremod transformer ({@code ICoreClassTransformer.transform}) run on one class. */
+@Name("rain.CoreTransform")
+@Label("CoreMod Transform")
+@Category({"RainAPI", "Transformation"})
+@StackTrace(false)
+public final class CoreTransformEvent extends jdk.jfr.Event {
+    @Label("Class Name")
+    public String className;
+
+    @Label("Transformer")
+    public String transformer;
+
+    @Label("Outcome")
+    @Description("replaced, returned or failed")
+    public String outcome;
+}
@@ -0,0 +1,37 @@
+package net.rain.api.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Applying one annotated mixin method to a target, nested in its {@link MixinTransformEvent};
+ * grouping by mixin or injection type breaks the transformation time down.
+ */
+@Name("rain.InjectionApply")
+@Label("Injection Apply")
+@Category({"RainAPI", "Transformation"})
+@StackTrace(false)
+public final class InjectionApplyEvent extends jdk.jfr.Event {
+    @Label("Target Class")
+    public String targetClass;
+
+    @Label("Mixin Class")
+    public String mixinClass;
+
+    @Label("Handler")
+    public String handler;
+
+    @Label("Injection Type")
+    @Description("The annotation, e.g. Inject or Redirect")
+    public String injectionType;
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Outcome")
+    @Description("applied or failed")
+    public String outcome;
+}
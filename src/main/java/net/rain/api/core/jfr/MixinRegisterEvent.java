@@ -0,0 +1,29 @@
+package net.rain.api.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Loading a compiled mixin against the game class loader and registering it for its target. */
+@Name("rain.MixinRegister")
+@Label("Mixin Register")
+@Category({"RainAPI", "Boot"})
+@StackTrace(false)
+public final class MixinRegisterEvent extends jdk.jfr.Event {
+    @Label("Mixin Class")
+    public String mixinClass;
+
+    @Label("Target Class")
+    public String targetClass;
+
+    @Label("Bytecode Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    @Description("registered, disabled, invalid, failed, or lost race if another thread registered it first")
+    public String outcome;
+}
@@ -0,0 +1,40 @@
+package net.rain.api.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Applying the mixins of one target class as modlauncher loads it. */
+@Name("rain.MixinTransform")
+@Label("Mixin Transform")
+@Category({"RainAPI", "Transformation"})
+@StackTrace(false)
+public final class MixinTransformEvent extends jdk.jfr.Event {
+    @Label("Class Name")
+    public String className;
+
+    @Label("Mixins")
+    public int mixins;
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Source")
+    @Description("transformed, pre-transformed, cached, shared or baked")
+    public String source;
+
+    @Label("Input Size")
+    @DataAmount
+    public long inputBytes;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputBytes;
+
+    @Label("Outcome")
+    @Description("applied or failed")
+    public String outcome;
+}
@@ -3,9 +3,14 @@ package net.rain.api.coremod.manager;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import net.minecraftforge.fml.loading.FMLPaths;
+import net.rain.api.bake.BakedClasses;
+import net.rain.api.core.HashHelper;
 import net.rain.api.coremod.ICoreClassTransformer;
 import net.rain.api.coremod.ICoreModLoadingPlugin;
 import net.rain.api.core.java.*;
+import net.rain.api.core.jfr.CompileEvent;
+import net.rain.api.core.jfr.CoreTransformEvent;
+import net.rain.api.mixin.transformer.ClassMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.objectweb.asm.tree.ClassNode;
@@ -24,6 +29,8 @@ public class CoreModManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(CoreModManager.class);
     private static final List<ICoreClassTransformer> transformers = new ArrayList<>();
     private static final Map<String, ICoreModLoadingPlugin> plugins = new HashMap<>();
+    /** Bytecode of every compiled coremod class, by source file and class name. */
+    private static final Map<Path, Map<String, byte[]>> compiledSources = new LinkedHashMap<>();
     private static final Gson GSON = new Gson();
     private static JavaSourceCompiler compiler;
     private static DynamicClassLoader classLoader;
@@ -33,6 +40,11 @@ public class CoreModManager {
     }
 
     public static void loadCoreMods() {
+        loadCoreMods(FMLPaths.GAMEDIR.get());
+    }
+
+    /** Loads the coremods under {@code <gameDir>/RainJava/coremod}; also used offline by the bake tool. */
+    public static void loadCoreMods(Path gameDir) {
         
         ClassLoader parentLoader = CoreModManager.class.getClassLoader();
         classLoader = new DynamicClassLoader(parentLoader);
@@ -52,7 +64,6 @@ public class CoreModManager {
             return;
         }
 
-        Path gameDir = FMLPaths.GAMEDIR.get();
         File coreModDir = gameDir.resolve("RainJava").resolve("coremod").toFile();
         
         if (!coreModDir.exists()) {
@@ -72,7 +83,7 @@ public class CoreModManager {
             return;
         }
         
-        loadCoreModsFromJson(coreModJson, coreModDir);
+        loadCoreModsFromJson(coreModJson, coreModDir, gameDir);
         
         LOGGER.info("Loaded {} coremod plugins with {} transformers", 
             plugins.size(), transformers.size());
@@ -103,7 +114,7 @@ public class CoreModManager {
         }
     }
     
-    private static void loadCoreModsFromJson(File jsonFile, File baseDir) {
+    private static void loadCoreModsFromJson(File jsonFile, File baseDir, Path gameDir) {
         try (FileReader reader = new FileReader(jsonFile)) {
             JsonObject json = GSON.fromJson(reader, JsonObject.class);
             
@@ -114,14 +125,14 @@ public class CoreModManager {
             
             String pluginClassName = json.get("plugins").getAsString();
             LOGGER.info("Loading coremod plugin: {}", pluginClassName);
-            loadCoreModPlugin(pluginClassName, baseDir);
+            loadCoreModPlugin(pluginClassName, baseDir, gameDir);
             
         } catch (Exception e) {
             LOGGER.error("Failed to load coremod.json from: {}", jsonFile, e);
         }
     }
     
-    private static void loadCoreModPlugin(String pluginClassName, File baseDir) {
+    private static void loadCoreModPlugin(String pluginClassName, File baseDir, Path gameDir) {
         try {
             
             List<Path> javaFiles = new ArrayList<>();
@@ -142,25 +153,47 @@ public class CoreModManager {
             Map<String, Class<?>> compiledClasses = new HashMap<>();
             
             for (Path javaFile : javaFiles) {
+                CompileEvent event = new CompileEvent();
+                event.begin();
                 try {
-                    LOGGER.info("Compiling: {}", javaFile.getFileName());
-                    
-                    
-                    CompiledClass compiled = compiler.compile(javaFile);
-                    
-                    
-                    classLoader.addCompiledClass(compiled.className, compiled.bytecode);
-                    
-                    
-                    Class<?> clazz = classLoader.loadClass(compiled.className);
-                    
+                    Map<String, byte[]> sourceClasses = BakedClasses.getInstance()
+                            .compiled(gameDir.resolve("RainJava"), javaFile);
+                    if (sourceClasses != null) {
+                        LOGGER.info("Using baked: {}", javaFile.getFileName());
+                        event.outcome = "baked";
+                    } else {
+                        LOGGER.info("Compiling: {}", javaFile.getFileName());
+                        CompiledClass compiled = compiler.compile(javaFile);
+                        sourceClasses = Map.of(compiled.className, compiled.bytecode);
+                        event.outcome = "compiled";
+                    }
+                    event.end();
+                    compiledSources.put(javaFile.toAbsolutePath().normalize(), sourceClasses);
+                    for (Map.Entry<String, byte[]> entry : sourceClasses.entrySet()) {
+                        event.className = entry.getKey();
+                        event.bytes += entry.getValue().length;
+                    }
                     
-                    compiledClasses.put(compiled.className, clazz);
-                    LOGGER.info("Successfully compiled and loaded: {}", compiled.className);
+                    for (Map.Entry<String, byte[]> entry : sourceClasses.entrySet()) {
+                        classLoader.addCompiledClass(entry.getKey(), entry.getValue());
+                        
+                        
+                        Class<?> clazz = classLoader.loadClass(entry.getKey());
+                        
+                        
+                        compiledClasses.put(entry.getKey(), clazz);
+                        LOGGER.info("Successfully compiled and loaded: {}", entry.getKey());
+                    }
                     
                 } catch (Exception e) {
+                    event.outcome = "failed";
                     LOGGER.error("Failed to compile {}: {}", javaFile.getFileName(), e.getMessage(), e);
                 }
+                if (event.shouldCommit()) {
+                    event.kind = "coremod";
+                    event.sourceFile = javaFile.toString();
+                    event.commit();
+                }
             }
             
             
@@ -183,7 +216,7 @@ public class CoreModManager {
             
             
             Map<String, Object> data = new HashMap<>();
-            data.put("mcLocation", FMLPaths.GAMEDIR.get().toFile());
+            data.put("mcLocation", gameDir.toFile());
             data.put("coremodLocation", baseDir);
             data.put("coremodList", new ArrayList<>(plugins.keySet()));
             plugin.injectData(data);
@@ -225,21 +258,71 @@ public class CoreModManager {
         ClassNode result = input;
         
         for (ICoreClassTransformer transformer : transformers) {
+            CoreTransformEvent event = new CoreTransformEvent();
+            event.begin();
             try {
                 ClassNode transformed = transformer.transform(className, result);
                 if (transformed != null) {
+                    event.outcome = transformed == result ? "returned" : "replaced";
                     result = transformed;
+                } else {
+                    event.outcome = "returned";
                 }
             } catch (Exception e) {
+                event.outcome = "failed";
                 LOGGER.error("Transformer {} failed for {}", 
                     transformer.getClass().getName(), className, e);
             }
+            if (event.shouldCommit()) {
+                event.className = className;
+                event.transformer = transformer.getClass().getName();
+                event.commit();
+            }
         }
         
         return result;
     }
     
+    /**
+     * Adds a transformer that is not loaded from {@code RainJava/coremod}, e.g. by a benchmark
+     * driving {@link #transformClassNode} directly. Its bytecode is not known, so
+     * {@link #getTransformerFingerprint} returns null while it is registered.
+     */
+    public static void registerTransformer(ICoreClassTransformer transformer) {
+        transformers.add(transformer);
+        LOGGER.info("Registered transformer: {}", transformer.getClass().getName());
+    }
+
     public static List<ICoreClassTransformer> getTransformers() {
         return Collections.unmodifiableList(transformers);
     }
+
+    /** The bytecode of every compiled coremod class, by the source file it was compiled from. */
+    public static Map<Path, Map<String, byte[]>> getCompiledSources() {
+        return Collections.unmodifiableMap(compiledSources);
+    }
+
+    /**
+     * Identifies the loaded transformers, in order, by class name and bytecode; used to tell
+     * whether classes were baked with the same coremods.
+     */
+    public static String getTransformerFingerprint() {
+        List<String> names = new ArrayList<>();
+        for (ICoreClassTransformer transformer : transformers) names.add(transformer.getClass().getName());
+        return HashHelper.fingerprint(names, name -> {
+            for (Map<String, byte[]> classes : compiledSources.values()) {
+                byte[] bytecode = classes.get(name);
+                if (bytecode != null) return bytecode;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Superclass, interfaces and access of other classes, read from their headers without
+     * loading them. Transformers can use it to decide on type relationships.
+     */
+    public static ClassMetadata getClassMetadata() {
+        return ClassMetadata.getInstance();
+    }
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package net.rain.api.coremod.transformer;
 
+import net.rain.api.bake.BakedClasses;
 import net.rain.api.coremod.manager.*;
+import net.rain.api.mixin.manager.MixinManager;
 import cpw.mods.modlauncher.api.ITransformer;
 import cpw.mods.modlauncher.api.ITransformerVotingContext;
 import cpw.mods.modlauncher.api.TransformerVoteResult;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 import org.jetbrains.annotations.NotNull;
 
@@ -17,12 +21,35 @@ public class RainClassTransformer implements ITransformer<ClassNode> {
         String className = context.getClassName(); // 从 context 获取类名
         
         try {
+            ClassNode baked = bakedVersion(className, input);
+            if (baked != null) return baked;
             return CoreModManager.transformClassNode(className, input);
         } catch (Exception e) {
             throw new RuntimeException("Transform failed: " + className, e);
         }
     }
     
+    /**
+     * The class as {@code RainBake} baked it, coremods and mixins applied, if it was baked from
+     * this input; the mixin transformer then leaves it alone.
+     */
+    private static ClassNode bakedVersion(String className, ClassNode input) {
+        BakedClasses bakedClasses = BakedClasses.getInstance();
+        if (!bakedClasses.has(className)) return null;
+
+        ClassWriter writer = new ClassWriter(0);
+        input.accept(writer);
+        ClassLoader gameClassLoader = Thread.currentThread().getContextClassLoader();
+        List<Class<?>> mixins = MixinManager.getMixinsFor(className, gameClassLoader);
+        byte[] bytecode = bakedClasses.find(className, writer.toByteArray(), mixins);
+        bakedClasses.markLookedUp(className, bytecode != null);
+        if (bytecode == null) return null;
+
+        ClassNode baked = new ClassNode();
+        new ClassReader(bytecode).accept(baked, 0);
+        return baked;
+    }
+    
     @Override
     public @NotNull TransformerVoteResult castVote(ITransformerVotingContext context) {
         String className = context.getClassName();
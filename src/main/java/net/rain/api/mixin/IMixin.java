@@ -10,4 +10,14 @@ public interface IMixin {
     default boolean isEnabled() {
         return true;
     }
+
+    /**
+     * When true, handler, @Overwrite and @Unique method bodies are copied into the target class
+     * instead of being called on this instance, and @Shadow members are accessed directly on the
+     * target. Mixin instance state other than @Shadow and @Unique fields is not available to
+     * merged code.
+     */
+    default boolean shouldMerge() {
+        return false;
+    }
 }
\ No newline at end of file
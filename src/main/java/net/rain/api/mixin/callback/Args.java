@@ -4,4 +4,49 @@ public interface Args {
     <T> T get(int index);
     <T> void set(int index, T value);
     int size();
-}
\ No newline at end of file
+
+    /**
+     * Typed accessors. These defaults go through {@link #get} and {@link #set}; the transformer's
+     * own implementation keeps primitives unboxed and overrides them.
+     */
+    default int getInt(int index) {
+        Object value = get(index);
+        return value instanceof Character ? (Character) value : ((Number) value).intValue();
+    }
+
+    default void setInt(int index, int value) {
+        set(index, value);
+    }
+
+    default long getLong(int index) {
+        return ((Number) get(index)).longValue();
+    }
+
+    default void setLong(int index, long value) {
+        set(index, value);
+    }
+
+    default float getFloat(int index) {
+        return ((Number) get(index)).floatValue();
+    }
+
+    default void setFloat(int index, float value) {
+        set(index, value);
+    }
+
+    default double getDouble(int index) {
+        return ((Number) get(index)).doubleValue();
+    }
+
+    default void setDouble(int index, double value) {
+        set(index, value);
+    }
+
+    default boolean getBoolean(int index) {
+        return (Boolean) get(index);
+    }
+
+    default void setBoolean(int index, boolean value) {
+        set(index, value);
+    }
+}
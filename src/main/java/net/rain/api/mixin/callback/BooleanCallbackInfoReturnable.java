@@ -0,0 +1,6 @@
+package net.rain.api.mixin.callback;
+
+public interface BooleanCallbackInfoReturnable extends CallbackInfoReturnable<Boolean> {
+    boolean getReturnValueZ();
+    void setReturnValueZ(boolean value);
+}
@@ -0,0 +1,6 @@
+package net.rain.api.mixin.callback;
+
+public interface DoubleCallbackInfoReturnable extends CallbackInfoReturnable<Double> {
+    double getReturnValueD();
+    void setReturnValueD(double value);
+}
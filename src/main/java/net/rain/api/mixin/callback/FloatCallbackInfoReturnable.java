@@ -0,0 +1,6 @@
+package net.rain.api.mixin.callback;
+
+public interface FloatCallbackInfoReturnable extends CallbackInfoReturnable<Float> {
+    float getReturnValueF();
+    void setReturnValueF(float value);
+}
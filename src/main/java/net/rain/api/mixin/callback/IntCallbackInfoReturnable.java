@@ -0,0 +1,6 @@
+package net.rain.api.mixin.callback;
+
+public interface IntCallbackInfoReturnable extends CallbackInfoReturnable<Integer> {
+    int getReturnValueI();
+    void setReturnValueI(int value);
+}
@@ -0,0 +1,6 @@
+package net.rain.api.mixin.callback;
+
+public interface LongCallbackInfoReturnable extends CallbackInfoReturnable<Long> {
+    long getReturnValueJ();
+    void setReturnValueJ(long value);
+}
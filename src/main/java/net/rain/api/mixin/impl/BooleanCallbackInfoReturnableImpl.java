@@ -0,0 +1,33 @@
+package net.rain.api.mixin.impl;
+
+import net.rain.api.mixin.callback.BooleanCallbackInfoReturnable;
+
+public final class BooleanCallbackInfoReturnableImpl extends CallbackInfoImpl
+        implements BooleanCallbackInfoReturnable {
+    private boolean returnValue;
+
+    public BooleanCallbackInfoReturnableImpl(String id, boolean returnValue) {
+        super(id);
+        this.returnValue = returnValue;
+    }
+
+    @Override
+    public boolean getReturnValueZ() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValueZ(boolean value) {
+        this.returnValue = value;
+    }
+
+    @Override
+    public Boolean getReturnValue() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValue(Boolean value) {
+        this.returnValue = value;
+    }
+}
@@ -0,0 +1,33 @@
+package net.rain.api.mixin.impl;
+
+import net.rain.api.mixin.callback.DoubleCallbackInfoReturnable;
+
+public final class DoubleCallbackInfoReturnableImpl extends CallbackInfoImpl
+        implements DoubleCallbackInfoReturnable {
+    private double returnValue;
+
+    public DoubleCallbackInfoReturnableImpl(String id, double returnValue) {
+        super(id);
+        this.returnValue = returnValue;
+    }
+
+    @Override
+    public double getReturnValueD() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValueD(double value) {
+        this.returnValue = value;
+    }
+
+    @Override
+    public Double getReturnValue() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValue(Double value) {
+        this.returnValue = value;
+    }
+}
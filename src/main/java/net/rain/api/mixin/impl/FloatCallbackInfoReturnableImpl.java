@@ -0,0 +1,33 @@
+package net.rain.api.mixin.impl;
+
+import net.rain.api.mixin.callback.FloatCallbackInfoReturnable;
+
+public final class FloatCallbackInfoReturnableImpl extends CallbackInfoImpl
+        implements FloatCallbackInfoReturnable {
+    private float returnValue;
+
+    public FloatCallbackInfoReturnableImpl(String id, float returnValue) {
+        super(id);
+        this.returnValue = returnValue;
+    }
+
+    @Override
+    public float getReturnValueF() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValueF(float value) {
+        this.returnValue = value;
+    }
+
+    @Override
+    public Float getReturnValue() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValue(Float value) {
+        this.returnValue = value;
+    }
+}
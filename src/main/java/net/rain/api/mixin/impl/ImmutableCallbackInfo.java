@@ -0,0 +1,29 @@
+package net.rain.api.mixin.impl;
+
+import net.rain.api.mixin.callback.CallbackInfo;
+
+/**
+ * Stateless CallbackInfo shared by every call of a non-cancellable injection, so those sites
+ * allocate nothing. {@link #cancel()} is ignored, as it always was for non-cancellable injections.
+ */
+public final class ImmutableCallbackInfo implements CallbackInfo {
+    private final String id;
+
+    public ImmutableCallbackInfo(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public void cancel() {
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,33 @@
+package net.rain.api.mixin.impl;
+
+import net.rain.api.mixin.callback.IntCallbackInfoReturnable;
+
+public final class IntCallbackInfoReturnableImpl extends CallbackInfoImpl
+        implements IntCallbackInfoReturnable {
+    private int returnValue;
+
+    public IntCallbackInfoReturnableImpl(String id, int returnValue) {
+        super(id);
+        this.returnValue = returnValue;
+    }
+
+    @Override
+    public int getReturnValueI() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValueI(int value) {
+        this.returnValue = value;
+    }
+
+    @Override
+    public Integer getReturnValue() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValue(Integer value) {
+        this.returnValue = value;
+    }
+}
@@ -0,0 +1,33 @@
+package net.rain.api.mixin.impl;
+
+import net.rain.api.mixin.callback.LongCallbackInfoReturnable;
+
+public final class LongCallbackInfoReturnableImpl extends CallbackInfoImpl
+        implements LongCallbackInfoReturnable {
+    private long returnValue;
+
+    public LongCallbackInfoReturnableImpl(String id, long returnValue) {
+        super(id);
+        this.returnValue = returnValue;
+    }
+
+    @Override
+    public long getReturnValueJ() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValueJ(long value) {
+        this.returnValue = value;
+    }
+
+    @Override
+    public Long getReturnValue() {
+        return returnValue;
+    }
+
+    @Override
+    public void setReturnValue(Long value) {
+        this.returnValue = value;
+    }
+}
@@ -0,0 +1,125 @@
+package net.rain.api.mixin.impl;
+
+import net.rain.api.mixin.callback.Args;
+
+/**
+ * Args for a call with primitive parameters. Primitive arguments live unboxed in a {@code long[]},
+ * references in an {@code Object[]}; the typed accessors never box, and {@link #get(int)} only
+ * boxes when a handler asks for a primitive argument as an object.
+ * <p>
+ * {@code kinds} holds one descriptor character per argument ({@code I J F D Z B S C}, or
+ * {@code L} for references and arrays), computed by the transformer from the call descriptor.
+ */
+public final class TypedArgsImpl implements Args {
+    private final String kinds;
+    private final long[] primitives;
+    private final Object[] references;
+
+    public TypedArgsImpl(String kinds) {
+        this.kinds = kinds;
+        this.primitives = new long[kinds.length()];
+        this.references = new Object[kinds.length()];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(int index) {
+        long bits = primitives[index];
+        switch (kinds.charAt(index)) {
+            case 'I': return (T) Integer.valueOf((int) bits);
+            case 'J': return (T) Long.valueOf(bits);
+            case 'F': return (T) Float.valueOf(Float.intBitsToFloat((int) bits));
+            case 'D': return (T) Double.valueOf(Double.longBitsToDouble(bits));
+            case 'Z': return (T) Boolean.valueOf(bits != 0);
+            case 'B': return (T) Byte.valueOf((byte) bits);
+            case 'S': return (T) Short.valueOf((short) bits);
+            case 'C': return (T) Character.valueOf((char) bits);
+            default: return (T) references[index];
+        }
+    }
+
+    @Override
+    public <T> void set(int index, T value) {
+        switch (kinds.charAt(index)) {
+            case 'I': case 'B': case 'S':
+                primitives[index] = ((Number) value).intValue();
+                break;
+            case 'J':
+                primitives[index] = ((Number) value).longValue();
+                break;
+            case 'F':
+                primitives[index] = Float.floatToRawIntBits(((Number) value).floatValue());
+                break;
+            case 'D':
+                primitives[index] = Double.doubleToRawLongBits(((Number) value).doubleValue());
+                break;
+            case 'Z':
+                primitives[index] = (Boolean) value ? 1 : 0;
+                break;
+            case 'C':
+                primitives[index] = (Character) value;
+                break;
+            default:
+                references[index] = value;
+        }
+    }
+
+    @Override
+    public int size() {
+        return kinds.length();
+    }
+
+    @Override
+    public int getInt(int index) {
+        return (int) primitives[index];
+    }
+
+    @Override
+    public void setInt(int index, int value) {
+        primitives[index] = value;
+    }
+
+    @Override
+    public long getLong(int index) {
+        return primitives[index];
+    }
+
+    @Override
+    public void setLong(int index, long value) {
+        primitives[index] = value;
+    }
+
+    @Override
+    public float getFloat(int index) {
+        return Float.intBitsToFloat((int) primitives[index]);
+    }
+
+    @Override
+    public void setFloat(int index, float value) {
+        primitives[index] = Float.floatToRawIntBits(value);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(primitives[index]);
+    }
+
+    @Override
+    public void setDouble(int index, double value) {
+        primitives[index] = Double.doubleToRawLongBits(value);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        return primitives[index] != 0;
+    }
+
+    @Override
+    public void setBoolean(int index, boolean value) {
+        primitives[index] = value ? 1 : 0;
+    }
+
+    public Object getObject(int index) {
+        return references[index];
+    }
+}
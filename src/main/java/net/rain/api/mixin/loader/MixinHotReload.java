@@ -0,0 +1,252 @@
+package net.rain.api.mixin.loader;
+
+import net.rain.api.core.java.*;
+import net.rain.api.mixin.manager.MixinManager;
+import net.rain.api.mixin.transformer.MixinTransformer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+/**
+ * Watch mode for {@code RainJava/mixins}, enabled with {@code -Drain.mixin.hotReload=true}.
+ * Changes are collected until the directory has been quiet for {@code rain.mixin.hotReload.delay}
+ * milliseconds (300 by default); then only the changed files are compiled, the new versions
+ * replace the old ones in {@link MixinManager}, and the loaded targets of every changed mixin are
+ * transformed again and redefined in one batch.
+ * <p>
+ * Redefinition needs an {@link Instrumentation}: {@link RainAgent} is attached to the running VM
+ * on the first reload, which needs {@code -Djdk.attach.allowAttachSelf=true}, unless the game was
+ * started with it as {@code -javaagent}.
+ */
+final class MixinHotReload {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MixinHotReload.class);
+
+    static final boolean ENABLED = Boolean.getBoolean("rain.mixin.hotReload");
+    private static final long DELAY_MILLIS = Long.getLong("rain.mixin.hotReload.delay", 300);
+
+    private static Thread watcher;
+
+    private final Path mixinsDir;
+    private final JavaSourceCompiler compiler;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    private MixinHotReload(Path mixinsDir, JavaSourceCompiler compiler) {
+        this.mixinsDir = mixinsDir;
+        this.compiler = compiler;
+    }
+
+    static synchronized void start(Path mixinsDir, JavaSourceCompiler compiler) {
+        if (watcher != null) return;
+        if (compiler == null) {
+            LOGGER.warn("No compiler, mixin hot reload disabled");
+            return;
+        }
+        MixinHotReload hotReload = new MixinHotReload(mixinsDir, compiler);
+        watcher = new Thread(hotReload::watch, "Rain Mixin Hot Reload");
+        watcher.setDaemon(true);
+        watcher.start();
+        LOGGER.info("Watching {} for mixin changes", mixinsDir);
+    }
+
+    // ==================== Watching ====================
+
+    private void watch() {
+        try (WatchService service = mixinsDir.getFileSystem().newWatchService()) {
+            registerAll(service, mixinsDir, null);
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                collect(service, service.take(), changed);
+                WatchKey key;
+                while ((key = service.poll(DELAY_MILLIS, TimeUnit.MILLISECONDS)) != null) collect(service, key, changed);
+                if (!changed.isEmpty()) reload(changed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Mixin hot reload stopped", e);
+        }
+    }
+
+    private void collect(WatchService service, WatchKey key, Set<Path> changed) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                // Events were lost; compiling everything again is still cheaper than a restart
+                registerAll(service, mixinsDir, changed);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context()).toAbsolutePath().normalize();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                registerAll(service, path, changed);
+            } else if (path.toString().endsWith(".java")) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) directories.remove(key);
+    }
+
+    /** Registers a directory tree; adds the sources in it to {@code sources} if that is not null. */
+    private void registerAll(WatchService service, Path root, Set<Path> sources) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.forEach(path -> {
+                if (Files.isDirectory(path)) {
+                    if (directories.containsValue(path)) return;
+                    try {
+                        directories.put(path.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), path);
+                    } catch (IOException e) {
+                        LOGGER.warn("Cannot watch {}", path, e);
+                    }
+                } else if (sources != null && path.toString().endsWith(".java")) {
+                    sources.add(path.toAbsolutePath().normalize());
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warn("Cannot walk {}", root, e);
+        }
+    }
+
+    // ==================== Reloading ====================
+
+    private void reload(Set<Path> changed) {
+        long start = System.nanoTime();
+        Set<String> targets = new LinkedHashSet<>();
+        int compiled = 0;
+        int removed = 0;
+        int failed = 0;
+
+        for (Path file : changed) {
+            List<String> previous = MixinManager.getMixinsFromSource(file);
+            if (!Files.isRegularFile(file)) {
+                for (String mixin : previous) {
+                    String target = remove(mixin);
+                    if (target != null) targets.add(target);
+                    removed++;
+                    LOGGER.info("  - Removed: {}", mixin);
+                }
+                continue;
+            }
+
+            CompiledClass result;
+            try {
+                result = compiler.compileFileWithTransform(file);
+            } catch (Exception e) {
+                failed++;
+                LOGGER.error("  ✗ Failed to compile {}, keeping the previous version", file.getFileName(), e);
+                continue;
+            }
+            // The class may have been renamed
+            for (String mixin : previous) {
+                if (mixin.equals(result.className)) continue;
+                String target = remove(mixin);
+                if (target != null) targets.add(target);
+                removed++;
+            }
+            MixinManager.MixinMetadata current = MixinManager.getMetadata(result.className);
+            if (current != null && Arrays.equals(current.bytecode, result.bytecode)) continue;
+
+            Class<?> old = MixinManager.getLoadedMixin(result.className);
+            targets.addAll(MixinManager.reloadMixin(result.className, result.bytecode, file));
+            if (old != null) MixinTransformer.forgetMixin(old);
+            compiled++;
+            LOGGER.info("  ✓ Recompiled: {}", result.className);
+        }
+        long compiledAt = System.nanoTime();
+
+        int redefined = 0;
+        if (!targets.isEmpty()) {
+            Instrumentation instrumentation = instrumentation();
+            if (instrumentation != null) redefined = MixinTransformer.redefineLoaded(instrumentation, targets);
+        }
+        long end = System.nanoTime();
+
+        LOGGER.info("Mixin hot reload: {} recompiled, {} removed, {} failed; {} class(es) redefined for {} target(s) "
+                        + "in {} ms (compile {} ms, redefine {} ms)", compiled, removed, failed, redefined,
+                targets.size(), TimeUnit.NANOSECONDS.toMillis(end - start),
+                TimeUnit.NANOSECONDS.toMillis(compiledAt - start), TimeUnit.NANOSECONDS.toMillis(end - compiledAt));
+    }
+
+    /** Removes a mixin from {@link MixinManager} and what the transformer read from its class. */
+    private static String remove(String mixin) {
+        Class<?> old = MixinManager.getLoadedMixin(mixin);
+        String target = MixinManager.removeMixin(mixin);
+        if (old != null) MixinTransformer.forgetMixin(old);
+        return target;
+    }
+
+    // ==================== Instrumentation ====================
+
+    /** The agent's instrumentation, attaching {@link RainAgent} first if needed; null if that fails. */
+    private static Instrumentation instrumentation() {
+        Instrumentation instrumentation = agentInstrumentation();
+        if (instrumentation == null) {
+            attachAgent();
+            instrumentation = agentInstrumentation();
+        }
+        return instrumentation;
+    }
+
+    /**
+     * Reads {@link RainAgent}'s field from the copy the system class loader defined, which is the
+     * one the agent was started in; the copy visible here may come from another loader.
+     */
+    private static Instrumentation agentInstrumentation() {
+        try {
+            Class<?> agent = Class.forName(RainAgent.class.getName(), true, ClassLoader.getSystemClassLoader());
+            return (Instrumentation) agent.getMethod("instrumentation").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Not on the system class path: only an attached agent can have defined it there
+            return null;
+        }
+    }
+
+    /** Writes {@link RainAgent} into a temporary agent jar and loads it into the running VM. */
+    private static void attachAgent() {
+        try {
+            Manifest manifest = new Manifest();
+            Attributes attributes = manifest.getMainAttributes();
+            attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            attributes.putValue("Agent-Class", RainAgent.class.getName());
+            attributes.putValue("Can-Redefine-Classes", "true");
+            attributes.putValue("Can-Retransform-Classes", "true");
+
+            Path jar = Files.createTempFile("rain-agent", ".jar");
+            jar.toFile().deleteOnExit();
+            String entry = RainAgent.class.getName().replace('.', '/') + ".class";
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest);
+                 InputStream in = RainAgent.class.getClassLoader().getResourceAsStream(entry)) {
+                if (in == null) throw new IOException("Cannot read " + entry);
+                out.putNextEntry(new JarEntry(entry));
+                in.transferTo(out);
+                out.closeEntry();
+            }
+
+            // jdk.attach is in the boot layer; it is reached reflectively so that nothing else depends on it
+            Class<?> vmClass = Class.forName("com.sun.tools.attach.VirtualMachine", true,
+                    ClassLoader.getSystemClassLoader());
+            Object vm = vmClass.getMethod("attach", String.class).invoke(null,
+                    String.valueOf(ProcessHandle.current().pid()));
+            try {
+                vmClass.getMethod("loadAgent", String.class).invoke(vm, jar.toString());
+            } finally {
+                vmClass.getMethod("detach").invoke(vm);
+            }
+            LOGGER.info("Attached the hot reload agent");
+        } catch (Exception e) {
+            LOGGER.error("Cannot attach the hot reload agent; start the game with -Djdk.attach.allowAttachSelf=true "
+                    + "or -javaagent:<RainAPI jar>", e);
+        }
+    }
+}
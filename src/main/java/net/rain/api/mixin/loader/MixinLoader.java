@@ -1,8 +1,10 @@
 package net.rain.api.mixin.loader;
 
+import net.rain.api.bake.BakedClasses;
 import net.rain.api.mixin.IMixin;
 import net.rain.api.mixin.manager.MixinManager;
 import net.rain.api.core.java.*;
+import net.rain.api.core.jfr.CompileEvent;
 import net.rain.api.mixin.transformer.MixinTransformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +34,12 @@ public class MixinLoader {
     }
     
     public static void loadMixinsFromRainJava() {
+        loadMixinsFromRainJava(Paths.get(".").toAbsolutePath().normalize());
+    }
+    
+    /** Compiles {@code <gameDir>/RainJava/mixins}; also used offline by the bake tool. */
+    public static void loadMixinsFromRainJava(Path gameDir) {
         try {
-            Path gameDir = Paths.get(".").toAbsolutePath().normalize();
             Path rainJavaDir = gameDir.resolve("RainJava");
             Path mixinsDir = rainJavaDir.resolve("mixins");
             
@@ -41,10 +47,11 @@ public class MixinLoader {
                 LOGGER.info("Mixins directory does not exist: {}", mixinsDir);
                 LOGGER.info("Creating directory: {}", mixinsDir);
                 Files.createDirectories(mixinsDir);
-                return;
+            } else {
+                compileMixins(mixinsDir, rainJavaDir);
             }
             
-            compileMixins(mixinsDir);
+            if (MixinHotReload.ENABLED) MixinHotReload.start(mixinsDir, jsc);
             
         } catch (Exception e) {
             LOGGER.error("Failed to load mixins from RainJava directory", e);
@@ -69,7 +76,7 @@ public class MixinLoader {
         LOGGER.info("Compiler initialized with full classpath");
     }
     
-    private static void compileMixins(Path mixinsDir) {
+    private static void compileMixins(Path mixinsDir, Path rainJavaDir) {
         if (!Files.exists(mixinsDir)) {
             LOGGER.info("Mixins directory does not exist: {}", mixinsDir);
             return;
@@ -97,27 +104,55 @@ public class MixinLoader {
         int failCount = 0;
         
         for (Path file : javaFiles) {
+            CompileEvent event = new CompileEvent();
+            event.begin();
             try {
                 Path absolutePath = resolveFilePath(file);
                 
+                Map<String, byte[]> baked = BakedClasses.getInstance().compiled(rainJavaDir, absolutePath);
+                if (baked != null) {
+                    for (Map.Entry<String, byte[]> entry : baked.entrySet()) {
+                        MixinManager.cacheMixinBytecode(entry.getKey(), entry.getValue(), file);
+                        LOGGER.info("  ✓ Baked: {}", entry.getKey());
+                        event.className = entry.getKey();
+                        event.bytes += entry.getValue().length;
+                    }
+                    successCount++;
+                    event.outcome = "baked";
+                    commit(event, file);
+                    continue;
+                }
+                
                 CompiledClass compiled = jsc.compileFileWithTransform(absolutePath);
                 
                 MixinManager.cacheMixinBytecode(compiled.className, compiled.bytecode, file);
                 successCount++;
+                event.className = compiled.className;
+                event.bytes = compiled.bytecode.length;
+                event.outcome = "compiled";
                 
                 LOGGER.info("  ✓ Compiled and cached: {}", compiled.className);
                 
             } catch (Exception e) {
                 failCount++;
+                event.outcome = "failed";
                 LOGGER.error("  ✗ Failed to compile: {}", file.getFileName(), e);
                 if (e.getMessage() != null && e.getMessage().contains("cannot find symbol")) {
                     LOGGER.error("     Hint: Make sure all imported classes are available in the game");
                 }
             }
+            commit(event, file);
         }
         
     }
     
+    private static void commit(CompileEvent event, Path file) {
+        if (!event.shouldCommit()) return;
+        event.kind = "mixin";
+        event.sourceFile = file.toString();
+        event.commit();
+    }
+    
     public static boolean isInitialized() {
         return initialized;
     }
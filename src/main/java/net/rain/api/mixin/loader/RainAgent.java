@@ -0,0 +1,31 @@
+package net.rain.api.mixin.loader;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * Java agent that hands out the {@link Instrumentation} hot reload redefines classes with. It is
+ * either started with {@code -javaagent:<RainAPI jar>}, or attached by {@link MixinHotReload} on
+ * first use.
+ * <p>
+ * The agent class is loaded by the system class loader, not by the loader the rest of RainAPI
+ * runs in, so {@link MixinHotReload} reads the instance reflectively from that copy, and this
+ * class must not depend on anything outside the JDK.
+ */
+public final class RainAgent {
+    private static volatile Instrumentation instrumentation;
+
+    private RainAgent() {
+    }
+
+    public static void premain(String args, Instrumentation instrumentation) {
+        agentmain(args, instrumentation);
+    }
+
+    public static void agentmain(String args, Instrumentation instrumentation) {
+        RainAgent.instrumentation = instrumentation;
+    }
+
+    public static Instrumentation instrumentation() {
+        return instrumentation;
+    }
+}
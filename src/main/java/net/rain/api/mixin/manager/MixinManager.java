@@ -1,12 +1,16 @@
 package net.rain.api.mixin.manager;
 
+import net.rain.api.core.jfr.MixinRegisterEvent;
 import net.rain.api.mixin.IMixin;
+import net.rain.api.mixin.runtime.MixinFailures;
+import net.rain.api.mixin.runtime.MixinSwitches;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class MixinManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(MixinManager.class);
@@ -18,6 +22,9 @@ public class MixinManager {
     
     private static final Set<String> TRANSFORMED_CLASSES = ConcurrentHashMap.newKeySet();
 
+    /** The game class loader mixins were last loaded against; reloaded mixins are loaded against it too. */
+    private static volatile ClassLoader lastGameClassLoader;
+
     public static class MixinMetadata {
         public final String className;
         public final byte[] bytecode;
@@ -39,6 +46,15 @@ public class MixinManager {
         return MIXIN_CACHE.get(className);
     }
 
+    /** Every compiled mixin, loaded or not. */
+    public static Collection<MixinMetadata> getAllMetadata() {
+        return Collections.unmodifiableCollection(MIXIN_CACHE.values());
+    }
+
+    public static Class<?> getLoadedMixin(String className) {
+        return LOADED_MIXINS.get(className);
+    }
+
     public static Class<
                     ?> loadAndRegisterMixin(String mixinClassName, ClassLoader gameClassLoader) {
         Class<?> cached = LOADED_MIXINS.get(mixinClassName);
@@ -46,7 +62,21 @@ public class MixinManager {
 
         MixinMetadata metadata = MIXIN_CACHE.get(mixinClassName);
         if (metadata == null) return null;
+        lastGameClassLoader = gameClassLoader;
 
+        MixinRegisterEvent event = new MixinRegisterEvent();
+        event.begin();
+        Class<?> mixinClass = register(metadata, gameClassLoader, event);
+        if (event.shouldCommit()) {
+            event.mixinClass = mixinClassName;
+            event.bytes = metadata.bytecode.length;
+            event.commit();
+        }
+        return mixinClass;
+    }
+
+    private static Class<?> register(MixinMetadata metadata, ClassLoader gameClassLoader, MixinRegisterEvent event) {
+        String mixinClassName = metadata.className;
         try {
             
             net.rain.api.core.java.DynamicClassLoader classLoader = new net.rain.api.core.java.DynamicClassLoader(gameClassLoader);
@@ -56,25 +86,44 @@ public class MixinManager {
 
             if (!IMixin.class.isAssignableFrom(mixinClass)) {
                 LOGGER.warn("Class {} does not implement IMixin", mixinClassName);
+                event.outcome = "invalid";
                 return null;
             }
 
             IMixin mixin = (IMixin) mixinClass.getDeclaredConstructor().newInstance();
-            if (!mixin.isEnabled()) return null;
-
-            MixinRegistry.registerInstance(mixinClassName, mixin);
-
+            if (!mixin.isEnabled()) {
+                event.outcome = "disabled";
+                return null;
+            }
             String targetClass = mixin.getTargetClass();
-            metadata.targetClass = targetClass;
+            event.targetClass = targetClass;
 
-            TARGET_TO_MIXINS.computeIfAbsent(targetClass, k -> new ArrayList<>()).add(mixinClassName);
-            LOADED_MIXINS.put(mixinClassName, mixinClass);
+            // Threads loading classes in parallel may both get here; the first to register wins and
+            // the other's class and instance are dropped. Loading happens outside the lock, since it
+            // can need class loading locks held by threads waiting for this one.
+            synchronized (LOADED_MIXINS) {
+                Class<?> registered = LOADED_MIXINS.get(mixinClassName);
+                if (registered != null) {
+                    event.outcome = "lost race";
+                    return registered;
+                }
+
+                MixinRegistry.registerInstance(mixinClassName, mixin);
+                metadata.targetClass = targetClass;
+                // A reloaded mixin keeps its place among the mixins of an unchanged target
+                List<String> targetMixins = TARGET_TO_MIXINS.computeIfAbsent(targetClass, k -> new CopyOnWriteArrayList<>());
+                if (!targetMixins.contains(mixinClassName)) targetMixins.add(mixinClassName);
+                // Published last: a mixin in LOADED_MIXINS is fully registered
+                LOADED_MIXINS.put(mixinClassName, mixinClass);
+            }
 
             LOGGER.info("Loaded and registered mixin: {} -> {}", mixinClassName, targetClass);
+            event.outcome = "registered";
             return mixinClass;
 
         } catch (Exception e) {
             LOGGER.error("Failed to load mixin: {}", mixinClassName, e);
+            event.outcome = "failed";
             return null;
         }
     }
@@ -97,7 +146,11 @@ public class MixinManager {
 
     public static List<Class<?>> getMixinsFor(String className, ClassLoader gameClassLoader) {
         hasMixins(className, gameClassLoader);
+        return getLoadedMixinsFor(className);
+    }
 
+    /** Like {@link #getMixinsFor}, but never loads mixins, so it is safe to call off the class loading thread. */
+    public static List<Class<?>> getLoadedMixinsFor(String className) {
         List<String> mixinNames = TARGET_TO_MIXINS.getOrDefault(className, Collections.emptyList());
         List<Class<?>> mixinClasses = new ArrayList<>();
         for (String mixinName : mixinNames) {
@@ -107,11 +160,106 @@ public class MixinManager {
         return mixinClasses;
     }
 
-    /** Returns true if this class has not been transformed yet (prevents double-processing). */
+    /**
+     * Replaces the bytecode of a mixin, for hot reload. A mixin that was already loaded is loaded
+     * again from the new bytecode, in a new class loader, and registered in place of the old
+     * version; one that was not is loaded as soon as a game class loader is known. Returns the
+     * targets of the old and the new version, which have to be transformed again.
+     */
+    public static Set<String> reloadMixin(String className, byte[] bytecode, Path sourceFile) {
+        Set<String> targets = new LinkedHashSet<>();
+        ClassLoader gameClassLoader = lastGameClassLoader;
+        synchronized (LOADED_MIXINS) {
+            Class<?> old = LOADED_MIXINS.remove(className);
+            if (old != null && old.getClassLoader() != null) gameClassLoader = old.getClassLoader().getParent();
+            MixinMetadata oldMetadata = MIXIN_CACHE.put(className, new MixinMetadata(className, bytecode, sourceFile));
+            if (oldMetadata != null && oldMetadata.targetClass != null) targets.add(oldMetadata.targetClass);
+        }
+        // The old instance must not outlive a new version that fails to load or is disabled
+        MixinRegistry.unregisterInstance(className);
+        MixinFailures.resetMixin(className);
+
+        if (gameClassLoader != null && loadAndRegisterMixin(className, gameClassLoader) != null) {
+            String newTarget = MIXIN_CACHE.get(className).targetClass;
+            for (String oldTarget : targets) {
+                if (!oldTarget.equals(newTarget)) unlinkTarget(oldTarget, className);
+            }
+            targets.add(newTarget);
+        } else {
+            for (String oldTarget : targets) unlinkTarget(oldTarget, className);
+        }
+        return targets;
+    }
+
+    /** Forgets a mixin whose source was deleted. Returns its target, or null if it had none. */
+    public static String removeMixin(String className) {
+        MixinMetadata metadata;
+        synchronized (LOADED_MIXINS) {
+            LOADED_MIXINS.remove(className);
+            metadata = MIXIN_CACHE.remove(className);
+        }
+        MixinRegistry.unregisterInstance(className);
+        MixinFailures.resetMixin(className);
+        if (metadata == null || metadata.targetClass == null) return null;
+        unlinkTarget(metadata.targetClass, className);
+        return metadata.targetClass;
+    }
+
+    private static void unlinkTarget(String targetClass, String mixinClassName) {
+        List<String> mixins = TARGET_TO_MIXINS.get(targetClass);
+        if (mixins == null) return;
+        mixins.remove(mixinClassName);
+        if (mixins.isEmpty()) TARGET_TO_MIXINS.remove(targetClass, mixins);
+    }
+
+    /** The mixins compiled from a source file; usually one. */
+    public static List<String> getMixinsFromSource(Path sourceFile) {
+        Path normalized = sourceFile.toAbsolutePath().normalize();
+        List<String> mixins = new ArrayList<>();
+        for (MixinMetadata metadata : MIXIN_CACHE.values()) {
+            if (metadata.sourceFile != null && metadata.sourceFile.toAbsolutePath().normalize().equals(normalized)) {
+                mixins.add(metadata.className);
+            }
+        }
+        return mixins;
+    }
+
+    /**
+     * Returns true if this class has not been marked yet.
+     *
+     * @deprecated the transformer no longer uses this: concurrent transformations of the same class
+     * share one result, and a class loaded by another loader is transformed again.
+     */
+    @Deprecated
     public static boolean markTransforming(String className) {
         return TRANSFORMED_CLASSES.add(className);
     }
 
+    /**
+     * Turns every injection of a loaded mixin on or off. Takes effect on the next call of each
+     * injection site, without retransforming the targets. @Overwrite and @Unique members are not
+     * affected.
+     */
+    public static void setMixinEnabled(String mixinClassName, boolean enabled) {
+        if (enabled) MixinFailures.resetMixin(mixinClassName);
+        MixinSwitches.setMixinEnabled(mixinClassName, enabled);
+        LOGGER.info("Mixin {} {}", mixinClassName, enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Turns a single injection, identified by its handler method name, on or off. Enabling also
+     * closes the circuit breaker of an injection that {@code MixinFailures} switched off.
+     */
+    public static void setInjectionEnabled(String mixinClassName, String handlerName, boolean enabled) {
+        if (enabled) MixinFailures.reset(mixinClassName, handlerName);
+        MixinSwitches.setInjectionEnabled(mixinClassName, handlerName, enabled);
+        LOGGER.info("Injection {}.{} {}", mixinClassName, handlerName, enabled ? "enabled" : "disabled");
+    }
+
+    public static boolean isInjectionEnabled(String mixinClassName, String handlerName) {
+        return MixinSwitches.isEnabled(mixinClassName, handlerName);
+    }
+
     public static int getCachedMixinCount() {
         return MIXIN_CACHE.size();
     }
@@ -130,6 +278,8 @@ public class MixinManager {
         LOADED_MIXINS.clear();
         TRANSFORMED_CLASSES.clear();
         MixinRegistry.clear();
+        MixinSwitches.clear();
+        MixinFailures.clear();
         LOGGER.info("All mixin caches cleared");
     }
 
@@ -139,6 +289,9 @@ public class MixinManager {
         LOGGER.info("  Cached:  {}", getCachedMixinCount());
         LOGGER.info("  Loaded:  {}", getLoadedMixinCount());
         LOGGER.info("  Targets: {}", TARGET_TO_MIXINS.size());
+        LOGGER.info("  Disabled mixins:     {}", MixinSwitches.getDisabledMixins());
+        LOGGER.info("  Disabled injections: {}", MixinSwitches.getDisabledInjections());
+        MixinFailures.printSummary();
         LOGGER.info("========================================");
         for (Map.Entry<String, List<String>> entry : TARGET_TO_MIXINS.entrySet()) {
             LOGGER.info("  {} -> {}", entry.getKey(), entry.getValue());
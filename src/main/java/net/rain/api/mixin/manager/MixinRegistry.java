@@ -10,6 +10,10 @@ public class MixinRegistry {
         INSTANCES.put(className, instance);
     }
     
+    public static void unregisterInstance(String className) {
+        INSTANCES.remove(className);
+    }
+    
     public static Object getInstance(String className) {
         return INSTANCES.get(className);
     }
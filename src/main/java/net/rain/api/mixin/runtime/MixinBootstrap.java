@@ -0,0 +1,179 @@
+package net.rain.api.mixin.runtime;
+
+import net.rain.api.core.UnsafeHelper;
+import net.rain.api.mixin.callback.CallbackInfo;
+import net.rain.api.mixin.impl.ImmutableCallbackInfo;
+import net.rain.api.mixin.manager.MixinManager;
+import net.rain.api.mixin.manager.MixinRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Bootstrap for the invokedynamic instructions emitted by {@code MixinTransformer}.
+ * Each call site is linked once to the mixin handler method, bound to the registered
+ * {@code IMixin} instance (or called directly for static handlers), so the JIT sees a
+ * constant, monomorphic target it can inline. {@link #guard} links the enable/disable checks.
+ */
+public final class MixinBootstrap {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MixinBootstrap.class);
+
+    private static final MethodHandle REPORT;
+
+    static {
+        try {
+            REPORT = MethodHandles.lookup().findStatic(MixinFailures.class, "report",
+                    MethodType.methodType(void.class, String.class, String.class, Throwable.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private MixinBootstrap() {
+    }
+
+    /**
+     * Links a handler call. {@code injection} names the injected target method and point, e.g.
+     * {@code tick@HEAD}; it only labels the site for {@link MixinMetrics} and
+     * {@link MixinDispatchEvents}.
+     */
+    public static CallSite bootstrap(MethodHandles.Lookup caller, String name, MethodType type,
+            String mixinClassName, String handlerName, String injection) {
+        try {
+            MethodHandle handler = resolveHandler(mixinClassName, handlerName, type.toMethodDescriptorString())
+                    .asType(type);
+            handler = MixinMetrics.instrument(caller.lookupClass().getName(), mixinClassName, handlerName,
+                    injection, handler);
+            handler = MixinDispatchEvents.instrument(caller.lookupClass().getName(), mixinClassName, handlerName,
+                    injection, handler);
+            return new ConstantCallSite(MixinFailures.trackSuccess(mixinClassName, handlerName, handler));
+        } catch (Exception e) {
+            LOGGER.error("Failed to link mixin handler {}.{}{} from {}",
+                    mixinClassName, handlerName, type, caller.lookupClass().getName(), e);
+            return new ConstantCallSite(unlinked(type, mixinClassName + "." + handlerName));
+        }
+    }
+
+    /**
+     * Bootstrap for the {@code ()Z} guard in front of each injection. All sites of one handler
+     * share the {@link MixinSwitches} call site, so toggling it reaches every one of them.
+     */
+    public static CallSite guard(MethodHandles.Lookup caller, String name, MethodType type,
+            String mixinClassName, String handlerName) {
+        return MixinSwitches.guard(mixinClassName, handlerName);
+    }
+
+    // ==================== ASM engine ====================
+
+    /**
+     * Links an injection emitted by {@code AsmMixinEngine}. Unlike {@link #bootstrap}, the call
+     * site carries the whole injection: the enable/disable guard and the exception handling are
+     * composed here, so the target bytecode is only the argument loads and this invokedynamic.
+     * {@code passThrough} is the index of the argument returned when the handler is disabled or
+     * fails (the original value of a modify injection), or -1 to return nothing / zero.
+     */
+    public static CallSite inject(MethodHandles.Lookup caller, String name, MethodType type,
+            String mixinClassName, String handlerDesc, String injection, int passThrough) {
+        MethodHandle fallback = passThrough < 0
+                ? MethodHandles.empty(type)
+                : MethodHandles.permuteArguments(MethodHandles.identity(type.returnType()), type, passThrough);
+        return new ConstantCallSite(link(caller, type, mixinClassName, name, handlerDesc, injection, fallback));
+    }
+
+    /** Links a redirected call; {@code original} is the redirected method, called when disabled or failing. */
+    public static CallSite redirect(MethodHandles.Lookup caller, String name, MethodType type,
+            String mixinClassName, String handlerDesc, String injection, MethodHandle original) {
+        return new ConstantCallSite(link(caller, type, mixinClassName, name, handlerDesc, injection,
+                original.asType(type)));
+    }
+
+    /** Constant-dynamic bootstrap for the shared CallbackInfo of a non-cancellable injection. */
+    public static CallbackInfo callbackInfo(MethodHandles.Lookup caller, String name, Class<?> type) {
+        return new ImmutableCallbackInfo(name);
+    }
+
+    private static MethodHandle link(MethodHandles.Lookup caller, MethodType type, String mixinClassName,
+            String handlerName, String handlerDesc, String injection, MethodHandle fallback) {
+        MethodHandle handler;
+        try {
+            handler = resolveHandler(mixinClassName, handlerName, handlerDesc);
+            // A handler may take a leading self that the site cannot supply, e.g. for a static callee
+            if (handler.type().parameterCount() == type.parameterCount() + 1) {
+                handler = MethodHandles.insertArguments(handler, 0, (Object) null);
+            }
+            handler = handler.asType(type);
+            handler = MixinMetrics.instrument(caller.lookupClass().getName(), mixinClassName, handlerName,
+                    injection, handler);
+            handler = MixinDispatchEvents.instrument(caller.lookupClass().getName(), mixinClassName, handlerName,
+                    injection, handler);
+            handler = MixinFailures.trackSuccess(mixinClassName, handlerName, handler);
+        } catch (Exception e) {
+            LOGGER.error("Failed to link mixin handler {}.{}{} from {}",
+                    mixinClassName, handlerName, handlerDesc, caller.lookupClass().getName(), e);
+            handler = unlinked(type, mixinClassName + "." + handlerName);
+        }
+
+        MethodHandle report = MethodHandles.insertArguments(REPORT, 0, mixinClassName, handlerName);
+        MethodHandle onFailure = MethodHandles.foldArguments(
+                MethodHandles.dropArguments(fallback, 0, Throwable.class), report);
+        MethodHandle guarded = MethodHandles.catchException(handler, Throwable.class, onFailure);
+        MethodHandle enabled = MethodHandles.dropArguments(
+                MixinSwitches.guard(mixinClassName, handlerName).dynamicInvoker(), 0, type.parameterList());
+        return MethodHandles.guardWithTest(enabled, guarded, fallback);
+    }
+
+    static MethodHandle resolveHandler(String mixinClassName, String handlerName, String descriptor)
+            throws ReflectiveOperationException {
+        Class<?> mixinClass = MixinManager.getLoadedMixin(mixinClassName);
+        if (mixinClass == null) {
+            throw new ClassNotFoundException("Mixin not loaded: " + mixinClassName);
+        }
+
+        for (Method method : mixinClass.getDeclaredMethods()) {
+            if (!method.getName().equals(handlerName)) continue;
+            MethodType handlerType = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+            if (!handlerType.toMethodDescriptorString().equals(descriptor)) continue;
+
+            MethodHandle handle = UnsafeHelper.getLookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                Object instance = MixinRegistry.getInstance(mixinClassName);
+                if (instance == null) {
+                    throw new IllegalStateException("Mixin instance not registered: " + mixinClassName);
+                }
+                handle = handle.bindTo(instance);
+            }
+            return handle;
+        }
+        throw new NoSuchMethodException(mixinClassName + "." + handlerName + descriptor);
+    }
+
+    /**
+     * Target for a site whose handler could not be resolved. Every call throws a stackless
+     * exception that the generated catch block treats like any other handler failure.
+     */
+    static MethodHandle unlinked(MethodType type, String handler) {
+        MethodHandle thrower = MethodHandles.throwException(type.returnType(), IllegalStateException.class)
+                .bindTo(new UnlinkedHandlerException(handler));
+        return MethodHandles.dropArguments(thrower, 0, type.parameterList());
+    }
+
+    static final class UnlinkedHandlerException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        UnlinkedHandlerException(String handler) {
+            super("Mixin handler is not linked: " + handler);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package net.rain.api.mixin.runtime;
+
+import net.rain.api.core.jfr.CallbackDispatchEvent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Throttled {@link CallbackDispatchEvent}s, enabled with {@code -Drain.mixin.jfr.dispatch=true}.
+ * <p>
+ * Like {@link MixinMetrics}, linked handlers are wrapped only when enabled, and only one call in
+ * {@code rain.mixin.jfr.dispatch.sampleInterval} (1024 by default, rounded up to a power of two)
+ * creates an event, so a hot handler cannot flood the recording. Whether a recording is running
+ * is checked on those sampled calls only.
+ */
+final class MixinDispatchEvents {
+    static final boolean ENABLED = Boolean.getBoolean("rain.mixin.jfr.dispatch");
+    private static final int SAMPLE_MASK =
+            Integer.highestOneBit(Math.max(1, Integer.getInteger("rain.mixin.jfr.dispatch.sampleInterval", 1024)) * 2 - 1) - 1;
+
+    private static final MethodHandle ENTER;
+    private static final MethodHandle EXIT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ENTER = lookup.findVirtual(Site.class, "enter", MethodType.methodType(CallbackDispatchEvent.class));
+            EXIT = lookup.findVirtual(Site.class, "exit", MethodType.methodType(void.class, CallbackDispatchEvent.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** One linked call site. */
+    static final class Site {
+        final String targetClass;
+        final String mixinClass;
+        final String handler;
+        final String injection;
+        private int tick;
+
+        Site(String targetClass, String mixinClass, String handler, String injection) {
+            this.targetClass = targetClass;
+            this.mixinClass = mixinClass;
+            this.handler = handler;
+            this.injection = injection;
+        }
+
+        /** Returns the started event for a sampled call while recording, null otherwise. {@code tick} races benignly. */
+        CallbackDispatchEvent enter() {
+            if ((tick++ & SAMPLE_MASK) != 0) return null;
+            CallbackDispatchEvent event = new CallbackDispatchEvent();
+            if (!event.isEnabled()) return null;
+            event.begin();
+            return event;
+        }
+
+        void exit(CallbackDispatchEvent event) {
+            if (event == null) return;
+            event.end();
+            if (!event.shouldCommit()) return;
+            event.targetClass = targetClass;
+            event.mixinClass = mixinClass;
+            event.handler = handler;
+            event.injection = injection;
+            event.sampleInterval = SAMPLE_MASK + 1;
+            event.commit();
+        }
+    }
+
+    private MixinDispatchEvents() {
+    }
+
+    /** Wraps a linked handler so that sampled calls are recorded, or returns it unchanged when disabled. */
+    static MethodHandle instrument(String targetClassName, String mixinClassName, String handlerName,
+            String injection, MethodHandle handler) {
+        if (!ENABLED) return handler;
+        Site site = new Site(targetClassName, mixinClassName, handlerName, injection);
+        return MixinMetrics.around(handler, ENTER.bindTo(site), EXIT.bindTo(site));
+    }
+}
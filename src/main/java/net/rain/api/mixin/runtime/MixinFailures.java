@@ -0,0 +1,186 @@
+package net.rain.api.mixin.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Central handler for exceptions thrown by mixin handlers. The catch blocks generated by
+ * {@code MixinTransformer} call {@link #report}, which keeps per-injection counters and logs the
+ * first failure with its stack trace and after that at most one aggregated line per
+ * {@code rain.mixin.failureLogIntervalMs} (10 s by default).
+ * <p>
+ * After {@code rain.mixin.breakerThreshold} consecutive failures (50 by default, 0 turns the
+ * breaker off) the injection is switched off through {@link MixinSwitches}, so a broken mixin
+ * degrades to its no-op fallback instead of failing on every call. A handler that could not be
+ * linked at all is switched off on its first failure. Re-enabling the injection through
+ * {@code MixinManager} closes the breaker again. Handlers linked through {@code MixinBootstrap}
+ * end a streak through {@link #trackSuccess}; merged handler copies call {@link #succeeded}.
+ */
+public final class MixinFailures {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MixinFailures.class);
+
+    static final int BREAKER_THRESHOLD = Integer.getInteger("rain.mixin.breakerThreshold", 50);
+    private static final long LOG_INTERVAL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("rain.mixin.failureLogIntervalMs", 10_000L));
+
+    private static final Map<String, Site> SITES = new ConcurrentHashMap<>();
+    /** Set by the first failure, so that {@link #succeeded} costs one read until something fails. */
+    private static volatile boolean failed;
+    private static final MethodHandle SUCCEEDED;
+
+    static {
+        try {
+            SUCCEEDED = MethodHandles.lookup().findVirtual(Site.class, "succeeded", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Failure state of one injection. */
+    static final class Site {
+        final String mixinClassName;
+        final String handlerName;
+        long total;
+        int consecutive;
+        int suppressed;
+        long lastLogged;
+        boolean open;
+
+        Site(String mixinClassName, String handlerName) {
+            this.mixinClassName = mixinClassName;
+            this.handlerName = handlerName;
+        }
+
+        /**
+         * Called after every successful handler call. Only writes when a failure streak is running;
+         * the unsynchronized write may race with {@link #report}, which at worst delays the breaker.
+         */
+        void succeeded() {
+            if (consecutive != 0) consecutive = 0;
+        }
+
+        synchronized void reset() {
+            total = 0;
+            consecutive = 0;
+            suppressed = 0;
+            open = false;
+        }
+    }
+
+    private MixinFailures() {
+    }
+
+    public static void report(String mixinClassName, String handlerName, Throwable failure) {
+        Site site = site(mixinClassName, handlerName);
+        if (!failed) failed = true;
+        boolean trip;
+        boolean logFirst = false;
+        int suppressed = 0;
+        synchronized (site) {
+            site.total++;
+            site.consecutive++;
+            long now = System.nanoTime();
+            if (site.total == 1) {
+                logFirst = true;
+                site.lastLogged = now;
+            } else if (now - site.lastLogged >= LOG_INTERVAL_NANOS) {
+                suppressed = site.suppressed + 1;
+                site.suppressed = 0;
+                site.lastLogged = now;
+            } else {
+                site.suppressed++;
+            }
+            trip = !site.open && (failure instanceof MixinBootstrap.UnlinkedHandlerException
+                    || BREAKER_THRESHOLD > 0 && site.consecutive >= BREAKER_THRESHOLD);
+            if (trip) site.open = true;
+        }
+
+        if (logFirst) {
+            LOGGER.error("Mixin handler {}.{} failed", mixinClassName, handlerName, failure);
+        } else if (suppressed > 0) {
+            LOGGER.error("Mixin handler {}.{} failed {} more time(s) in the last {} ms ({} in total), last: {}",
+                    mixinClassName, handlerName, suppressed, TimeUnit.NANOSECONDS.toMillis(LOG_INTERVAL_NANOS),
+                    site.total, failure.toString());
+        }
+        if (trip) {
+            LOGGER.error("Disabling mixin handler {}.{} after {} consecutive failure(s)",
+                    mixinClassName, handlerName, site.consecutive);
+            MixinSwitches.setInjectionEnabled(mixinClassName, handlerName, false);
+        }
+    }
+
+    /**
+     * Wraps a linked handler so that a successful call ends the current failure streak. Returns
+     * the handler unchanged when the breaker is turned off.
+     */
+    static MethodHandle trackSuccess(String mixinClassName, String handlerName, MethodHandle handler) {
+        if (BREAKER_THRESHOLD <= 0) return handler;
+        MethodHandle succeeded = SUCCEEDED.bindTo(site(mixinClassName, handlerName));
+        Class<?> returnType = handler.type().returnType();
+        if (returnType == void.class) {
+            return MethodHandles.filterReturnValue(handler, succeeded);
+        }
+        MethodHandle passThrough = MethodHandles.foldArguments(
+                MethodHandles.identity(returnType), MethodHandles.dropArguments(succeeded, 0, returnType));
+        return MethodHandles.filterReturnValue(handler, passThrough);
+    }
+
+    /**
+     * Ends the current failure streak of an injection. Called after every normal return of a
+     * merged handler copy, which is not linked through {@code MixinBootstrap} and so cannot use
+     * {@link #trackSuccess}.
+     */
+    public static void succeeded(String mixinClassName, String handlerName) {
+        if (!failed || BREAKER_THRESHOLD <= 0) return;
+        Site site = SITES.get(mixinClassName + "." + handlerName);
+        if (site != null) site.succeeded();
+    }
+
+    /**
+     * Clears the counters of an injection and closes its breaker. Sites are reset in place because
+     * linked handlers hold on to them.
+     */
+    public static void reset(String mixinClassName, String handlerName) {
+        Site site = SITES.get(mixinClassName + "." + handlerName);
+        if (site != null) site.reset();
+    }
+
+    public static void resetMixin(String mixinClassName) {
+        for (Site site : SITES.values()) {
+            if (site.mixinClassName.equals(mixinClassName)) site.reset();
+        }
+    }
+
+    public static void clear() {
+        for (Site site : SITES.values()) site.reset();
+    }
+
+    public static long getFailureCount(String mixinClassName, String handlerName) {
+        Site site = SITES.get(mixinClassName + "." + handlerName);
+        if (site == null) return 0;
+        synchronized (site) {
+            return site.total;
+        }
+    }
+
+    public static void printSummary() {
+        for (Site site : SITES.values()) {
+            synchronized (site) {
+                if (site.total == 0) continue;
+                LOGGER.info("  {}.{}: {} failure(s){}", site.mixinClassName, site.handlerName, site.total,
+                        site.open ? " (breaker open)" : "");
+            }
+        }
+    }
+
+    private static Site site(String mixinClassName, String handlerName) {
+        return SITES.computeIfAbsent(mixinClassName + "." + handlerName, k -> new Site(mixinClassName, handlerName));
+    }
+}
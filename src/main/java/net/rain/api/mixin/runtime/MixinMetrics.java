@@ -0,0 +1,209 @@
+package net.rain.api.mixin.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional per-injection invocation metrics, enabled with {@code -Drain.mixin.metrics=true}.
+ * <p>
+ * When enabled, {@link MixinBootstrap} wraps each linked handler so that every call bumps a
+ * {@link LongAdder} and one call in {@code rain.mixin.metrics.sampleInterval} (16 by default,
+ * rounded up to a power of two) is timed with {@link System#nanoTime()}; total time is
+ * extrapolated from the samples. When disabled nothing is wrapped, so the generated code is the
+ * same as without this class. Merged handlers are called directly and are not measured.
+ * <p>
+ * Results are published through {@link MixinMetricsMXBean} and, every
+ * {@code rain.mixin.metrics.summaryIntervalSec} seconds (60 by default, 0 turns it off), logged
+ * as a summary of the most expensive injections.
+ */
+public final class MixinMetrics implements MixinMetricsMXBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MixinMetrics.class);
+
+    static final boolean ENABLED = Boolean.getBoolean("rain.mixin.metrics");
+    private static final int SAMPLE_MASK =
+            Integer.highestOneBit(Math.max(1, Integer.getInteger("rain.mixin.metrics.sampleInterval", 16)) * 2 - 1) - 1;
+    private static final long SUMMARY_INTERVAL_SEC = Long.getLong("rain.mixin.metrics.summaryIntervalSec", 60L);
+    private static final int SUMMARY_SIZE = 10;
+
+    private static final Map<String, Site> SITES = new ConcurrentHashMap<>();
+    private static final MixinMetrics INSTANCE = new MixinMetrics();
+    private static final MethodHandle ENTER;
+    private static final MethodHandle EXIT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ENTER = lookup.findVirtual(Site.class, "enter", MethodType.methodType(long.class));
+            EXIT = lookup.findVirtual(Site.class, "exit", MethodType.methodType(void.class, long.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        if (ENABLED) start();
+    }
+
+    /** Counters of one injection in one target class. */
+    static final class Site {
+        final String key;
+        final LongAdder invocations = new LongAdder();
+        final LongAdder sampled = new LongAdder();
+        final LongAdder sampledNanos = new LongAdder();
+        private int tick;
+
+        Site(String key) {
+            this.key = key;
+        }
+
+        /** Returns the start time for a sampled call, 0 otherwise. {@code tick} races benignly. */
+        long enter() {
+            invocations.increment();
+            return (tick++ & SAMPLE_MASK) == 0 ? System.nanoTime() : 0L;
+        }
+
+        void exit(long start) {
+            if (start == 0L) return;
+            sampledNanos.add(System.nanoTime() - start);
+            sampled.increment();
+        }
+
+        long estimatedNanos() {
+            long samples = sampled.sum();
+            if (samples == 0) return 0L;
+            return (long) ((double) sampledNanos.sum() / samples * invocations.sum());
+        }
+
+        void reset() {
+            invocations.reset();
+            sampled.reset();
+            sampledNanos.reset();
+        }
+    }
+
+    private MixinMetrics() {
+    }
+
+    public static MixinMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Wraps a linked handler with invocation counting and sampled timing, or returns it unchanged
+     * when metrics are disabled. The handler's exceptions still propagate to the generated catch.
+     */
+    static MethodHandle instrument(String targetClassName, String mixinClassName, String handlerName,
+            String injection, MethodHandle handler) {
+        if (!ENABLED) return handler;
+        String key = mixinClassName + "." + handlerName + " -> " + targetClassName + "." + injection;
+        Site site = SITES.computeIfAbsent(key, Site::new);
+        return around(handler, ENTER.bindTo(site), EXIT.bindTo(site));
+    }
+
+    /**
+     * Calls {@code enter} ({@code ()S}) before the handler and {@code exit} ({@code (S)void}) with
+     * its result after it, also when the handler throws.
+     */
+    static MethodHandle around(MethodHandle handler, MethodHandle enter, MethodHandle exit) {
+        MethodType type = handler.type();
+        Class<?> returnType = type.returnType();
+        Class<?> state = enter.type().returnType();
+        List<Class<?>> params = type.parameterList();
+
+        // cleanup(Throwable, [R], S state, params...) calls exit and passes R through
+        MethodHandle cleanup;
+        if (returnType == void.class) {
+            cleanup = MethodHandles.dropArguments(exit, 1, params);
+            cleanup = MethodHandles.dropArguments(cleanup, 0, Throwable.class);
+        } else {
+            MethodHandle passThrough = MethodHandles.dropArguments(MethodHandles.identity(returnType), 1, state);
+            cleanup = MethodHandles.foldArguments(passThrough, 1, exit);
+            cleanup = MethodHandles.dropArguments(cleanup, 2, params);
+            cleanup = MethodHandles.dropArguments(cleanup, 0, Throwable.class);
+        }
+        MethodHandle timed = MethodHandles.tryFinally(MethodHandles.dropArguments(handler, 0, state), cleanup);
+        return MethodHandles.foldArguments(timed, enter);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return SAMPLE_MASK + 1;
+    }
+
+    @Override
+    public Map<String, Long> getInvocationCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Site site : sortedSites()) counts.put(site.key, site.invocations.sum());
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getEstimatedTimeNanos() {
+        Map<String, Long> times = new LinkedHashMap<>();
+        for (Site site : sortedSites()) times.put(site.key, site.estimatedNanos());
+        return times;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        List<Site> sites = sortedSites();
+        for (int i = 0; i < Math.min(SUMMARY_SIZE, sites.size()); i++) {
+            Site site = sites.get(i);
+            long calls = site.invocations.sum();
+            long nanos = site.estimatedNanos();
+            summary.append(String.format("%10.3f ms %12d calls %8.1f ns/call  %s%n",
+                    nanos / 1_000_000.0, calls, calls == 0 ? 0.0 : (double) nanos / calls, site.key));
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (Site site : SITES.values()) site.reset();
+    }
+
+    private static List<Site> sortedSites() {
+        List<Site> sites = new ArrayList<>(SITES.values());
+        sites.sort(Comparator.comparingLong(Site::estimatedNanos).reversed());
+        return sites;
+    }
+
+    private static void start() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                    new ObjectName("net.rain.api.mixin:type=MixinMetrics"));
+        } catch (Exception e) {
+            LOGGER.warn("Failed to register mixin metrics MBean", e);
+        }
+
+        if (SUMMARY_INTERVAL_SEC <= 0) return;
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Rain Mixin Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            String summary = INSTANCE.getSummary();
+            if (!summary.isEmpty()) LOGGER.info("Mixin handler time (sampled 1/{}):\n{}", SAMPLE_MASK + 1, summary);
+        }, SUMMARY_INTERVAL_SEC, SUMMARY_INTERVAL_SEC, TimeUnit.SECONDS);
+    }
+}
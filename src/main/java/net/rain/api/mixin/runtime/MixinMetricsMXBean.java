@@ -0,0 +1,22 @@
+package net.rain.api.mixin.runtime;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link MixinMetrics}, registered as {@code net.rain.api.mixin:type=MixinMetrics}.
+ * Keys have the form {@code <mixin>.<handler> -> <target class>.<method>@<point>}.
+ */
+public interface MixinMetricsMXBean {
+    boolean isEnabled();
+
+    int getSampleInterval();
+
+    Map<String, Long> getInvocationCounts();
+
+    /** Estimated total handler time per injection, extrapolated from the sampled calls. */
+    Map<String, Long> getEstimatedTimeNanos();
+
+    String getSummary();
+
+    void reset();
+}
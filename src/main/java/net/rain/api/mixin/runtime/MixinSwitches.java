@@ -0,0 +1,88 @@
+package net.rain.api.mixin.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runtime on/off state of mixins and of single injections. Every generated injection tests a
+ * {@code ()Z} invokedynamic guard linked to the {@link MutableCallSite} held here for its
+ * handler. While the state is stable the JIT folds the guard to a constant and drops the dead
+ * branch; flipping it retargets the call site, which deoptimizes the dependent compiled code
+ * without redefining any class.
+ * <p>
+ * An injection is identified by its mixin class name and handler method name.
+ */
+public final class MixinSwitches {
+    private static final MethodHandle ENABLED = MethodHandles.constant(boolean.class, true);
+    private static final MethodHandle DISABLED = MethodHandles.constant(boolean.class, false);
+
+    private static final Map<String, MutableCallSite> GUARDS = new ConcurrentHashMap<>();
+    private static final Set<String> DISABLED_MIXINS = ConcurrentHashMap.newKeySet();
+    private static final Set<String> DISABLED_INJECTIONS = ConcurrentHashMap.newKeySet();
+
+    private MixinSwitches() {
+    }
+
+    static MutableCallSite guard(String mixinClassName, String handlerName) {
+        return GUARDS.computeIfAbsent(key(mixinClassName, handlerName),
+                k -> new MutableCallSite(isEnabled(mixinClassName, handlerName) ? ENABLED : DISABLED));
+    }
+
+    public static boolean isEnabled(String mixinClassName, String handlerName) {
+        return !DISABLED_MIXINS.contains(mixinClassName)
+                && !DISABLED_INJECTIONS.contains(key(mixinClassName, handlerName));
+    }
+
+    public static synchronized void setMixinEnabled(String mixinClassName, boolean enabled) {
+        boolean changed = enabled ? DISABLED_MIXINS.remove(mixinClassName) : DISABLED_MIXINS.add(mixinClassName);
+        if (changed) refresh(mixinClassName + ".");
+    }
+
+    public static synchronized void setInjectionEnabled(String mixinClassName, String handlerName, boolean enabled) {
+        String key = key(mixinClassName, handlerName);
+        boolean changed = enabled ? DISABLED_INJECTIONS.remove(key) : DISABLED_INJECTIONS.add(key);
+        if (changed) refresh(key);
+    }
+
+    public static Set<String> getDisabledMixins() {
+        return new HashSet<>(DISABLED_MIXINS);
+    }
+
+    public static Set<String> getDisabledInjections() {
+        return new HashSet<>(DISABLED_INJECTIONS);
+    }
+
+    public static synchronized void clear() {
+        DISABLED_MIXINS.clear();
+        DISABLED_INJECTIONS.clear();
+        refresh("");
+    }
+
+    /** Retargets the guards whose key starts with {@code prefix} and publishes them to all threads. */
+    private static void refresh(String prefix) {
+        List<MutableCallSite> changed = new ArrayList<>();
+        for (Map.Entry<String, MutableCallSite> entry : GUARDS.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) continue;
+            String key = entry.getKey();
+            int split = key.lastIndexOf('.');
+            MethodHandle target = isEnabled(key.substring(0, split), key.substring(split + 1)) ? ENABLED : DISABLED;
+            MutableCallSite site = entry.getValue();
+            if (site.getTarget() != target) {
+                site.setTarget(target);
+                changed.add(site);
+            }
+        }
+        if (!changed.isEmpty()) MutableCallSite.syncAll(changed.toArray(new MutableCallSite[0]));
+    }
+
+    private static String key(String mixinClassName, String handlerName) {
+        return mixinClassName + "." + handlerName;
+    }
+}
@@ -0,0 +1,57 @@
+package net.rain.api.mixin.transformer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The mixins of one target class in application order (highest priority first, registration order
+ * among equals) with their {@link MixinPlan}s. Computed when a target is first transformed after
+ * its mixins were registered, and reused by every later transformation of it until the set of
+ * registered mixins changes.
+ */
+final class ApplicationPlan {
+    private static final Map<String, ApplicationPlan> PLANS = new ConcurrentHashMap<>();
+
+    private final List<Class<?>> registered;
+    final List<Class<?>> mixins;
+    /** In the order of {@link #mixins}; null for a mixin whose bytecode is not cached. */
+    final List<MixinPlan> plans;
+
+    private ApplicationPlan(List<Class<?>> registered) {
+        this.registered = List.copyOf(registered);
+        List<MixinPlan> sorted = new ArrayList<>();
+        List<Class<?>> unplanned = new ArrayList<>();
+        for (Class<?> mixinClass : registered) {
+            MixinPlan plan = MixinPlan.of(mixinClass);
+            if (plan != null) sorted.add(plan);
+            else unplanned.add(mixinClass);
+        }
+        sorted.sort(Comparator.comparingInt((MixinPlan plan) -> plan.priority).reversed());
+
+        List<Class<?>> order = new ArrayList<>();
+        List<MixinPlan> plans = new ArrayList<>();
+        for (MixinPlan plan : sorted) {
+            order.add(plan.mixinClass);
+            plans.add(plan);
+        }
+        for (Class<?> mixinClass : unplanned) {
+            order.add(mixinClass);
+            plans.add(null);
+        }
+        this.mixins = Collections.unmodifiableList(order);
+        this.plans = Collections.unmodifiableList(plans);
+    }
+
+    /** The plan for a target's currently registered mixins, given in registration order. */
+    static ApplicationPlan forTarget(String className, List<Class<?>> registered) {
+        ApplicationPlan plan = PLANS.get(className);
+        if (plan != null && plan.registered.equals(registered)) return plan;
+        plan = new ApplicationPlan(registered);
+        PLANS.put(className, plan);
+        return plan;
+    }
+}
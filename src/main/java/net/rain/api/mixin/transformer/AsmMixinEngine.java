@@ -0,0 +1,982 @@
+package net.rain.api.mixin.transformer;
+
+import net.rain.api.core.java.helper.MinecraftHelper;
+import net.rain.api.core.jfr.InjectionApplyEvent;
+import net.rain.api.mixin.IMixin;
+import net.rain.api.mixin.annotation.*;
+import net.rain.api.mixin.manager.MixinManager;
+import net.rain.api.mixin.manager.MixinRegistry;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Applies mixins directly to the modlauncher {@link ClassNode} with the ASM tree API, as an
+ * alternative to the Javassist round trip of {@link MixinTransformer}. Selected with
+ * {@code -Drain.mixin.engine=asm}.
+ * <p>
+ * Every handler call is a single invokedynamic linked by {@code MixinBootstrap.inject} or
+ * {@code MixinBootstrap.redirect}; the enable/disable guard, failure handling and metrics are
+ * composed into the call site, so no source is compiled and no helper methods are added. Only
+ * CallbackInfo setup and the cancellation check remain as bytecode templates. The target is left
+ * with stale frames; the caller recomputes them against {@link ClassMetadata}.
+ * <p>
+ * Supports @Inject, @Redirect, @ModifyArg, @ModifyVariable, @ModifyConstant, @Overwrite,
+ * @Accessor and @Invoker. Mixins using anything else, or merge mode, are reported by
+ * {@link #supports} and left to the Javassist engine.
+ */
+final class AsmMixinEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsmMixinEngine.class);
+
+    private static final String BOOTSTRAP_OWNER = "net/rain/api/mixin/runtime/MixinBootstrap";
+    private static final Handle INJECT_BOOTSTRAP = new Handle(H_INVOKESTATIC, BOOTSTRAP_OWNER, "inject",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+                    + "Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;I)Ljava/lang/invoke/CallSite;", false);
+    private static final Handle REDIRECT_BOOTSTRAP = new Handle(H_INVOKESTATIC, BOOTSTRAP_OWNER, "redirect",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+                    + "Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/invoke/MethodHandle;)"
+                    + "Ljava/lang/invoke/CallSite;", false);
+    private static final Handle HANDLER_BOOTSTRAP = new Handle(H_INVOKESTATIC, BOOTSTRAP_OWNER, "bootstrap",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+                    + "Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)Ljava/lang/invoke/CallSite;", false);
+    private static final Handle CALLBACK_INFO_BOOTSTRAP = new Handle(H_INVOKESTATIC, BOOTSTRAP_OWNER, "callbackInfo",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)"
+                    + "Lnet/rain/api/mixin/callback/CallbackInfo;", false);
+
+    private static final String CALLBACK_INFO = "net/rain/api/mixin/callback/CallbackInfo";
+    private static final String CALLBACK_INFO_IMPL = "net/rain/api/mixin/impl/CallbackInfoImpl";
+    private static final String IMMUTABLE_CALLBACK_INFO = "net/rain/api/mixin/impl/ImmutableCallbackInfo";
+    private static final String RETURNABLE_IMPL = "net/rain/api/mixin/impl/CallbackInfoReturnableImpl";
+
+    private final boolean sharedCallbackInfo;
+    private final Map<MethodNode, LabelNode> heads = new IdentityHashMap<>();
+
+    AsmMixinEngine(boolean sharedCallbackInfo) {
+        this.sharedCallbackInfo = sharedCallbackInfo;
+    }
+
+    /** Returns false if any of the mixins uses a feature only the Javassist engine implements. */
+    static boolean supports(List<Class<?>> mixins) {
+        for (Class<?> mixinClass : mixins) {
+            Object instance = MixinRegistry.getInstance(mixinClass.getName());
+            if (instance instanceof IMixin && ((IMixin) instance).shouldMerge()) return false;
+
+            ClassNode mixin = readMixin(mixinClass);
+            if (mixin == null) return false;
+            if (find(mixin.visibleAnnotations, mixin.invisibleAnnotations, Implements.class) != null) return false;
+            if (find(mixin.visibleAnnotations, mixin.invisibleAnnotations, Pseudo.class) != null) return false;
+            for (FieldNode field : mixin.fields) {
+                if (find(field.visibleAnnotations, field.invisibleAnnotations, Unique.class) != null
+                        || find(field.visibleAnnotations, field.invisibleAnnotations, Mutable.class) != null
+                        || find(field.visibleAnnotations, field.invisibleAnnotations, Final.class) != null) {
+                    return false;
+                }
+            }
+            for (MethodNode method : mixin.methods) {
+                if (find(method.visibleAnnotations, method.invisibleAnnotations, Unique.class) != null
+                        || find(method.visibleAnnotations, method.invisibleAnnotations, ModifyArgs.class) != null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    void apply(ClassNode target, List<Class<?>> mixins) {
+        for (Class<?> mixinClass : mixins) {
+            ClassNode mixin = readMixin(mixinClass);
+            if (mixin == null) {
+                throw new IllegalStateException("No cached bytecode for mixin: " + mixinClass.getName());
+            }
+            LOGGER.info("Applying mixin: {} -> {} (asm)", mixinClass.getName(), target.name.replace('/', '.'));
+            for (MethodNode handler : mixin.methods) {
+                applyMethodAnnotations(target, mixinClass.getName(), handler);
+            }
+        }
+    }
+
+    private void applyMethodAnnotations(ClassNode target, String mixinName, MethodNode handler) {
+        if (annotation(handler, Shadow.class) != null) return;
+        if (handler.visibleAnnotations == null && handler.invisibleAnnotations == null) return;
+        InjectionApplyEvent event = new InjectionApplyEvent();
+        event.begin();
+        String outcome = "failed";
+        try {
+            applyAnnotations(target, mixinName, handler);
+            outcome = "applied";
+        } finally {
+            if (event.shouldCommit()) {
+                event.targetClass = target.name.replace('/', '.');
+                event.mixinClass = mixinName;
+                event.handler = handler.name;
+                event.injectionType = annotationNames(handler);
+                event.engine = "asm";
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    private void applyAnnotations(ClassNode target, String mixinName, MethodNode handler) {
+        Values values;
+        if ((values = annotation(handler, Inject.class)) != null) applyInject(target, mixinName, handler, values);
+        if ((values = annotation(handler, Overwrite.class)) != null) applyOverwrite(target, mixinName, handler, values);
+        if ((values = annotation(handler, Redirect.class)) != null) applyRedirect(target, mixinName, handler, values);
+        if ((values = annotation(handler, ModifyConstant.class)) != null) applyModifyConstant(target, mixinName, handler, values);
+        if ((values = annotation(handler, ModifyArg.class)) != null) applyModifyArg(target, mixinName, handler, values);
+        if ((values = annotation(handler, ModifyVariable.class)) != null) applyModifyVariable(target, mixinName, handler, values);
+        if ((values = annotation(handler, Accessor.class)) != null) applyAccessor(target, handler, values);
+        if ((values = annotation(handler, Invoker.class)) != null) applyInvoker(target, handler, values);
+    }
+
+    // ==================== @Inject ====================
+
+    private void applyInject(ClassNode target, String mixinName, MethodNode handler, Values inject) {
+        MethodNode method = findMethod(target, inject.string("method"), inject.string("descriptor"));
+        if (method == null) {
+            if (inject.bool("require")) {
+                LOGGER.warn("Inject target not found: {}.{}{}", target.name, inject.string("method"), inject.string("descriptor"));
+            }
+            return;
+        }
+
+        Values at = inject.nested("at");
+        String point = at.string("value");
+        boolean cancellable = inject.bool("cancellable");
+        String injection = method.name + "@" + point;
+        Type returnType = Type.getReturnType(method.desc);
+        switch (point) {
+            case "HEAD":
+                method.instructions.insertBefore(headAnchor(method),
+                        callbackBlock(target, method, mixinName, handler, cancellable, injection));
+                break;
+            case "RETURN":
+                for (AbstractInsnNode insn : returns(method)) {
+                    method.instructions.insertBefore(insn, returnType.getSort() == Type.VOID
+                            ? callbackBlock(target, method, mixinName, handler, false, injection)
+                            : returnCallbackBlock(target, method, mixinName, handler, cancellable, injection));
+                }
+                break;
+            case "TAIL":
+                for (AbstractInsnNode insn : returns(method)) {
+                    method.instructions.insertBefore(insn,
+                            callbackBlock(target, method, mixinName, handler, cancellable, injection));
+                }
+                break;
+            case "INVOKE":
+            case "FIELD":
+                boolean before = at.bool("before");
+                for (AbstractInsnNode insn : matchAt(method, point, at.string("target"), at.integer("ordinal"))) {
+                    InsnList block = callbackBlock(target, method, mixinName, handler, cancellable, injection);
+                    if (before) method.instructions.insertBefore(insn, block);
+                    else method.instructions.insert(insn, block);
+                }
+                break;
+            default:
+                LOGGER.warn("Unsupported injection point: {}", point);
+                return;
+        }
+        LOGGER.info("Injected: {} into {}.{}", handler.name, target.name, method.name);
+    }
+
+    /**
+     * HEAD / TAIL / INVOKE / FIELD template. Stack-neutral, so it can be placed anywhere, including
+     * in front of a return with its value on the stack.
+     */
+    private InsnList callbackBlock(ClassNode target, MethodNode method, String mixinName, MethodNode handler,
+            boolean cancellable, String injection) {
+        Type[] handlerParams = Type.getArgumentTypes(handler.desc);
+        InsnList code = new InsnList();
+        int ci = -1;
+        if (cancellable) {
+            ci = newLocal(method, Type.getObjectType(CALLBACK_INFO_IMPL));
+            code.add(new TypeInsnNode(NEW, CALLBACK_INFO_IMPL));
+            code.add(new InsnNode(DUP));
+            code.add(new LdcInsnNode(handler.name));
+            code.add(new MethodInsnNode(INVOKESPECIAL, CALLBACK_INFO_IMPL, "<init>", "(Ljava/lang/String;)V", false));
+            code.add(new VarInsnNode(ASTORE, ci));
+        }
+
+        StringBuilder site = new StringBuilder("(");
+        if (handlerParams.length > 0) site.append(loadSelf(code, target, method, handlerParams));
+        site.append(loadParameters(code, method, forwardedCount(method, handlerParams)));
+        if (handlerParams.length >= 2) {
+            if (cancellable) {
+                code.add(new VarInsnNode(ALOAD, ci));
+                site.append('L').append(CALLBACK_INFO_IMPL).append(';');
+            } else {
+                site.append(loadSharedCallbackInfo(code, target, handler.name));
+            }
+        }
+        site.append(")V");
+        code.add(injectCall(mixinName, handler, site.toString(), injection, -1));
+
+        if (cancellable) {
+            LabelNode proceed = new LabelNode();
+            code.add(new VarInsnNode(ALOAD, ci));
+            code.add(new MethodInsnNode(INVOKEVIRTUAL, CALLBACK_INFO_IMPL, "isCancelled", "()Z", false));
+            code.add(new JumpInsnNode(IFEQ, proceed));
+            code.add(defaultReturn(Type.getReturnType(method.desc)));
+            code.add(proceed);
+        }
+        return code;
+    }
+
+    /** RETURN template for methods with a value; expects the value on the stack and leaves it there. */
+    private InsnList returnCallbackBlock(ClassNode target, MethodNode method, String mixinName, MethodNode handler,
+            boolean cancellable, String injection) {
+        Type returnType = Type.getReturnType(method.desc);
+        Type[] handlerParams = Type.getArgumentTypes(handler.desc);
+        String specialized = specializedReturnable(returnType);
+        String impl = specialized != null ? "net/rain/api/mixin/impl/" + specialized + "CallbackInfoReturnableImpl"
+                : RETURNABLE_IMPL;
+
+        InsnList code = new InsnList();
+        int value = newLocal(method, returnType);
+        int cir = newLocal(method, Type.getObjectType(impl));
+        code.add(new VarInsnNode(returnType.getOpcode(ISTORE), value));
+        code.add(new TypeInsnNode(NEW, impl));
+        code.add(new InsnNode(DUP));
+        code.add(new LdcInsnNode(handler.name));
+        code.add(new VarInsnNode(returnType.getOpcode(ILOAD), value));
+        if (specialized != null) {
+            code.add(new MethodInsnNode(INVOKESPECIAL, impl, "<init>", "(Ljava/lang/String;" + returnType.getDescriptor() + ")V", false));
+        } else {
+            box(code, returnType);
+            code.add(new MethodInsnNode(INVOKESPECIAL, impl, "<init>", "(Ljava/lang/String;Ljava/lang/Object;)V", false));
+        }
+        code.add(new VarInsnNode(ASTORE, cir));
+
+        StringBuilder site = new StringBuilder("(");
+        if (handlerParams.length > 0) site.append(loadSelf(code, target, method, handlerParams));
+        site.append(loadParameters(code, method, forwardedCount(method, handlerParams)));
+        if (handlerParams.length >= 2) {
+            code.add(new VarInsnNode(ALOAD, cir));
+            site.append('L').append(impl).append(';');
+        }
+        site.append(")V");
+        code.add(injectCall(mixinName, handler, site.toString(), injection, -1));
+
+        if (cancellable) {
+            LabelNode proceed = new LabelNode();
+            code.add(new VarInsnNode(ALOAD, cir));
+            code.add(new MethodInsnNode(INVOKEVIRTUAL, impl, "isCancelled", "()Z", false));
+            code.add(new JumpInsnNode(IFEQ, proceed));
+            code.add(new VarInsnNode(ALOAD, cir));
+            if (specialized != null) {
+                code.add(new MethodInsnNode(INVOKEVIRTUAL, impl, "getReturnValue" + returnType.getDescriptor(),
+                        "()" + returnType.getDescriptor(), false));
+            } else {
+                code.add(new MethodInsnNode(INVOKEVIRTUAL, impl, "getReturnValue", "()Ljava/lang/Object;", false));
+                unbox(code, returnType);
+            }
+            code.add(new VarInsnNode(returnType.getOpcode(ISTORE), value));
+            code.add(proceed);
+        }
+        code.add(new VarInsnNode(returnType.getOpcode(ILOAD), value));
+        return code;
+    }
+
+    /**
+     * Pushes the CallbackInfo of a non-cancellable injection: a constant-dynamic
+     * {@code ImmutableCallbackInfo} where the class file version allows it, otherwise a new
+     * instance. Returns the descriptor of what was pushed.
+     */
+    private String loadSharedCallbackInfo(InsnList code, ClassNode target, String id) {
+        if (sharedCallbackInfo && (target.version & 0xFFFF) >= V11) {
+            code.add(new LdcInsnNode(new ConstantDynamic(id, "L" + CALLBACK_INFO + ";", CALLBACK_INFO_BOOTSTRAP)));
+            return "L" + CALLBACK_INFO + ";";
+        }
+        String type = sharedCallbackInfo ? IMMUTABLE_CALLBACK_INFO : CALLBACK_INFO_IMPL;
+        code.add(new TypeInsnNode(NEW, type));
+        code.add(new InsnNode(DUP));
+        code.add(new LdcInsnNode(id));
+        code.add(new MethodInsnNode(INVOKESPECIAL, type, "<init>", "(Ljava/lang/String;)V", false));
+        return "L" + type + ";";
+    }
+
+    // ==================== @Overwrite ====================
+
+    private void applyOverwrite(ClassNode target, String mixinName, MethodNode handler, Values overwrite) {
+        MethodNode method = findMethod(target, overwrite.string("method"), overwrite.string("descriptor"));
+        if (method == null) {
+            LOGGER.warn("Overwrite target not found: {}.{}", target.name, overwrite.string("method"));
+            return;
+        }
+
+        Type[] handlerParams = Type.getArgumentTypes(handler.desc);
+        Type[] params = Type.getArgumentTypes(method.desc);
+        Type returnType = Type.getReturnType(method.desc);
+        if (handlerParams.length != params.length + 1) {
+            LOGGER.warn("Overwrite handler {}.{}{} does not match {}.{}{}", mixinName, handler.name, handler.desc,
+                    target.name, method.name, method.desc);
+            return;
+        }
+
+        InsnList code = new InsnList();
+        if ((method.access & ACC_STATIC) != 0) {
+            code.add(new InsnNode(ACONST_NULL));
+        } else {
+            code.add(new VarInsnNode(ALOAD, 0));
+            checkcast(code, Type.getObjectType(target.name), handlerParams[0]);
+        }
+        loadParameters(code, method, params.length);
+        // Like the Javassist engine, an overwrite is not guarded: there is no original body to fall back to
+        code.add(new InvokeDynamicInsnNode(handler.name, handler.desc, HANDLER_BOOTSTRAP,
+                mixinName, handler.name, method.name + "@OVERWRITE"));
+        checkcast(code, Type.getReturnType(handler.desc), returnType);
+        code.add(new InsnNode(returnType.getOpcode(IRETURN)));
+
+        method.instructions = code;
+        method.tryCatchBlocks = new ArrayList<>();
+        method.localVariables = null;
+        method.visibleLocalVariableAnnotations = null;
+        method.invisibleLocalVariableAnnotations = null;
+        LOGGER.info("Overwrote method: {}.{}", target.name, method.name);
+    }
+
+    // ==================== @Redirect ====================
+
+    private void applyRedirect(ClassNode target, String mixinName, MethodNode handler, Values redirect) {
+        MethodNode method = findMethod(target, redirect.string("method"), redirect.string("descriptor"));
+        if (method == null) {
+            LOGGER.warn("Redirect target not found: {}.{}", target.name, redirect.string("method"));
+            return;
+        }
+
+        Values at = redirect.nested("at");
+        String targetCall = at.string("target");
+        String injection = method.name + "@REDIRECT:" + targetCall;
+        for (AbstractInsnNode insn : matchAt(method, "INVOKE", targetCall, at.integer("ordinal"))) {
+            MethodInsnNode call = (MethodInsnNode) insn;
+            Handle original = originalHandle(target, call);
+            if (original == null) {
+                LOGGER.warn("Cannot redirect {}.{} in {}.{}: not a redirectable call", call.owner, call.name,
+                        target.name, method.name);
+                continue;
+            }
+            String siteDesc = call.getOpcode() == INVOKESTATIC
+                    ? call.desc
+                    : "(" + Type.getObjectType(call.owner).getDescriptor() + call.desc.substring(1);
+            method.instructions.set(call, new InvokeDynamicInsnNode(handler.name, siteDesc, REDIRECT_BOOTSTRAP,
+                    mixinName, handler.desc, injection, original));
+        }
+        LOGGER.info("Redirected call: {} in {}.{}", targetCall, target.name, method.name);
+    }
+
+    private Handle originalHandle(ClassNode target, MethodInsnNode call) {
+        if (call.owner.startsWith("[")) return null;
+        switch (call.getOpcode()) {
+            case INVOKESTATIC:
+                return new Handle(H_INVOKESTATIC, call.owner, call.name, call.desc, call.itf);
+            case INVOKEVIRTUAL:
+                return new Handle(H_INVOKEVIRTUAL, call.owner, call.name, call.desc, false);
+            case INVOKEINTERFACE:
+                return new Handle(H_INVOKEINTERFACE, call.owner, call.name, call.desc, true);
+            case INVOKESPECIAL:
+                // Private methods of the target itself; super calls cannot become an indy
+                return call.owner.equals(target.name)
+                        ? new Handle(H_INVOKESPECIAL, call.owner, call.name, call.desc, call.itf)
+                        : null;
+            default:
+                return null;
+        }
+    }
+
+    // ==================== @ModifyConstant ====================
+
+    private void applyModifyConstant(ClassNode target, String mixinName, MethodNode handler, Values modify) {
+        MethodNode method = findMethod(target, modify.string("method"), modify.string("descriptor"));
+        if (method == null) {
+            LOGGER.warn("ModifyConstant target not found: {}.{}", target.name, modify.string("method"));
+            return;
+        }
+
+        Type type = Type.getReturnType(handler.desc);
+        String siteDesc = "(Ljava/lang/Object;" + type.getDescriptor() + ")" + type.getDescriptor();
+        String injection = method.name + "@MODIFY_CONSTANT";
+        boolean isStatic = (method.access & ACC_STATIC) != 0;
+
+        for (Values constant : modify.nestedArray("constant")) {
+            Object expected = expectedConstant(constant, type);
+            if (expected == null) continue;
+            int ordinal = constant.integer("ordinal");
+            int occurrences = 0;
+            for (AbstractInsnNode insn : method.instructions.toArray()) {
+                if (!expected.equals(constantValue(insn))) continue;
+                if (ordinal == -1 || occurrences == ordinal) {
+                    method.instructions.insertBefore(insn, isStatic ? new InsnNode(ACONST_NULL) : new VarInsnNode(ALOAD, 0));
+                    method.instructions.insert(insn, injectCall(mixinName, handler, siteDesc, injection, 1));
+                }
+                occurrences++;
+            }
+        }
+        LOGGER.info("ModifyConstant applied: {}.{}", target.name, method.name);
+    }
+
+    private static Object expectedConstant(Values constant, Type type) {
+        switch (type.getSort()) {
+            case Type.INT: return constant.integer("intValue");
+            case Type.FLOAT: return ((Number) constant.raw("floatValue")).floatValue();
+            case Type.DOUBLE: return ((Number) constant.raw("doubleValue")).doubleValue();
+            case Type.LONG: return ((Number) constant.raw("longValue")).longValue();
+            default: return "Ljava/lang/String;".equals(type.getDescriptor()) ? constant.string("stringValue") : null;
+        }
+    }
+
+    private static Object constantValue(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        if (opcode >= ICONST_M1 && opcode <= ICONST_5) return opcode - ICONST_0;
+        if (opcode == LCONST_0 || opcode == LCONST_1) return (long) (opcode - LCONST_0);
+        if (opcode >= FCONST_0 && opcode <= FCONST_2) return (float) (opcode - FCONST_0);
+        if (opcode == DCONST_0 || opcode == DCONST_1) return (double) (opcode - DCONST_0);
+        if (opcode == BIPUSH || opcode == SIPUSH) return ((IntInsnNode) insn).operand;
+        if (opcode == LDC) return ((LdcInsnNode) insn).cst;
+        return null;
+    }
+
+    // ==================== @ModifyArg ====================
+
+    private void applyModifyArg(ClassNode target, String mixinName, MethodNode handler, Values modify) {
+        MethodNode method = findMethod(target, modify.string("method"), modify.string("descriptor"));
+        if (method == null) {
+            LOGGER.warn("ModifyArg target not found: {}.{}", target.name, modify.string("method"));
+            return;
+        }
+
+        Values at = modify.nested("at");
+        int index = modify.integer("index");
+        String injection = method.name + "@MODIFY_ARG:" + at.string("target");
+        for (AbstractInsnNode insn : matchAt(method, "INVOKE", at.string("target"), at.integer("ordinal"))) {
+            MethodInsnNode call = (MethodInsnNode) insn;
+            Type[] args = Type.getArgumentTypes(call.desc);
+            if (index < 0 || index >= args.length) {
+                LOGGER.warn("ModifyArg index {} out of range for {}.{}{}", index, call.owner, call.name, call.desc);
+                continue;
+            }
+            method.instructions.insertBefore(call, modifyArgBlock(method, mixinName, handler, call, args, index, injection));
+        }
+        LOGGER.info("ModifyArg applied: {}.{}", target.name, method.name);
+    }
+
+    /**
+     * Spills the call's arguments to locals, then reloads them with argument {@code index} passed
+     * through the handler. The receiver (or null for a static call) is the handler's self, as in the
+     * Javassist engine.
+     */
+    private InsnList modifyArgBlock(MethodNode method, String mixinName, MethodNode handler, MethodInsnNode call,
+            Type[] args, int index, String injection) {
+        InsnList code = new InsnList();
+        int[] slots = new int[args.length];
+        for (int i = 0; i < args.length; i++) slots[i] = newLocal(method, args[i]);
+        for (int i = args.length - 1; i >= 0; i--) code.add(new VarInsnNode(args[i].getOpcode(ISTORE), slots[i]));
+
+        boolean isStatic = call.getOpcode() == INVOKESTATIC;
+        int receiver = -1;
+        if (!isStatic) {
+            receiver = newLocal(method, Type.getObjectType(call.owner));
+            code.add(new InsnNode(DUP));
+            code.add(new VarInsnNode(ASTORE, receiver));
+        }
+
+        for (int i = 0; i < args.length; i++) {
+            if (i == index) {
+                String self;
+                if (isStatic) {
+                    code.add(new InsnNode(ACONST_NULL));
+                    self = Type.getArgumentTypes(handler.desc)[0].getDescriptor();
+                } else {
+                    code.add(new VarInsnNode(ALOAD, receiver));
+                    self = Type.getObjectType(call.owner).getDescriptor();
+                }
+                code.add(new VarInsnNode(args[i].getOpcode(ILOAD), slots[i]));
+                String siteDesc = "(" + self + args[i].getDescriptor() + ")" + args[i].getDescriptor();
+                code.add(injectCall(mixinName, handler, siteDesc, injection, 1));
+            } else {
+                code.add(new VarInsnNode(args[i].getOpcode(ILOAD), slots[i]));
+            }
+        }
+        return code;
+    }
+
+    // ==================== @ModifyVariable ====================
+
+    private void applyModifyVariable(ClassNode target, String mixinName, MethodNode handler, Values modify) {
+        MethodNode method = findMethod(target, modify.string("method"), modify.string("descriptor"));
+        if (method == null) {
+            LOGGER.warn("ModifyVariable target not found: {}.{}", target.name, modify.string("method"));
+            return;
+        }
+
+        boolean isStatic = (method.access & ACC_STATIC) != 0;
+        Type[] params = Type.getArgumentTypes(method.desc);
+        Values at = modify.nested("at");
+        String point = at == null ? "HEAD" : at.string("value");
+        String name = modify.string("name");
+        boolean named = name != null && !name.isEmpty();
+        int slot = -1;
+        Type type = Type.getReturnType(handler.desc);
+        if (!named) {
+            // index is a 1-based parameter number, like $n in the Javassist engine
+            int index = modify.integer("index");
+            if (index < 1 || index > params.length) {
+                LOGGER.warn("ModifyVariable index {} out of range for {}.{}", index, target.name, method.name);
+                return;
+            }
+            slot = isStatic ? 0 : 1;
+            for (int i = 0; i < index - 1; i++) slot += params[i].getSize();
+            type = params[index - 1];
+        }
+
+        String injection = method.name + "@MODIFY_VARIABLE";
+        String self = isStatic ? Type.getArgumentTypes(handler.desc)[0].getDescriptor() : "L" + target.name + ";";
+        String siteDesc = "(" + self + type.getDescriptor() + ")" + type.getDescriptor();
+
+        List<AbstractInsnNode> anchors;
+        switch (point) {
+            case "RETURN":
+            case "TAIL":
+                anchors = returns(method);
+                break;
+            case "INVOKE":
+                anchors = matchAt(method, "INVOKE", at.string("target"), at.integer("ordinal"));
+                break;
+            default:
+                anchors = Collections.singletonList(null);
+        }
+        int applied = 0;
+        for (AbstractInsnNode anchor : anchors) {
+            int anchorSlot = slot;
+            if (named) {
+                // a local name can cover several slots and types over the method; only the entry live at
+                // this anchor is safe to load, and at HEAD only the parameters have been assigned
+                LocalVariableNode local = anchor == null
+                        ? parameterLocal(method, name, type, isStatic, params)
+                        : scopedLocal(method, name, type, anchor);
+                if (local == null) {
+                    LOGGER.warn("ModifyVariable local '{}' {} not live at {} in {}.{}, skipping",
+                            name, type.getDescriptor(), point, target.name, method.name);
+                    continue;
+                }
+                anchorSlot = local.index;
+            }
+            InsnList code = new InsnList();
+            code.add(isStatic ? new InsnNode(ACONST_NULL) : new VarInsnNode(ALOAD, 0));
+            code.add(new VarInsnNode(type.getOpcode(ILOAD), anchorSlot));
+            code.add(injectCall(mixinName, handler, siteDesc, injection, 1));
+            code.add(new VarInsnNode(type.getOpcode(ISTORE), anchorSlot));
+            if (anchor == null) method.instructions.insertBefore(headAnchor(method), code);
+            else if ("INVOKE".equals(point)) method.instructions.insert(anchor, code);
+            else method.instructions.insertBefore(anchor, code);
+            applied++;
+        }
+        if (applied > 0) {
+            LOGGER.info("ModifyVariable applied: {}.{} (var: {}, sites: {})", target.name, method.name,
+                    named ? name : String.valueOf(slot), applied);
+        }
+    }
+
+    private static LocalVariableNode parameterLocal(MethodNode method, String name, Type type, boolean isStatic,
+                                                    Type[] params) {
+        if (method.localVariables == null) return null;
+        int limit = isStatic ? 0 : 1;
+        for (Type param : params) limit += param.getSize();
+        for (LocalVariableNode candidate : method.localVariables) {
+            if (candidate.name.equals(name) && candidate.index < limit && candidate.desc.equals(type.getDescriptor())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static LocalVariableNode scopedLocal(MethodNode method, String name, Type type, AbstractInsnNode anchor) {
+        if (method.localVariables == null) return null;
+        int position = method.instructions.indexOf(anchor);
+        for (LocalVariableNode candidate : method.localVariables) {
+            if (!candidate.name.equals(name) || !candidate.desc.equals(type.getDescriptor())) continue;
+            int start = method.instructions.indexOf(candidate.start);
+            int end = method.instructions.indexOf(candidate.end);
+            if (start <= position && position < end) return candidate;
+        }
+        return null;
+    }
+
+    // ==================== @Accessor / @Invoker ====================
+
+    private void applyAccessor(ClassNode target, MethodNode handler, Values accessor) {
+        String methodName = handler.name;
+        String fieldName = accessor.string("value");
+        if (fieldName.isEmpty()) {
+            if (!methodName.startsWith("get") && !methodName.startsWith("set")) {
+                LOGGER.warn("Cannot infer accessor field name: {}", methodName);
+                return;
+            }
+            fieldName = Character.toLowerCase(methodName.charAt(3)) + methodName.substring(4);
+        }
+        boolean getter = methodName.startsWith("get");
+        if (!getter && !methodName.startsWith("set")) return;
+
+        FieldNode field = null;
+        for (FieldNode candidate : target.fields) {
+            if (candidate.name.equals(fieldName)) field = candidate;
+        }
+        String fieldDesc = field != null ? field.desc
+                : getter ? Type.getReturnType(handler.desc).getDescriptor() : Type.getArgumentTypes(handler.desc)[0].getDescriptor();
+        boolean isStatic = field != null && (field.access & ACC_STATIC) != 0;
+        Type fieldType = Type.getType(fieldDesc);
+        String desc = getter ? "()" + fieldDesc : "(" + fieldDesc + ")V";
+        if (hasMethod(target, methodName, desc)) {
+            LOGGER.warn("Accessor already exists: {}.{}", target.name, methodName);
+            return;
+        }
+
+        MethodNode method = new MethodNode(ACC_PUBLIC | (isStatic ? ACC_STATIC : 0), methodName, desc, null, null);
+        InsnList code = method.instructions;
+        if (!isStatic) code.add(new VarInsnNode(ALOAD, 0));
+        if (getter) {
+            code.add(new FieldInsnNode(isStatic ? GETSTATIC : GETFIELD, target.name, fieldName, fieldDesc));
+            code.add(new InsnNode(fieldType.getOpcode(IRETURN)));
+        } else {
+            code.add(new VarInsnNode(fieldType.getOpcode(ILOAD), isStatic ? 0 : 1));
+            code.add(new FieldInsnNode(isStatic ? PUTSTATIC : PUTFIELD, target.name, fieldName, fieldDesc));
+            code.add(new InsnNode(RETURN));
+        }
+        target.methods.add(method);
+        LOGGER.info("Added accessor: {}.{}", target.name, methodName);
+    }
+
+    private void applyInvoker(ClassNode target, MethodNode handler, Values invoker) {
+        String targetName = invoker.string("value").isEmpty() ? handler.name : invoker.string("value");
+        if (hasMethod(target, handler.name, handler.desc)) {
+            LOGGER.warn("Invoker already exists: {}.{}", target.name, handler.name);
+            return;
+        }
+
+        String argsDesc = handler.desc.substring(0, handler.desc.indexOf(')') + 1);
+        MethodNode invoked = null;
+        for (MethodNode candidate : target.methods) {
+            if (candidate.name.equals(targetName) && candidate.desc.startsWith(argsDesc)) invoked = candidate;
+        }
+        boolean isStatic = invoked != null && (invoked.access & ACC_STATIC) != 0;
+        String invokedDesc = invoked != null ? invoked.desc : handler.desc;
+
+        MethodNode method = new MethodNode(ACC_PUBLIC, handler.name, handler.desc, null, null);
+        InsnList code = method.instructions;
+        if (!isStatic) code.add(new VarInsnNode(ALOAD, 0));
+        int slot = 1;
+        for (Type arg : Type.getArgumentTypes(handler.desc)) {
+            code.add(new VarInsnNode(arg.getOpcode(ILOAD), slot));
+            slot += arg.getSize();
+        }
+        int opcode = isStatic ? INVOKESTATIC
+                : (target.access & ACC_INTERFACE) != 0 ? INVOKEINTERFACE
+                : invoked != null && (invoked.access & ACC_PRIVATE) != 0 && (target.version & 0xFFFF) < V11 ? INVOKESPECIAL
+                : INVOKEVIRTUAL;
+        code.add(new MethodInsnNode(opcode, target.name, targetName, invokedDesc, (target.access & ACC_INTERFACE) != 0));
+        code.add(new InsnNode(Type.getReturnType(handler.desc).getOpcode(IRETURN)));
+        target.methods.add(method);
+        LOGGER.info("Added invoker: {}.{} -> {}", target.name, handler.name, targetName);
+    }
+
+    // ==================== Templates ====================
+
+    private static InvokeDynamicInsnNode injectCall(String mixinName, MethodNode handler, String siteDesc,
+            String injection, int passThrough) {
+        return new InvokeDynamicInsnNode(handler.name, siteDesc, INJECT_BOOTSTRAP,
+                mixinName, handler.desc, injection, passThrough);
+    }
+
+    /** Pushes the handler's self argument and returns its descriptor. */
+    private static String loadSelf(InsnList code, ClassNode target, MethodNode method, Type[] handlerParams) {
+        if ((method.access & ACC_STATIC) != 0) {
+            code.add(new InsnNode(ACONST_NULL));
+            return handlerParams[0].getDescriptor();
+        }
+        code.add(new VarInsnNode(ALOAD, 0));
+        return "L" + target.name + ";";
+    }
+
+    /** Loads the first {@code count} parameters of the method and returns their descriptors. */
+    private static String loadParameters(InsnList code, MethodNode method, int count) {
+        StringBuilder desc = new StringBuilder();
+        int slot = (method.access & ACC_STATIC) != 0 ? 0 : 1;
+        Type[] params = Type.getArgumentTypes(method.desc);
+        for (int i = 0; i < count; i++) {
+            code.add(new VarInsnNode(params[i].getOpcode(ILOAD), slot));
+            desc.append(params[i].getDescriptor());
+            slot += params[i].getSize();
+        }
+        return desc.toString();
+    }
+
+    private static int forwardedCount(MethodNode method, Type[] handlerParams) {
+        return Math.min(Math.max(0, handlerParams.length - 2), Type.getArgumentTypes(method.desc).length);
+    }
+
+    private static void checkcast(InsnList code, Type from, Type to) {
+        if (to.getSort() >= Type.ARRAY && !to.equals(from) && !"java/lang/Object".equals(to.getInternalName())) {
+            code.add(new TypeInsnNode(CHECKCAST, to.getInternalName()));
+        }
+    }
+
+    private static InsnList defaultReturn(Type type) {
+        InsnList code = new InsnList();
+        switch (type.getSort()) {
+            case Type.VOID: break;
+            case Type.LONG: code.add(new InsnNode(LCONST_0)); break;
+            case Type.FLOAT: code.add(new InsnNode(FCONST_0)); break;
+            case Type.DOUBLE: code.add(new InsnNode(DCONST_0)); break;
+            case Type.ARRAY:
+            case Type.OBJECT: code.add(new InsnNode(ACONST_NULL)); break;
+            default: code.add(new InsnNode(ICONST_0));
+        }
+        code.add(new InsnNode(type.getOpcode(IRETURN)));
+        return code;
+    }
+
+    private static String specializedReturnable(Type type) {
+        switch (type.getSort()) {
+            case Type.INT: return "Int";
+            case Type.LONG: return "Long";
+            case Type.FLOAT: return "Float";
+            case Type.DOUBLE: return "Double";
+            case Type.BOOLEAN: return "Boolean";
+            default: return null;
+        }
+    }
+
+    private static void box(InsnList code, Type type) {
+        if (type.getSort() >= Type.ARRAY) return;
+        String wrapper = wrapper(type);
+        code.add(new MethodInsnNode(INVOKESTATIC, wrapper, "valueOf", "(" + type.getDescriptor() + ")L" + wrapper + ";", false));
+    }
+
+    private static void unbox(InsnList code, Type type) {
+        if (type.getSort() >= Type.ARRAY) {
+            code.add(new TypeInsnNode(CHECKCAST, type.getInternalName()));
+            return;
+        }
+        String wrapper = wrapper(type);
+        code.add(new TypeInsnNode(CHECKCAST, wrapper));
+        code.add(new MethodInsnNode(INVOKEVIRTUAL, wrapper, type.getClassName() + "Value", "()" + type.getDescriptor(), false));
+    }
+
+    private static String wrapper(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN: return "java/lang/Boolean";
+            case Type.CHAR: return "java/lang/Character";
+            case Type.BYTE: return "java/lang/Byte";
+            case Type.SHORT: return "java/lang/Short";
+            case Type.INT: return "java/lang/Integer";
+            case Type.FLOAT: return "java/lang/Float";
+            case Type.LONG: return "java/lang/Long";
+            default: return "java/lang/Double";
+        }
+    }
+
+    // ==================== Lookup ====================
+
+    private static int newLocal(MethodNode method, Type type) {
+        int slot = method.maxLocals;
+        method.maxLocals += type.getSize();
+        return slot;
+    }
+
+    /**
+     * HEAD code is inserted in front of this label, so injections run in application order like
+     * the fused dispatchers of the Javassist engine.
+     */
+    private LabelNode headAnchor(MethodNode method) {
+        return heads.computeIfAbsent(method, m -> {
+            LabelNode anchor = new LabelNode();
+            m.instructions.insert(anchor);
+            return anchor;
+        });
+    }
+
+    private static List<AbstractInsnNode> returns(MethodNode method) {
+        List<AbstractInsnNode> returns = new ArrayList<>();
+        for (AbstractInsnNode insn : method.instructions.toArray()) {
+            if (insn.getOpcode() >= IRETURN && insn.getOpcode() <= RETURN) returns.add(insn);
+        }
+        return returns;
+    }
+
+    /** Method calls or field accesses named like {@code target} ({@code name} or {@code Owner.name}). */
+    private static List<AbstractInsnNode> matchAt(MethodNode method, String point, String target, int ordinal) {
+        List<AbstractInsnNode> matches = new ArrayList<>();
+        if (target == null || target.isEmpty()) {
+            LOGGER.warn("{} injection missing target", point);
+            return matches;
+        }
+        int count = 0;
+        for (AbstractInsnNode insn : method.instructions.toArray()) {
+            String owner;
+            String name;
+            if ("FIELD".equals(point) && insn instanceof FieldInsnNode) {
+                owner = ((FieldInsnNode) insn).owner;
+                name = ((FieldInsnNode) insn).name;
+            } else if ("INVOKE".equals(point) && insn instanceof MethodInsnNode && !"<init>".equals(((MethodInsnNode) insn).name)) {
+                owner = ((MethodInsnNode) insn).owner;
+                name = ((MethodInsnNode) insn).name;
+            } else {
+                continue;
+            }
+            if (!name.equals(target) && !(owner.replace('/', '.') + "." + name).equals(target)) continue;
+            if (ordinal == -1 || count == ordinal) matches.add(insn);
+            count++;
+        }
+        return matches;
+    }
+
+    private static MethodNode findMethod(ClassNode target, String methodName, String descriptor) {
+        String className = target.name.replace('/', '.');
+        String srgName = MinecraftHelper.findSrgMethodName(className, methodName);
+        List<String> candidates = new ArrayList<>();
+        if (srgName != null && !srgName.equals(methodName)) candidates.add(srgName);
+        candidates.add(methodName);
+
+        for (String name : candidates) {
+            for (MethodNode method : target.methods) {
+                if (!method.name.equals(name) || method.name.startsWith("<")) continue;
+                if (descriptor == null || descriptor.isEmpty() || method.desc.equals(descriptor)) return method;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasMethod(ClassNode target, String name, String desc) {
+        for (MethodNode method : target.methods) {
+            if (method.name.equals(name) && method.desc.equals(desc)) return true;
+        }
+        return false;
+    }
+
+    private static ClassNode readMixin(Class<?> mixinClass) {
+        MixinManager.MixinMetadata metadata = MixinManager.getMetadata(mixinClass.getName());
+        if (metadata == null) return null;
+        ClassNode node = new ClassNode();
+        new ClassReader(metadata.bytecode).accept(node, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        return node;
+    }
+
+    // ==================== Annotation values ====================
+
+    private static Values annotation(MethodNode method, Class<? extends Annotation> type) {
+        AnnotationNode node = find(method.visibleAnnotations, method.invisibleAnnotations, type);
+        return node == null ? null : new Values(type, node, null);
+    }
+
+    /** The simple names of a method's annotations, e.g. {@code Inject}. */
+    private static String annotationNames(MethodNode method) {
+        StringJoiner names = new StringJoiner(",");
+        for (List<AnnotationNode> list : new List[]{method.visibleAnnotations, method.invisibleAnnotations}) {
+            if (list == null) continue;
+            for (AnnotationNode node : list) {
+                names.add(node.desc.substring(node.desc.lastIndexOf('/') + 1, node.desc.length() - 1));
+            }
+        }
+        return names.toString();
+    }
+
+    private static AnnotationNode find(List<AnnotationNode> visible, List<AnnotationNode> invisible,
+            Class<? extends Annotation> type) {
+        String desc = Type.getDescriptor(type);
+        for (List<AnnotationNode> list : new List[]{visible, invisible}) {
+            if (list == null) continue;
+            for (AnnotationNode node : list) {
+                if (node.desc.equals(desc)) return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Values of an annotation read from bytecode. Elements absent from the class file fall back to
+     * the defaults declared on the annotation type; nested defaults arrive as annotation instances.
+     */
+    private static final class Values {
+        private final Class<?> type;
+        private final AnnotationNode node;
+        private final Annotation instance;
+
+        Values(Class<?> type, AnnotationNode node, Annotation instance) {
+            this.type = type;
+            this.node = node;
+            this.instance = instance;
+        }
+
+        Object raw(String name) {
+            if (node != null && node.values != null) {
+                for (int i = 0; i < node.values.size(); i += 2) {
+                    if (name.equals(node.values.get(i))) return node.values.get(i + 1);
+                }
+            }
+            try {
+                Method element = type.getMethod(name);
+                return instance != null ? element.invoke(instance) : element.getDefaultValue();
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+
+        String string(String name) {
+            Object value = raw(name);
+            return value == null ? "" : (String) value;
+        }
+
+        int integer(String name) {
+            Object value = raw(name);
+            return value == null ? 0 : ((Number) value).intValue();
+        }
+
+        boolean bool(String name) {
+            Object value = raw(name);
+            return value != null && (Boolean) value;
+        }
+
+        Values nested(String name) {
+            Object value = raw(name);
+            Class<?> nestedType = elementType(name);
+            if (value instanceof AnnotationNode) return new Values(nestedType, (AnnotationNode) value, null);
+            if (value instanceof Annotation) return new Values(nestedType, null, (Annotation) value);
+            return null;
+        }
+
+        List<Values> nestedArray(String name) {
+            Object value = raw(name);
+            Class<?> nestedType = elementType(name);
+            List<Values> result = new ArrayList<>();
+            if (value instanceof List) {
+                for (Object element : (List<?>) value) result.add(new Values(nestedType, (AnnotationNode) element, null));
+            } else if (value instanceof Annotation[]) {
+                for (Annotation element : (Annotation[]) value) result.add(new Values(nestedType, null, element));
+            }
+            return result;
+        }
+
+        private Class<?> elementType(String name) {
+            try {
+                Class<?> returnType = type.getMethod(name).getReturnType();
+                return returnType.isArray() ? returnType.getComponentType() : returnType;
+            } catch (NoSuchMethodException e) {
+                return Object.class;
+            }
+        }
+    }
+}
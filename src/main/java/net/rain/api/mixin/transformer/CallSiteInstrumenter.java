@@ -0,0 +1,402 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.CannotCompileException;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtMember;
+import javassist.CtMethod;
+import javassist.CtNewMethod;
+import javassist.Modifier;
+import javassist.NotFoundException;
+import javassist.bytecode.AccessFlag;
+import javassist.expr.ExprEditor;
+import javassist.expr.FieldAccess;
+import javassist.expr.MethodCall;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Collects the call-site and field-access rewrites of one transformation (INVOKE and FIELD
+ * injections, @Redirect, @ModifyArg, @ModifyArgs, INVOKE @ModifyVariable) and applies each target
+ * method's rewrites in a single {@link ExprEditor} pass, instead of one pass per handler.
+ * <p>
+ * Ordinals count the instructions of the original body. When several handlers match the same
+ * instruction they nest in registration (priority) order: the first handler's code is outermost,
+ * and each {@code $proceed} in it runs the next handler's code with the arguments it passes.
+ * The inner layers are outlined into synthetic {@code $cs$} methods of the target, so every
+ * layer is compiled once however many {@code $proceed} calls the one around it makes.
+ */
+final class CallSiteInstrumenter {
+    /** Returns the replacement statement for a matched call, in {@link MethodCall#replace} syntax. */
+    interface CallRewrite {
+        String code(MethodCall call) throws Exception;
+    }
+
+    /** Returns the replacement statement for a matched field access, in {@link FieldAccess#replace} syntax. */
+    interface FieldRewrite {
+        String code(FieldAccess access) throws Exception;
+    }
+
+    private static final class Site<R> {
+        final String target;
+        final int ordinal;
+        final R rewrite;
+        int count;
+
+        Site(String target, int ordinal, R rewrite) {
+            this.target = target;
+            this.ordinal = ordinal;
+            this.rewrite = rewrite;
+        }
+
+        /** Counts a matching instruction; true if it is the one (or one of those) to rewrite. */
+        boolean select() {
+            return ordinal == -1 || count++ == ordinal;
+        }
+    }
+
+    private static final class MethodSites {
+        final List<Site<CallRewrite>> calls = new ArrayList<>();
+        final List<Site<FieldRewrite>> fields = new ArrayList<>();
+    }
+
+    private final Map<CtMethod, MethodSites> methods = new LinkedHashMap<>();
+
+    /**
+     * Rewrites calls in {@code method} to a method named {@code target}, or {@code Owner.name};
+     * {@code ordinal} selects one of them, -1 all.
+     */
+    void onCall(CtMethod method, String target, int ordinal, CallRewrite rewrite) {
+        methods.computeIfAbsent(method, m -> new MethodSites()).calls.add(new Site<>(target, ordinal, rewrite));
+    }
+
+    /** Rewrites reads and writes in {@code method} of fields named {@code target}. */
+    void onField(CtMethod method, String target, int ordinal, FieldRewrite rewrite) {
+        methods.computeIfAbsent(method, m -> new MethodSites()).fields.add(new Site<>(target, ordinal, rewrite));
+    }
+
+    /**
+     * Applies the pending rewrites of one method. Called before the method's body is edited
+     * some other way, so the rewrites land on the body they were registered against.
+     */
+    void apply(CtMethod method) throws CannotCompileException {
+        MethodSites sites = methods.remove(method);
+        if (sites != null) instrument(method, sites);
+    }
+
+    void applyAll() throws CannotCompileException {
+        for (Map.Entry<CtMethod, MethodSites> entry : methods.entrySet()) instrument(entry.getKey(), entry.getValue());
+        methods.clear();
+    }
+
+    private static void instrument(CtMethod method, MethodSites sites) throws CannotCompileException {
+        method.instrument(new ExprEditor() {
+            @Override
+            public void edit(MethodCall m) throws CannotCompileException {
+                if (sites.calls.isEmpty()) return;
+                String sig = m.getClassName() + "." + m.getMethodName();
+                List<String> codes = new ArrayList<>(1);
+                for (Site<CallRewrite> site : sites.calls) {
+                    if (!sig.equals(site.target) && !m.getMethodName().equals(site.target)) continue;
+                    if (!site.select()) continue;
+                    try {
+                        codes.add(site.rewrite.code(m));
+                    } catch (CannotCompileException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new CannotCompileException(e);
+                    }
+                }
+                if (!codes.isEmpty()) m.replace(compose(codes, new CallLayers(method, m)));
+            }
+
+            @Override
+            public void edit(FieldAccess f) throws CannotCompileException {
+                if (sites.fields.isEmpty()) return;
+                List<String> codes = new ArrayList<>(1);
+                for (Site<FieldRewrite> site : sites.fields) {
+                    if (!f.getFieldName().equals(site.target) || !site.select()) continue;
+                    try {
+                        codes.add(site.rewrite.code(f));
+                    } catch (CannotCompileException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new CannotCompileException(e);
+                    }
+                }
+                if (!codes.isEmpty()) f.replace(compose(codes, new FieldLayers(method, f)));
+            }
+        });
+    }
+
+    // ==================== Nesting ====================
+
+    /**
+     * Outlines the layers of one instruction. Each layer after the first becomes a synthetic
+     * method of the enclosing class shaped like the instruction (the receiver, if any, then its
+     * operands), whose body is that layer applied to the instruction itself; every
+     * {@code $proceed} of the layer before calls it instead, once per evaluation, with the
+     * operands that layer passes. The first layer stays inline, where it can still see the
+     * enclosing method's locals, and the innermost one proceeds to the original instruction.
+     */
+    private static String compose(List<String> codes, Layers layers) throws CannotCompileException {
+        String next = null;
+        for (int i = codes.size() - 1; i > 0; i--) next = layers.outline(proceedTo(codes.get(i), next, layers));
+        return proceedTo(codes.get(0), next, layers);
+    }
+
+    /**
+     * Replaces every {@code $proceed(...)} of {@code code} with a call to the helper {@code next}.
+     * Javassist accepts {@code $_ = $proceed(...)} for a void instruction but not a void call,
+     * so there the assignment is dropped.
+     */
+    private static String proceedTo(String code, String next, Layers layers) throws CannotCompileException {
+        if (next == null) return code;
+        boolean isVoid = layers.isVoid();
+        boolean hasReceiver = layers.hasReceiver();
+        StringBuilder result = new StringBuilder(code.length() + 32);
+        int from = 0;
+        while (true) {
+            int call = indexOfCode(code, "$proceed(", from);
+            if (call < 0) break;
+            int args = call + "$proceed(".length();
+            boolean noArgs = code.substring(args, matchingParen(code, args - 1)).isBlank();
+            result.append(code, from, isVoid ? statementStart(code, call) : call).append(next).append('(');
+            if (hasReceiver) result.append(noArgs ? "$0" : "$0, ");
+            from = args;
+        }
+        return result.append(code, from, code.length()).toString();
+    }
+
+    /** Where the helpers of one instruction go, and what they look like. */
+    private abstract static class Layers {
+        final CtClass declaring;
+        final boolean isStatic;
+
+        Layers(CtMethod method) {
+            this.declaring = method.getDeclaringClass();
+            this.isStatic = Modifier.isStatic(method.getModifiers());
+        }
+
+        /** Whether the instruction has a receiver, passed to every helper ahead of the operands. */
+        abstract boolean hasReceiver() throws CannotCompileException;
+
+        abstract boolean isVoid() throws CannotCompileException;
+
+        /** A method named {@code name} that performs the instruction on its parameters. */
+        abstract CtMethod helper(int modifiers, String name) throws Exception;
+
+        /** Applies {@code code} to the copy of the instruction in {@code helper}'s body. */
+        abstract void replace(CtMethod helper, String code) throws CannotCompileException;
+
+        /** Adds a helper running {@code code} on its parameters; returns its name. */
+        String outline(String code) throws CannotCompileException {
+            try {
+                String name = helperName(declaring);
+                // Instance helpers keep this, which merged and outlined handlers are called on
+                CtMethod helper = helper(Modifier.PRIVATE | AccessFlag.SYNTHETIC | (isStatic ? Modifier.STATIC : 0), name);
+                declaring.addMethod(helper);
+                replace(helper, code);
+                return name;
+            } catch (CannotCompileException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CannotCompileException(e);
+            }
+        }
+
+        /**
+         * The type the receiver is passed as. Protected members of another package are only
+         * accessible on the enclosing class, which the original receiver was verified to be.
+         */
+        CtClass receiverType(CtClass owner, CtMember member) {
+            boolean otherPackage = !Objects.equals(member.getDeclaringClass().getPackageName(), declaring.getPackageName());
+            return Modifier.isProtected(member.getModifiers()) && otherPackage ? declaring : owner;
+        }
+    }
+
+    private static final class CallLayers extends Layers {
+        private final MethodCall call;
+
+        CallLayers(CtMethod method, MethodCall call) {
+            super(method);
+            this.call = call;
+        }
+
+        @Override
+        boolean hasReceiver() throws CannotCompileException {
+            try {
+                return !call.isSuper() && !Modifier.isStatic(call.getMethod().getModifiers());
+            } catch (NotFoundException e) {
+                throw new CannotCompileException(e);
+            }
+        }
+
+        @Override
+        boolean isVoid() throws CannotCompileException {
+            try {
+                return call.getMethod().getReturnType() == CtClass.voidType;
+            } catch (NotFoundException e) {
+                throw new CannotCompileException(e);
+            }
+        }
+
+        @Override
+        CtMethod helper(int modifiers, String name) throws Exception {
+            CtMethod callee = call.getMethod();
+            CtClass[] operands = callee.getParameterTypes();
+            List<CtClass> params = new ArrayList<>(operands.length + 1);
+            String target;
+            if (call.isSuper()) {
+                target = "super";
+            } else if (Modifier.isStatic(callee.getModifiers())) {
+                target = call.getClassName();
+            } else {
+                params.add(receiverType(declaring.getClassPool().get(call.getClassName()), callee));
+                target = "$1";
+            }
+            int first = params.size() + 1;
+            params.addAll(Arrays.asList(operands));
+
+            StringBuilder body = new StringBuilder("{ ");
+            if (callee.getReturnType() != CtClass.voidType) body.append("return ");
+            body.append(target).append('.').append(call.getMethodName()).append('(');
+            for (int i = 0; i < operands.length; i++) {
+                if (i > 0) body.append(", ");
+                body.append('$').append(first + i);
+            }
+            body.append("); }");
+            return CtNewMethod.make(modifiers, callee.getReturnType(), name, params.toArray(new CtClass[0]), null,
+                    body.toString(), declaring);
+        }
+
+        @Override
+        void replace(CtMethod helper, String code) throws CannotCompileException {
+            String name = call.getMethodName();
+            helper.instrument(new ExprEditor() {
+                @Override
+                public void edit(MethodCall m) throws CannotCompileException {
+                    if (m.getMethodName().equals(name)) m.replace(code);
+                }
+            });
+        }
+    }
+
+    private static final class FieldLayers extends Layers {
+        private final FieldAccess access;
+
+        FieldLayers(CtMethod method, FieldAccess access) {
+            super(method);
+            this.access = access;
+        }
+
+        @Override
+        boolean hasReceiver() {
+            return !access.isStatic();
+        }
+
+        @Override
+        boolean isVoid() {
+            return access.isWriter();
+        }
+
+        @Override
+        CtMethod helper(int modifiers, String name) throws Exception {
+            CtField field = access.getField();
+            List<CtClass> params = new ArrayList<>(2);
+            String target = access.getClassName();
+            if (!access.isStatic()) {
+                params.add(receiverType(declaring.getClassPool().get(access.getClassName()), field));
+                target = "$1";
+            }
+            String reference = target + "." + access.getFieldName();
+            String body;
+            CtClass returnType;
+            if (access.isReader()) {
+                body = "{ return " + reference + "; }";
+                returnType = field.getType();
+            } else {
+                params.add(field.getType());
+                body = "{ " + reference + " = $" + params.size() + "; }";
+                returnType = CtClass.voidType;
+            }
+            return CtNewMethod.make(modifiers, returnType, name, params.toArray(new CtClass[0]), null, body, declaring);
+        }
+
+        @Override
+        void replace(CtMethod helper, String code) throws CannotCompileException {
+            String name = access.getFieldName();
+            helper.instrument(new ExprEditor() {
+                @Override
+                public void edit(FieldAccess f) throws CannotCompileException {
+                    if (f.getFieldName().equals(name)) f.replace(code);
+                }
+            });
+        }
+    }
+
+    /** Where the statement assigning {@code $_} from the call at {@code call} starts, if it does. */
+    private static int statementStart(String code, int call) {
+        int i = call - 1;
+        while (i >= 0 && Character.isWhitespace(code.charAt(i))) i--;
+        if (i < 0 || code.charAt(i) != '=') return call;
+        int j = i - 1;
+        while (j >= 0 && Character.isWhitespace(code.charAt(j))) j--;
+        return j >= 1 && code.charAt(j) == '_' && code.charAt(j - 1) == '$' ? j - 1 : call;
+    }
+
+    private static String helperName(CtClass declaring) {
+        for (int i = 0; ; i++) {
+            String name = "$cs$" + i;
+            try {
+                declaring.getDeclaredMethod(name);
+            } catch (NotFoundException e) {
+                return name;
+            }
+        }
+    }
+
+    /** Like {@link String#indexOf(String, int)}, skipping string and character literals. */
+    private static int indexOfCode(String code, String token, int from) {
+        for (int i = from; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = skipLiteral(code, i);
+            } else if (code.startsWith(token, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int matchingParen(String code, int open) {
+        int depth = 0;
+        for (int i = open; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = skipLiteral(code, i);
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unbalanced $proceed call in: " + code);
+    }
+
+    /** Returns the index of the literal's closing quote. */
+    private static int skipLiteral(String code, int open) {
+        char quote = code.charAt(open);
+        for (int i = open + 1; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '\\') i++;
+            else if (c == quote) return i;
+        }
+        return code.length() - 1;
+    }
+}
@@ -0,0 +1,350 @@
+package net.rain.api.mixin.transformer;
+
+import net.rain.api.core.HashHelper;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Class headers (name, superclass, interfaces, access) of the classes transformations refer to,
+ * read without loading or parsing the classes themselves. Every class modlauncher hands to
+ * {@link MixinTransformer} is recorded as it is loaded; other classes are read from the game and
+ * system class loaders on first lookup, parsing only the constant pool.
+ * <p>
+ * The table is written to {@code <cacheDir>/class-metadata.bin} at shutdown and read back on the
+ * next launch, as long as the launch class path and the {@code mods} directory are unchanged.
+ * Classes loaded in the session replace what was read from disk. A stale entry can at worst list
+ * an interface an old mixin added, which does not affect verification: the verifier treats
+ * interface types like {@code java.lang.Object}.
+ * <p>
+ * Transformers get it read-only through {@code CoreModManager.getClassMetadata()}. All names are
+ * internal names ({@code java/lang/Object}).
+ */
+public final class ClassMetadata {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassMetadata.class);
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final int MAGIC = 0x52434D31; // "RCM1"
+    private static final Path FILE = TransformCache.cacheRoot().resolve("class-metadata.bin");
+
+    private static final ClassMetadata INSTANCE = new ClassMetadata();
+
+    private final Map<String, Header> headers = new ConcurrentHashMap<>();
+    private final List<ClassLoader> loaders = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded;
+    private volatile boolean dirty;
+
+    /** The header of one class. */
+    public static final class Header {
+        public final String name;
+        /** Null for {@code java/lang/Object}. */
+        public final String superName;
+        public final List<String> interfaces;
+        public final int access;
+
+        Header(String name, String superName, List<String> interfaces, int access) {
+            this.name = name;
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.access = access;
+        }
+
+        public boolean isInterface() {
+            return (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+    }
+
+    /** Thrown by {@link #newFrameWriter} writers for a type whose header cannot be found. */
+    static final class UnresolvedTypeException extends RuntimeException {
+        UnresolvedTypeException(String name) {
+            super(name, null, false, false);
+        }
+    }
+
+    /**
+     * Computes frames against this table instead of loading classes, the way modlauncher's own
+     * writer does. Throws {@link UnresolvedTypeException} if a type cannot be resolved.
+     */
+    private final class FrameWriter extends ClassWriter {
+        FrameWriter() {
+            super(COMPUTE_FRAMES);
+        }
+
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            String common = ClassMetadata.this.getCommonSuperClass(type1, type2);
+            if (common == null) throw new UnresolvedTypeException(get(type1) == null ? type1 : type2);
+            return common;
+        }
+    }
+
+    private ClassMetadata() {
+    }
+
+    public static ClassMetadata getInstance() {
+        return INSTANCE;
+    }
+
+    /** A {@code COMPUTE_FRAMES} class writer that resolves types through this table. */
+    ClassWriter newFrameWriter() {
+        return new FrameWriter();
+    }
+
+    /** The header of a class, or null if it cannot be found. */
+    public Header get(String name) {
+        if (!loaded) load();
+        Header header = headers.get(name);
+        if (header == null) {
+            header = read(name);
+            if (header != null) {
+                headers.put(name, header);
+                dirty = true;
+            }
+        }
+        return header;
+    }
+
+    /** True if {@code type} is {@code supertype} or extends or implements it; false if that cannot be told. */
+    public boolean isSubtype(String type, String supertype) {
+        return subtype(type, supertype) == Boolean.TRUE;
+    }
+
+    /**
+     * The most specific common superclass of two classes, with the semantics of ASM's
+     * {@code ClassWriter.getCommonSuperClass}; null if a class in either hierarchy is unknown.
+     */
+    public String getCommonSuperClass(String type1, String type2) {
+        Header header1 = get(type1);
+        Header header2 = get(type2);
+        if (header1 == null || header2 == null) return null;
+        Boolean is1 = subtype(type2, type1);
+        if (is1 == null) return null;
+        if (is1) return type1;
+        Boolean is2 = subtype(type1, type2);
+        if (is2 == null) return null;
+        if (is2) return type2;
+        if (header1.isInterface() || header2.isInterface()) return OBJECT;
+
+        String common = type1;
+        while (true) {
+            Header header = get(common);
+            if (header == null) return null;
+            if (header.superName == null) return OBJECT;
+            common = header.superName;
+            Boolean found = subtype(type2, common);
+            if (found == null) return null;
+            if (found) return common;
+        }
+    }
+
+    /** Null if a class in the hierarchy of {@code type} is unknown before the answer is found. */
+    private Boolean subtype(String type, String supertype) {
+        if (type.equals(supertype) || supertype.equals(OBJECT)) return true;
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        pending.add(type);
+        while (!pending.isEmpty()) {
+            Header header = get(pending.poll());
+            if (header == null) return null;
+            if (header.superName != null) {
+                if (header.superName.equals(supertype)) return true;
+                if (seen.add(header.superName)) pending.add(header.superName);
+            }
+            for (String iface : header.interfaces) {
+                if (iface.equals(supertype)) return true;
+                if (seen.add(iface)) pending.add(iface);
+            }
+        }
+        return false;
+    }
+
+    /** Records the header of a class as modlauncher is loading it. */
+    void record(ClassNode classNode) {
+        record(new Header(classNode.name, classNode.superName, intern(classNode.interfaces), classNode.access));
+    }
+
+    void record(ClassReader reader) {
+        record(new Header(reader.getClassName(), reader.getSuperName(), intern(List.of(reader.getInterfaces())),
+                reader.getAccess()));
+    }
+
+    private void record(Header header) {
+        if (!loaded) load();
+        Header previous = headers.put(header.name, header);
+        if (previous == null || !previous.interfaces.equals(header.interfaces) || previous.access != header.access
+                || !Objects.equals(previous.superName, header.superName)) {
+            dirty = true;
+        }
+    }
+
+    /** Searched before the loaders added earlier; the system class loader is always searched last. */
+    void addLoader(ClassLoader loader) {
+        if (!loaders.contains(loader)) loaders.add(0, loader);
+    }
+
+    private Header read(String name) {
+        String resource = name + ".class";
+        for (ClassLoader loader : loaders) {
+            Header header = read(loader.getResourceAsStream(resource), name);
+            if (header != null) return header;
+        }
+        return read(ClassLoader.getSystemResourceAsStream(resource), name);
+    }
+
+    /** Only the constant pool is parsed; members are never looked at. */
+    private static Header read(InputStream in, String name) {
+        if (in == null) return null;
+        try (InputStream stream = in) {
+            ClassReader reader = new ClassReader(stream);
+            return new Header(reader.getClassName(), reader.getSuperName(), intern(List.of(reader.getInterfaces())),
+                    reader.getAccess());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Cannot read the header of {}", name, e);
+            return null;
+        }
+    }
+
+    private static List<String> intern(List<String> interfaces) {
+        if (interfaces == null || interfaces.isEmpty()) return Collections.emptyList();
+        List<String> interned = new ArrayList<>(interfaces.size());
+        for (String iface : interfaces) interned.add(iface.intern());
+        return Collections.unmodifiableList(interned);
+    }
+
+    // ==================== Persistence ====================
+
+    private synchronized void load() {
+        if (loaded) return;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::save, "Rain Class Metadata"));
+        if (Files.isRegularFile(FILE)) {
+            long start = System.nanoTime();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(FILE)))) {
+                if (in.readInt() != MAGIC) throw new IOException("bad header");
+                if (!in.readUTF().equals(fingerprint())) {
+                    LOGGER.info("Class path changed, discarding class metadata {}", FILE);
+                } else {
+                    String[] names = new String[in.readInt()];
+                    for (int i = 0; i < names.length; i++) names[i] = in.readUTF().intern();
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String name = names[in.readInt()];
+                        int superIndex = in.readInt();
+                        int access = in.readInt();
+                        String[] interfaces = new String[in.readUnsignedShort()];
+                        for (int j = 0; j < interfaces.length; j++) interfaces[j] = names[in.readInt()];
+                        headers.putIfAbsent(name, new Header(name, superIndex < 0 ? null : names[superIndex],
+                                interfaces.length == 0 ? Collections.emptyList() : List.of(interfaces), access));
+                    }
+                    LOGGER.info("Read {} class headers in {} ms", headers.size(), (System.nanoTime() - start) / 1_000_000);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Discarding class metadata {}: {}", FILE, e.toString());
+            }
+        }
+        loaded = true;
+    }
+
+    /** Names are written once, in a table the headers refer to by index. */
+    private void save() {
+        if (!dirty) return;
+        Map<String, Header> snapshot = new TreeMap<>(headers);
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (Header header : snapshot.values()) {
+            index(header.name, indices, names);
+            if (header.superName != null) index(header.superName, indices, names);
+            for (String iface : header.interfaces) index(iface, indices, names);
+        }
+        try {
+            Files.createDirectories(FILE.getParent());
+            Path temp = Files.createTempFile(FILE.getParent(), "class-metadata", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(fingerprint());
+                out.writeInt(names.size());
+                for (String name : names) out.writeUTF(name);
+                out.writeInt(snapshot.size());
+                for (Header header : snapshot.values()) {
+                    out.writeInt(indices.get(header.name));
+                    out.writeInt(header.superName == null ? -1 : indices.get(header.superName));
+                    out.writeInt(header.access);
+                    out.writeShort(header.interfaces.size());
+                    for (String iface : header.interfaces) out.writeInt(indices.get(iface));
+                }
+            }
+            Files.move(temp, FILE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write class metadata {}", FILE, e);
+        }
+    }
+
+    private static void index(String name, Map<String, Integer> indices, List<String> names) {
+        if (indices.putIfAbsent(name, names.size()) == null) names.add(name);
+    }
+
+    /**
+     * SHA-256 over the launch class path and the name, size and modification time of every mod
+     * jar; computed once per launch.
+     */
+    static String fingerprint() {
+        return Fingerprint.VALUE;
+    }
+
+    private static final class Fingerprint {
+        static final String VALUE = computeFingerprint();
+    }
+
+    private static String computeFingerprint() {
+        StringBuilder input = new StringBuilder(System.getProperty("java.version", "")).append('\n')
+                .append(System.getProperty("java.class.path", "")).append('\n');
+        Path mods = Paths.get(".").toAbsolutePath().normalize().resolve("mods");
+        if (Files.isDirectory(mods)) {
+            try (Stream<Path> files = Files.list(mods)) {
+                files.sorted().forEach(file -> {
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        input.append(file.getFileName()).append(File.pathSeparatorChar).append(attributes.size())
+                                .append(File.pathSeparatorChar).append(attributes.lastModifiedTime().toMillis())
+                                .append('\n');
+                    } catch (IOException e) {
+                        input.append(file.getFileName()).append('\n');
+                    }
+                });
+            } catch (IOException e) {
+                LOGGER.debug("Cannot list {}", mods, e);
+            }
+        }
+        return HashHelper.sha256(input.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
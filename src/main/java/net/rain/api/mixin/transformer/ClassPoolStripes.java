@@ -0,0 +1,81 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.ClassPath;
+import javassist.NotFoundException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The {@link SharedClassPool}s Javassist transformations run on. CtClasses parse and cache their
+ * members lazily without synchronization, so a pool is only ever used by one transformation at a
+ * time: transformations {@link #borrow} one of at most {@code rain.mixin.classPools} pools (the
+ * number of processors by default) and wait when all of them are busy.
+ * <p>
+ * Every pool searches the same class path entries in the same order. The entries themselves
+ * ({@link MappedJarClassPath}, {@link IndexedClassPath}, loader class paths) are thread-safe and
+ * shared, so an additional pool costs only its own cache of parsed classes.
+ */
+final class ClassPoolStripes {
+    private static final int MAX_POOLS = Math.max(1,
+            Integer.getInteger("rain.mixin.classPools", Runtime.getRuntime().availableProcessors()));
+
+    /** Used to create the class path entries that Javassist only creates from a string. */
+    private final SharedClassPool first = new SharedClassPool();
+    private final List<SharedClassPool> pools = new ArrayList<>(List.of(first));
+    private final Deque<SharedClassPool> idle = new ArrayDeque<>(List.of(first));
+    private final List<ClassPath> appended = new ArrayList<>();
+    private final List<ClassPath> inserted = new ArrayList<>();
+
+    synchronized void appendSystemPath() {
+        ClassPath path = first.appendSystemPath();
+        appended.add(path);
+        for (SharedClassPool pool : pools) {
+            if (pool != first) pool.appendClassPath(path);
+        }
+    }
+
+    /** A directory or jar, as Javassist's own class path implementations read them. */
+    synchronized void appendClassPath(String pathName) throws NotFoundException {
+        ClassPath path = first.appendClassPath(pathName);
+        appended.add(path);
+        for (SharedClassPool pool : pools) {
+            if (pool != first) pool.appendClassPath(path);
+        }
+    }
+
+    synchronized void appendClassPath(ClassPath path) {
+        appended.add(path);
+        for (SharedClassPool pool : pools) pool.appendClassPath(path);
+    }
+
+    /** Searched before every entry inserted or appended earlier, in all pools including borrowed ones. */
+    synchronized void insertClassPath(ClassPath path) {
+        inserted.add(path);
+        for (SharedClassPool pool : pools) pool.insertClassPath(path);
+    }
+
+    /** Takes an idle pool, creating one if the limit allows, or waits for one to be released. */
+    synchronized SharedClassPool borrow() throws InterruptedException {
+        while (idle.isEmpty() && pools.size() >= MAX_POOLS) wait();
+        SharedClassPool pool = idle.poll();
+        if (pool != null) return pool;
+
+        pool = new SharedClassPool();
+        for (ClassPath path : appended) pool.appendClassPath(path);
+        for (ClassPath path : inserted) pool.insertClassPath(path);
+        pools.add(pool);
+        return pool;
+    }
+
+    synchronized void release(SharedClassPool pool) {
+        idle.push(pool);
+        notify();
+    }
+
+    synchronized int size() {
+        return pools.size();
+    }
+}
@@ -0,0 +1,292 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.ClassPath;
+import javassist.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Javassist class path over every jar below the {@code .minecraft} directory, backed by a
+ * persisted class name to jar index. Nothing happens until the first lookup: the index is then
+ * read from disk, and a jar is only mapped ({@link MappedJarClassPath}) when a class is actually
+ * read from it. Jars are re-indexed when their modification time or size changes, and the
+ * directory is only walked again when a lookup misses, at most once per session.
+ */
+final class IndexedClassPath implements ClassPath {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexedClassPath.class);
+
+    private static final int INDEX_VERSION = 1;
+
+    private final Path root;
+    private final Path indexFile;
+
+    private final Map<String, JarInfo> classes = new ConcurrentHashMap<>();
+    private final Map<Path, JarInfo> jars = new ConcurrentHashMap<>();
+    private final Map<Path, MappedJarClassPath> mappedJars = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private volatile boolean scanned;
+    private boolean dirty;
+
+    private static final class JarInfo {
+        final Path path;
+        final long modified;
+        final long size;
+        final List<String> classNames;
+        private volatile boolean verified;
+
+        JarInfo(Path path, long modified, long size, List<String> classNames) {
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+            this.classNames = classNames;
+        }
+
+        /** Checked against the file once per session; a jar does not change under a running game. */
+        boolean isCurrent() {
+            if (verified) return true;
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                verified = attributes.lastModifiedTime().toMillis() == modified && attributes.size() == size;
+            } catch (IOException e) {
+                verified = false;
+            }
+            return verified;
+        }
+    }
+
+    IndexedClassPath(Path root, Path indexFile) {
+        this.root = root;
+        this.indexFile = indexFile;
+    }
+
+    @Override
+    public URL find(String classname) {
+        JarInfo jar = locate(classname);
+        if (jar == null) return null;
+        try {
+            return new URL("jar:" + jar.path.toUri() + "!/" + entryName(classname));
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream openClassfile(String classname) throws NotFoundException {
+        JarInfo jar = locate(classname);
+        if (jar == null) return null;
+        try {
+            return map(jar.path).openClassfile(classname);
+        } catch (IOException e) {
+            throw new NotFoundException("Cannot read " + classname + " from " + jar.path, e);
+        }
+    }
+
+    private MappedJarClassPath map(Path path) throws IOException {
+        MappedJarClassPath mapped = mappedJars.get(path);
+        if (mapped != null) return mapped;
+        synchronized (mappedJars) {
+            mapped = mappedJars.get(path);
+            if (mapped == null) {
+                mapped = MappedJarClassPath.open(path);
+                mappedJars.put(path, mapped);
+            }
+            return mapped;
+        }
+    }
+
+    private static String entryName(String classname) {
+        return classname.replace('.', '/') + ".class";
+    }
+
+    private JarInfo locate(String classname) {
+        if (!loaded) load();
+        JarInfo jar = classes.get(classname);
+        if (jar != null && !jar.isCurrent()) {
+            synchronized (this) {
+                reindex(jar.path);
+                save();
+            }
+            jar = classes.get(classname);
+        }
+        if (jar == null && !scanned) {
+            synchronized (this) {
+                if (!scanned) {
+                    scan();
+                    save();
+                }
+            }
+            jar = classes.get(classname);
+        }
+        return jar;
+    }
+
+    private synchronized void load() {
+        if (loaded) return;
+        long start = System.nanoTime();
+        if (Files.isRegularFile(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                if (in.readInt() != INDEX_VERSION || !in.readUTF().equals(root.toString())) {
+                    throw new IOException("index was built for another version or directory");
+                }
+                int jarCount = in.readInt();
+                for (int i = 0; i < jarCount; i++) {
+                    Path path = Paths.get(in.readUTF());
+                    long modified = in.readLong();
+                    long size = in.readLong();
+                    int classCount = in.readInt();
+                    List<String> classNames = new ArrayList<>(classCount);
+                    for (int j = 0; j < classCount; j++) classNames.add(in.readUTF());
+                    register(new JarInfo(path, modified, size, classNames));
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Discarding class path index {}: {}", indexFile, e.toString());
+                classes.clear();
+                jars.clear();
+            }
+        }
+        if (jars.isEmpty()) {
+            scan();
+            save();
+        }
+        loaded = true;
+        LOGGER.info("Class path index ready: {} classes in {} jars under {} ({} ms)", classes.size(), jars.size(),
+                root, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Walks the directory, indexing new or changed jars and dropping deleted ones. */
+    private void scan() {
+        scanned = true;
+        Set<Path> found = new TreeSet<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(p -> p.toString().toLowerCase().endsWith(".jar"))
+                    .filter(Files::isRegularFile)
+                    .forEach(p -> found.add(p.toAbsolutePath()));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to scan {}", root, e);
+            return;
+        }
+
+        for (Path path : new ArrayList<>(jars.keySet())) {
+            if (!found.contains(path)) unregister(jars.get(path));
+        }
+        for (Path path : found) {
+            JarInfo known = jars.get(path);
+            if (known == null || !known.isCurrent()) reindex(path);
+        }
+    }
+
+    private void reindex(Path path) {
+        JarInfo old = jars.get(path);
+        if (old != null) unregister(old);
+        // There is no supported way to unmap a buffer: the old mapping stays until it is collected,
+        // and on Windows the replaced jar cannot be deleted or overwritten before that
+        mappedJars.remove(path);
+        if (!Files.isRegularFile(path)) return;
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            register(new JarInfo(path, attributes.lastModifiedTime().toMillis(), attributes.size(), listClasses(path)));
+        } catch (IOException e) {
+            LOGGER.debug("Cannot index JAR: {}", path, e);
+        }
+    }
+
+    /** Reads only the central directory; most indexed jars are never read from, so none is mapped here. */
+    private static List<String> listClasses(Path path) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+                String entry = entries.nextElement().getName();
+                if (!entry.endsWith(".class") || entry.startsWith("META-INF/")) continue;
+                classNames.add(entry.substring(0, entry.length() - 6).replace('/', '.'));
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * The first jar in path order keeps a class, so lookups are the same in every session
+     * whatever order the jars were indexed in.
+     */
+    private void register(JarInfo jar) {
+        jars.put(jar.path, jar);
+        for (String className : jar.classNames) {
+            classes.merge(className, jar, (current, added) -> added.path.compareTo(current.path) < 0 ? added : current);
+        }
+        dirty = true;
+    }
+
+    /** Hands each class the jar owned over to the next jar in path order that has it. */
+    private void unregister(JarInfo jar) {
+        jars.remove(jar.path);
+        Set<String> orphans = new HashSet<>();
+        for (String className : jar.classNames) {
+            if (classes.remove(className, jar)) orphans.add(className);
+        }
+        if (!orphans.isEmpty()) {
+            for (JarInfo other : new TreeMap<>(jars).values()) {
+                for (String className : other.classNames) {
+                    if (orphans.remove(className)) classes.put(className, other);
+                }
+                if (orphans.isEmpty()) break;
+            }
+        }
+        dirty = true;
+    }
+
+    private void save() {
+        if (!dirty) return;
+        dirty = false;
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path temp = Files.createTempFile(indexFile.getParent(), "classpath", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(INDEX_VERSION);
+                out.writeUTF(root.toString());
+                Map<Path, JarInfo> snapshot = new TreeMap<>(jars);
+                out.writeInt(snapshot.size());
+                for (JarInfo jar : snapshot.values()) {
+                    out.writeUTF(jar.path.toString());
+                    out.writeLong(jar.modified);
+                    out.writeLong(jar.size);
+                    out.writeInt(jar.classNames.size());
+                    for (String className : jar.classNames) out.writeUTF(className);
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write class path index {}", indexFile, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedClassPath[" + root + "]";
+    }
+}
@@ -0,0 +1,253 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.ClassPath;
+import javassist.NotFoundException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Javassist class path over a memory-mapped jar. The central directory is parsed once into an
+ * open-addressing table of entry name hashes, and class files are read (stored) or inflated
+ * (deflated) straight from the mapping, so no {@code JarFile}, file descriptor or stream buffer
+ * is held per jar. Reads only use absolute buffer accessors and are safe from any thread. The
+ * mapping is released when the instance is garbage collected, not before.
+ */
+final class MappedJarClassPath implements ClassPath {
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final Path jar;
+    private final ByteBuffer buffer;
+
+    /** Central directory record offsets, by entry index. */
+    private final int[] records;
+    /** Open-addressing table: entry index + 1, or 0 for an empty slot. */
+    private final int[] table;
+    private final int[] hashes;
+    private final int mask;
+
+    private MappedJarClassPath(Path jar, ByteBuffer buffer, int[] records) {
+        this.jar = jar;
+        this.buffer = buffer;
+        this.records = records;
+
+        int capacity = Integer.highestOneBit(Math.max(4, records.length * 2 - 1)) << 1;
+        this.table = new int[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < records.length; i++) {
+            int record = records[i];
+            int hash = hash(buffer, record + 46, u16(buffer, record + 28));
+            int slot = hash & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = i + 1;
+            hashes[slot] = hash;
+        }
+    }
+
+    /** Maps the jar and indexes its central directory; the file is closed again before returning. */
+    static MappedJarClassPath open(Path jar) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Jar too large to map: " + jar);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        return new MappedJarClassPath(jar, buffer, readCentralDirectory(jar, buffer));
+    }
+
+    private static int[] readCentralDirectory(Path jar, ByteBuffer buffer) throws IOException {
+        int end = -1;
+        for (int i = buffer.limit() - 22, min = Math.max(0, buffer.limit() - 22 - 0xFFFF); i >= min; i--) {
+            if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) throw new IOException("Not a zip file: " + jar);
+
+        long count = u16(buffer, end + 10);
+        long offset = u32(buffer, end + 16);
+        if ((count == 0xFFFF || offset == 0xFFFFFFFFL) && end >= 20 && buffer.getInt(end - 20) == ZIP64_LOCATOR) {
+            int zip64End = (int) buffer.getLong(end - 12);
+            if (buffer.getInt(zip64End) != ZIP64_END_OF_CENTRAL_DIRECTORY) throw new IOException("Bad zip64 directory: " + jar);
+            count = buffer.getLong(zip64End + 32);
+            offset = buffer.getLong(zip64End + 48);
+        }
+
+        int[] records = new int[(int) count];
+        int position = (int) offset;
+        for (int i = 0; i < count; i++) {
+            if (buffer.getInt(position) != CENTRAL_HEADER) throw new IOException("Corrupt central directory: " + jar);
+            records[i] = position;
+            position += 46 + u16(buffer, position + 28) + u16(buffer, position + 30) + u16(buffer, position + 32);
+        }
+        return records;
+    }
+
+    @Override
+    public URL find(String classname) {
+        if (lookup(entryName(classname)) < 0) return null;
+        try {
+            return new URL("jar:" + jar.toUri() + "!/" + entryName(classname));
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream openClassfile(String classname) throws NotFoundException {
+        int record = lookup(entryName(classname));
+        if (record < 0) return null;
+        try {
+            return new ByteArrayInputStream(read(record));
+        } catch (IOException e) {
+            throw new NotFoundException("Cannot read " + classname + " from " + jar, e);
+        }
+    }
+
+    /** Names of the class files in the jar, as binary class names. */
+    List<String> classNames() {
+        List<String> names = new ArrayList<>();
+        for (int record : records) {
+            int length = u16(buffer, record + 28);
+            byte[] name = new byte[length];
+            buffer.get(record + 46, name);
+            String entry = new String(name, StandardCharsets.UTF_8);
+            if (!entry.endsWith(".class") || entry.startsWith("META-INF/")) continue;
+            names.add(entry.substring(0, entry.length() - 6).replace('/', '.'));
+        }
+        return names;
+    }
+
+    private static String entryName(String classname) {
+        return classname.replace('.', '/') + ".class";
+    }
+
+    /** Returns the central directory record of the entry, or -1. */
+    private int lookup(String entryName) {
+        byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(name);
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] != hash) continue;
+            int record = records[table[slot] - 1];
+            if (u16(buffer, record + 28) == name.length && matches(record + 46, name)) return record;
+        }
+        return -1;
+    }
+
+    private boolean matches(int offset, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(offset + i) != name[i]) return false;
+        }
+        return true;
+    }
+
+    private byte[] read(int record) throws IOException {
+        int method = u16(buffer, record + 10);
+        long compressedSize = u32(buffer, record + 20);
+        long size = u32(buffer, record + 24);
+        long localOffset = u32(buffer, record + 42);
+        if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localOffset == 0xFFFFFFFFL) {
+            long[] zip64 = zip64Values(record, size, compressedSize, localOffset);
+            size = zip64[0];
+            compressedSize = zip64[1];
+            localOffset = zip64[2];
+        }
+
+        int local = (int) localOffset;
+        if (buffer.getInt(local) != LOCAL_HEADER) throw new IOException("Corrupt local header in " + jar);
+        int data = local + 30 + u16(buffer, local + 26) + u16(buffer, local + 28);
+        byte[] bytes = new byte[(int) size];
+        if (method == STORED) {
+            buffer.get(data, bytes);
+            return bytes;
+        }
+        if (method != DEFLATED) throw new IOException("Unsupported compression method " + method + " in " + jar);
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(buffer.slice(data, (int) compressedSize));
+            int total = 0;
+            while (total < bytes.length && !inflater.finished()) {
+                int n = inflater.inflate(bytes, total, bytes.length - total);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                total += n;
+            }
+            if (total != bytes.length) throw new IOException("Truncated entry in " + jar);
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt entry in " + jar, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /** Resolves the values a zip64 extra field replaces, in its fixed order. */
+    private long[] zip64Values(int record, long size, long compressedSize, long localOffset) {
+        long[] values = {size, compressedSize, localOffset};
+        int extra = record + 46 + u16(buffer, record + 28);
+        int extraEnd = extra + u16(buffer, record + 30);
+        while (extra + 4 <= extraEnd) {
+            int id = u16(buffer, extra);
+            int length = u16(buffer, extra + 2);
+            if (id == 0x0001) {
+                int position = extra + 4;
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] == 0xFFFFFFFFL) {
+                        values[i] = buffer.getLong(position);
+                        position += 8;
+                    }
+                }
+                break;
+            }
+            extra += 4 + length;
+        }
+        return values;
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 0;
+        for (byte b : bytes) hash = 31 * hash + b;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hash(ByteBuffer buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) hash = 31 * hash + buffer.get(offset + i);
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int u16(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    private static long u32(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedJarClassPath[" + jar + ", " + records.length + " entries]";
+    }
+}
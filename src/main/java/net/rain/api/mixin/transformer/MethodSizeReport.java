@@ -0,0 +1,70 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.CtClass;
+import javassist.bytecode.CodeAttribute;
+import javassist.bytecode.MethodInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records method bytecode sizes before mixins are applied and reports the methods that injections
+ * pushed across HotSpot's size thresholds: {@code FreqInlineSize} (325 bytes, hot methods above it
+ * are no longer inlined into callers) and {@code HugeMethodLimit} (8000 bytes, methods above it
+ * are never compiled unless {@code -XX:-DontCompileHugeMethods} is set).
+ */
+final class MethodSizeReport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodSizeReport.class);
+
+    static final int FREQ_INLINE_SIZE = Integer.getInteger("rain.mixin.freqInlineSize", 325);
+    static final int HUGE_METHOD_LIMIT = Integer.getInteger("rain.mixin.hugeMethodLimit", 8000);
+
+    private final Map<String, Integer> originalSizes = new HashMap<>();
+
+    private MethodSizeReport() {
+    }
+
+    static MethodSizeReport capture(CtClass targetClass) {
+        MethodSizeReport report = new MethodSizeReport();
+        for (MethodInfo method : targetClass.getClassFile().getMethods()) {
+            report.originalSizes.put(method.getName() + method.getDescriptor(), codeLength(method));
+        }
+        return report;
+    }
+
+    void report(CtClass targetClass) {
+        List<String> inlining = new ArrayList<>();
+        List<String> huge = new ArrayList<>();
+        for (MethodInfo method : targetClass.getClassFile().getMethods()) {
+            Integer before = originalSizes.get(method.getName() + method.getDescriptor());
+            if (before == null) continue;
+            int after = codeLength(method);
+            String entry = method.getName() + method.getDescriptor() + " " + before + " -> " + after + " bytes";
+            if (before <= HUGE_METHOD_LIMIT && after > HUGE_METHOD_LIMIT) {
+                huge.add(entry);
+            } else if (before <= FREQ_INLINE_SIZE && after > FREQ_INLINE_SIZE) {
+                inlining.add(entry);
+            }
+        }
+
+        if (!huge.isEmpty()) {
+            LOGGER.warn("Mixins pushed {} method(s) of {} past HugeMethodLimit ({} bytes); the JIT will not compile them:",
+                    huge.size(), targetClass.getName(), HUGE_METHOD_LIMIT);
+            huge.forEach(entry -> LOGGER.warn("  {}", entry));
+        }
+        if (!inlining.isEmpty()) {
+            LOGGER.info("Mixins pushed {} method(s) of {} past FreqInlineSize ({} bytes); they will no longer be inlined:",
+                    inlining.size(), targetClass.getName(), FREQ_INLINE_SIZE);
+            inlining.forEach(entry -> LOGGER.info("  {}", entry));
+        }
+    }
+
+    private static int codeLength(MethodInfo method) {
+        CodeAttribute code = method.getCodeAttribute();
+        return code == null ? 0 : code.getCodeLength();
+    }
+}
@@ -0,0 +1,278 @@
+package net.rain.api.mixin.transformer;
+
+import net.rain.api.core.java.helper.MinecraftHelper;
+import net.rain.api.mixin.IMixin;
+import net.rain.api.mixin.annotation.*;
+import net.rain.api.mixin.manager.MixinManager;
+import net.rain.api.mixin.manager.MixinRegistry;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything the Javassist engine needs to know about a mixin that does not depend on the target's
+ * bytes, read once from the mixin's cached bytecode: its priority and merge mode, the annotations
+ * of its fields and methods, and the SRG-resolved candidates for every target method it names.
+ * <p>
+ * Annotations are read from the class file with ASM and kept as immutable implementations of the
+ * annotation interfaces, so plans hold no Javassist state and can be shared between threads.
+ */
+final class MixinPlan {
+    private static final Map<Class<?>, MixinPlan> PLANS = new ConcurrentHashMap<>();
+
+    private static final List<Class<? extends Annotation>> MEMBER_ANNOTATIONS = List.of(
+            Shadow.class, Inject.class, Overwrite.class, Redirect.class, ModifyConstant.class, ModifyArg.class,
+            ModifyArgs.class, ModifyVariable.class, Unique.class, Accessor.class, Invoker.class, Mutable.class,
+            Final.class);
+
+    final Class<?> mixinClass;
+    final int priority;
+    final boolean merge;
+    final Implements implementsAnnotation;
+    final List<Member> fields;
+    /** Methods in application order: @Unique methods first, so merged handlers can call them. */
+    final List<Member> methods;
+    private final Map<String, Member> methodsBySignature = new HashMap<>();
+    private final Map<String, List<String>> targetNames = new HashMap<>();
+    private final String targetClass;
+
+    /** A field or method of the mixin and its mixin annotations. */
+    static final class Member {
+        final MixinPlan mixin;
+        final String name;
+        final String descriptor;
+        /** For handlers: the target method and injection point, e.g. {@code tick@HEAD}. */
+        final String injection;
+        private final Map<Class<? extends Annotation>, Annotation> annotations;
+
+        Member(MixinPlan mixin, String name, String descriptor, Map<Class<? extends Annotation>, Annotation> annotations) {
+            this.mixin = mixin;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.annotations = annotations;
+            this.injection = describeInjection(name, annotations);
+        }
+
+        <A extends Annotation> A get(Class<A> type) {
+            return type.cast(annotations.get(type));
+        }
+
+        boolean has(Class<? extends Annotation> type) {
+            return annotations.containsKey(type);
+        }
+
+        boolean isAnnotated() {
+            return !annotations.isEmpty();
+        }
+
+        /** The simple names of the member's annotations, e.g. {@code Inject}. */
+        String annotationNames() {
+            StringJoiner names = new StringJoiner(",");
+            for (Class<? extends Annotation> type : annotations.keySet()) names.add(type.getSimpleName());
+            return names.toString();
+        }
+
+        List<String> targetNames(String methodName) {
+            return mixin.targetNames(methodName);
+        }
+    }
+
+    private MixinPlan(Class<?> mixinClass, ClassNode node, Object instance, String targetClass) {
+        this.mixinClass = mixinClass;
+        this.targetClass = targetClass;
+        this.priority = instance instanceof IMixin ? ((IMixin) instance).getPriority() : 1000;
+        this.merge = instance instanceof IMixin && ((IMixin) instance).shouldMerge();
+
+        ClassLoader loader = mixinClass.getClassLoader();
+        AnnotationNode implementsNode = find(node.visibleAnnotations, node.invisibleAnnotations, Implements.class);
+        this.implementsAnnotation = implementsNode == null ? null : materialize(Implements.class, implementsNode, loader);
+
+        List<Member> fieldList = new ArrayList<>();
+        for (FieldNode field : node.fields) {
+            fieldList.add(new Member(this, field.name, field.desc,
+                    annotations(field.visibleAnnotations, field.invisibleAnnotations, loader)));
+        }
+        this.fields = Collections.unmodifiableList(fieldList);
+
+        List<Member> methodList = new ArrayList<>();
+        for (MethodNode method : node.methods) {
+            Member member = new Member(this, method.name, method.desc,
+                    annotations(method.visibleAnnotations, method.invisibleAnnotations, loader));
+            methodList.add(member);
+            methodsBySignature.put(method.name + method.desc, member);
+            String targetMethod = targetMethod(member);
+            if (targetMethod != null) targetNames.computeIfAbsent(targetMethod, this::resolveTargetNames);
+            if (member.has(Shadow.class)) targetNames.computeIfAbsent(method.name, this::resolveTargetNames);
+        }
+        methodList.sort(Comparator.comparing(m -> !m.has(Unique.class)));
+        this.methods = Collections.unmodifiableList(methodList);
+    }
+
+    /** The plan of a loaded mixin, or null if its bytecode is not cached. */
+    static MixinPlan of(Class<?> mixinClass) {
+        MixinPlan plan = PLANS.get(mixinClass);
+        if (plan != null) return plan;
+        MixinManager.MixinMetadata metadata = MixinManager.getMetadata(mixinClass.getName());
+        if (metadata == null) return null;
+
+        ClassNode node = new ClassNode();
+        new ClassReader(metadata.bytecode).accept(node, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        plan = new MixinPlan(mixinClass, node, MixinRegistry.getInstance(mixinClass.getName()), metadata.targetClass);
+        MixinPlan raced = PLANS.putIfAbsent(mixinClass, plan);
+        return raced != null ? raced : plan;
+    }
+
+    /** Drops the plan of a mixin class that has been reloaded or removed. */
+    static void evict(Class<?> mixinClass) {
+        PLANS.remove(mixinClass);
+    }
+
+    Member field(String name) {
+        for (Member field : fields) {
+            if (field.name.equals(name)) return field;
+        }
+        return null;
+    }
+
+    Member method(String name, String descriptor) {
+        return methodsBySignature.get(name + descriptor);
+    }
+
+    /** Names to look a target method up by: the SRG name first if it differs, then the name as written. */
+    List<String> targetNames(String methodName) {
+        List<String> names = targetNames.get(methodName);
+        return names != null ? names : resolveTargetNames(methodName);
+    }
+
+    private List<String> resolveTargetNames(String methodName) {
+        String srgName = targetClass == null ? null : MinecraftHelper.findSrgMethodName(targetClass, methodName);
+        if (srgName == null || srgName.equals(methodName)) return List.of(methodName);
+        return List.of(srgName, methodName);
+    }
+
+    private static String targetMethod(Member member) {
+        if (member.has(Inject.class)) return member.get(Inject.class).method();
+        if (member.has(Overwrite.class)) return member.get(Overwrite.class).method();
+        if (member.has(Redirect.class)) return member.get(Redirect.class).method();
+        if (member.has(ModifyConstant.class)) return member.get(ModifyConstant.class).method();
+        if (member.has(ModifyArg.class)) return member.get(ModifyArg.class).method();
+        if (member.has(ModifyArgs.class)) return member.get(ModifyArgs.class).method();
+        if (member.has(ModifyVariable.class)) return member.get(ModifyVariable.class).method();
+        return null;
+    }
+
+    /** Names the target method and injection point of a handler, e.g. {@code tick@HEAD}. */
+    private static String describeInjection(String name, Map<Class<? extends Annotation>, Annotation> annotations) {
+        Inject inject = (Inject) annotations.get(Inject.class);
+        if (inject != null) return inject.method() + "@" + inject.at().value();
+        Redirect redirect = (Redirect) annotations.get(Redirect.class);
+        if (redirect != null) return redirect.method() + "@REDIRECT:" + redirect.at().target();
+        ModifyArg modifyArg = (ModifyArg) annotations.get(ModifyArg.class);
+        if (modifyArg != null) return modifyArg.method() + "@MODIFY_ARG:" + modifyArg.at().target();
+        ModifyArgs modifyArgs = (ModifyArgs) annotations.get(ModifyArgs.class);
+        if (modifyArgs != null) return modifyArgs.method() + "@MODIFY_ARGS:" + modifyArgs.at().target();
+        ModifyConstant modifyConstant = (ModifyConstant) annotations.get(ModifyConstant.class);
+        if (modifyConstant != null) return modifyConstant.method() + "@MODIFY_CONSTANT";
+        ModifyVariable modifyVariable = (ModifyVariable) annotations.get(ModifyVariable.class);
+        if (modifyVariable != null) return modifyVariable.method() + "@MODIFY_VARIABLE";
+        Overwrite overwrite = (Overwrite) annotations.get(Overwrite.class);
+        if (overwrite != null) return overwrite.method() + "@OVERWRITE";
+        return name + "@UNIQUE";
+    }
+
+    // ==================== Annotation values ====================
+
+    private static Map<Class<? extends Annotation>, Annotation> annotations(List<AnnotationNode> visible,
+            List<AnnotationNode> invisible, ClassLoader loader) {
+        Map<Class<? extends Annotation>, Annotation> result = new HashMap<>();
+        for (Class<? extends Annotation> type : MEMBER_ANNOTATIONS) {
+            AnnotationNode node = find(visible, invisible, type);
+            if (node != null) result.put(type, materialize(type, node, loader));
+        }
+        return result.isEmpty() ? Collections.emptyMap() : result;
+    }
+
+    private static AnnotationNode find(List<AnnotationNode> visible, List<AnnotationNode> invisible,
+            Class<? extends Annotation> type) {
+        String desc = Type.getDescriptor(type);
+        for (List<AnnotationNode> nodes : Arrays.asList(visible, invisible)) {
+            if (nodes == null) continue;
+            for (AnnotationNode node : nodes) {
+                if (desc.equals(node.desc)) return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An immutable implementation of {@code type} with the values of {@code node}, and the
+     * declared defaults for elements the class file leaves out.
+     */
+    private static <A extends Annotation> A materialize(Class<A> type, AnnotationNode node, ClassLoader loader) {
+        Map<String, Object> values = new HashMap<>();
+        if (node.values != null) {
+            for (int i = 0; i < node.values.size(); i += 2) values.put((String) node.values.get(i), node.values.get(i + 1));
+        }
+        Map<String, Object> elements = new LinkedHashMap<>();
+        for (Method element : type.getDeclaredMethods()) {
+            Object raw = values.get(element.getName());
+            elements.put(element.getName(),
+                    raw == null ? element.getDefaultValue() : convert(raw, element.getReturnType(), loader));
+        }
+
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "annotationType":
+                    return type;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "@" + type.getName() + elements;
+                default:
+                    Object value = elements.get(method.getName());
+                    if (value != null && value.getClass().isArray()) {
+                        int length = Array.getLength(value);
+                        Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+                        System.arraycopy(value, 0, copy, 0, length);
+                        return copy;
+                    }
+                    return value;
+            }
+        }));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(Object raw, Class<?> type, ClassLoader loader) {
+        if (type.isArray()) {
+            List<?> list = (List<?>) raw;
+            Object array = Array.newInstance(type.getComponentType(), list.size());
+            for (int i = 0; i < list.size(); i++) Array.set(array, i, convert(list.get(i), type.getComponentType(), loader));
+            return array;
+        }
+        if (type.isAnnotation()) return materialize((Class<? extends Annotation>) type, (AnnotationNode) raw, loader);
+        if (type.isEnum()) return Enum.valueOf((Class<? extends Enum>) type, ((String[]) raw)[1]);
+        if (type == Class.class) {
+            // Class values in mixin annotations (@Implements) are always reference types
+            Type asmType = (Type) raw;
+            String name = asmType.getSort() == Type.ARRAY ? asmType.getDescriptor().replace('/', '.') : asmType.getClassName();
+            try {
+                return Class.forName(name, false, loader);
+            } catch (ClassNotFoundException e) {
+                throw new TypeNotPresentException(name, e);
+            }
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,125 @@
+package net.rain.api.mixin.transformer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hot reload half of {@link MixinTransformer}: transforms already loaded targets again with
+ * their currently registered mixins and redefines all of them with a single
+ * {@link Instrumentation#redefineClasses} call.
+ * <p>
+ * Mixins are applied to the class as modlauncher first handed it to the transformer, so while
+ * hot reload is enabled ({@code -Drain.mixin.hotReload=true}) the untransformed bytes of every
+ * mixin target are kept. A loaded class that had no mixins until now is read back from the VM
+ * with a no-op retransformation. Helper methods and fields added by the engines change the
+ * class shape, which needs a VM with enhanced class redefinition
+ * ({@code -XX:+AllowEnhancedClassRedefinition}).
+ */
+final class MixinRedefiner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MixinRedefiner.class);
+
+    static final boolean ENABLED = Boolean.getBoolean("rain.mixin.hotReload");
+
+    private static final Map<String, byte[]> ORIGINALS = new ConcurrentHashMap<>();
+
+    /** Transforms the untransformed bytes of a target into the class file it is redefined with. */
+    interface Retransform {
+        byte[] apply(String className, byte[] original, ClassLoader loader) throws Exception;
+    }
+
+    private MixinRedefiner() {
+    }
+
+    /** Keeps the bytes a mixin target was loaded from. */
+    static void recordOriginal(String className, byte[] bytecode) {
+        if (ENABLED) ORIGINALS.putIfAbsent(className, bytecode);
+    }
+
+    /** Returns the number of classes redefined. */
+    static int redefine(Instrumentation instrumentation, Set<String> targets, Retransform retransform) {
+        List<Class<?>> loaded = new ArrayList<>();
+        for (Class<?> loadedClass : instrumentation.getAllLoadedClasses()) {
+            if (targets.contains(loadedClass.getName()) && instrumentation.isModifiableClass(loadedClass)) {
+                loaded.add(loadedClass);
+            }
+        }
+        if (loaded.isEmpty()) return 0;
+
+        List<Class<?>> unrecorded = new ArrayList<>();
+        for (Class<?> loadedClass : loaded) {
+            if (!ORIGINALS.containsKey(loadedClass.getName())) unrecorded.add(loadedClass);
+        }
+        Map<Class<?>, byte[]> captured = capture(instrumentation, unrecorded);
+
+        List<ClassDefinition> definitions = new ArrayList<>();
+        for (Class<?> loadedClass : loaded) {
+            String className = loadedClass.getName();
+            byte[] original = ORIGINALS.get(className);
+            if (original == null) original = captured.get(loadedClass);
+            if (original == null) {
+                LOGGER.warn("Cannot read the loaded bytes of {}, restart to apply its mixins", className);
+                continue;
+            }
+            try {
+                definitions.add(new ClassDefinition(loadedClass,
+                        retransform.apply(className, original, loadedClass.getClassLoader())));
+                ORIGINALS.putIfAbsent(className, original);
+            } catch (Exception e) {
+                LOGGER.error("Failed to transform {} again, it keeps its current mixins", className, e);
+            }
+        }
+        if (definitions.isEmpty()) return 0;
+
+        try {
+            instrumentation.redefineClasses(definitions.toArray(new ClassDefinition[0]));
+            return definitions.size();
+        } catch (UnsupportedOperationException e) {
+            LOGGER.error("The VM cannot redefine {} class(es) with the new mixins: {}. Run on a VM that supports "
+                    + "-XX:+AllowEnhancedClassRedefinition (such as JetBrains Runtime) to add or remove members",
+                    definitions.size(), e.getMessage());
+        } catch (ClassNotFoundException | UnmodifiableClassException | LinkageError e) {
+            LOGGER.error("Failed to redefine {} class(es) with the new mixins", definitions.size(), e);
+        }
+        return 0;
+    }
+
+    /** The current class files of {@code classes}, as handed to retransformation-capable transformers. */
+    private static Map<Class<?>, byte[]> capture(Instrumentation instrumentation, List<Class<?>> classes) {
+        if (classes.isEmpty()) return Collections.emptyMap();
+        if (!instrumentation.isRetransformClassesSupported()) return Collections.emptyMap();
+
+        Set<Class<?>> wanted = Collections.newSetFromMap(new IdentityHashMap<>());
+        wanted.addAll(classes);
+        Map<Class<?>, byte[]> captured = Collections.synchronizedMap(new IdentityHashMap<>());
+        ClassFileTransformer capture = new ClassFileTransformer() {
+            @Override
+            public byte[] transform(Module module, ClassLoader loader, String className, Class<?> redefined,
+                    ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+                if (redefined != null && wanted.contains(redefined)) captured.put(redefined, classfileBuffer.clone());
+                return null;
+            }
+        };
+        instrumentation.addTransformer(capture, true);
+        try {
+            instrumentation.retransformClasses(classes.toArray(new Class<?>[0]));
+        } catch (UnmodifiableClassException | RuntimeException | LinkageError e) {
+            LOGGER.warn("Failed to read back {} loaded class(es)", classes.size(), e);
+        } finally {
+            instrumentation.removeTransformer(capture);
+        }
+        return captured;
+    }
+}
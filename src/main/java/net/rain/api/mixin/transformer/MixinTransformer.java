@@ -4,8 +4,9 @@ import cpw.mods.modlauncher.serviceapi.ILaunchPluginService;
 import javassist.*;
 import javassist.bytecode.*;
 import javassist.expr.*;
-import net.rain.api.core.java.helper.MinecraftHelper;
-import net.rain.api.mixin.IMixin;
+import net.rain.api.bake.BakedClasses;
+import net.rain.api.core.jfr.InjectionApplyEvent;
+import net.rain.api.core.jfr.MixinTransformEvent;
 import net.rain.api.mixin.annotation.*;
 import net.rain.api.mixin.manager.MixinManager;
 import net.rain.api.mixin.manager.MixinRegistry;
@@ -15,32 +16,79 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
 
 public class MixinTransformer implements ILaunchPluginService {
     private static final Logger LOGGER = LoggerFactory.getLogger(MixinTransformer.class);
-    private static final ClassPool classPool = ClassPool.getDefault();
+    private static final ClassPoolStripes classPools = new ClassPoolStripes();
     private static boolean classPoolInitialized = false;
 
+    private static final boolean SHARED_CALLBACK_INFO =
+            Boolean.parseBoolean(System.getProperty("rain.mixin.sharedCallbackInfo", "true"));
+
+    /** {@code javassist} (default) or {@code asm}; see {@link AsmMixinEngine} for what the latter supports. */
+    private static final boolean ASM_ENGINE =
+            "asm".equalsIgnoreCase(System.getProperty("rain.mixin.engine", "javassist"));
+
+    /**
+     * Transformations in progress, by cache key. A thread that needs the same input transformed
+     * waits for the running transformation and shares its result.
+     */
+    private static final Map<String, CompletableFuture<TransformCache.Entry>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /**
+     * Classes the current thread is transforming. A class loaded again from within its own
+     * transformation (by a mixin that references it, for instance) is left alone.
+     */
+    private static final ThreadLocal<Set<String>> TRANSFORMING = ThreadLocal.withInitial(HashSet::new);
+
+    private static final Set<ClassLoader> GAME_LOADERS =
+            Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
+
+    private static final String BOOTSTRAP_CLASS = "net.rain.api.mixin.runtime.MixinBootstrap";
+    private static final String BOOTSTRAP_DESC = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;"
+            + "Ljava/lang/invoke/MethodType;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)Ljava/lang/invoke/CallSite;";
+    private static final String GUARD_BOOTSTRAP_DESC = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;"
+            + "Ljava/lang/invoke/MethodType;Ljava/lang/String;Ljava/lang/String;)Ljava/lang/invoke/CallSite;";
+
     static {
         initializeClassPool();
     }
 
+    /**
+     * Whether non-cancellable injections share a CallbackInfo held in a static field of the
+     * target. Off when transforming for redefinition: the field would be initialized by a
+     * {@code <clinit>} that redefinition never runs again.
+     */
+    private final boolean sharedCallbackInfo;
+
+    public MixinTransformer() {
+        this(SHARED_CALLBACK_INFO);
+    }
+
+    private MixinTransformer(boolean sharedCallbackInfo) {
+        this.sharedCallbackInfo = sharedCallbackInfo;
+    }
+
     private static synchronized void initializeClassPool() {
         if (classPoolInitialized) return;
         try {
-            classPool.appendSystemPath();
+            classPools.appendSystemPath();
 
             String systemClassPath = System.getProperty("java.class.path");
             if (systemClassPath != null && !systemClassPath.isEmpty()) {
                 for (String entry : systemClassPath.split(File.pathSeparator)) {
                     try {
-                        classPool.appendClassPath(entry);
+                        appendPath(entry);
                     } catch (NotFoundException e) {
                         LOGGER.warn("Cannot add classpath entry: {}", entry);
                     }
@@ -48,37 +96,53 @@ public class MixinTransformer implements ILaunchPluginService {
             }
 
             ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
-            if (contextLoader != null) appendClassLoaderPath(classPool, contextLoader);
+            if (contextLoader != null) appendClassLoaderPath(contextLoader);
 
             ClassLoader systemLoader = ClassLoader.getSystemClassLoader();
-            if (systemLoader != contextLoader) appendClassLoaderPath(classPool, systemLoader);
+            if (systemLoader != contextLoader) appendClassLoaderPath(systemLoader);
 
-            scanMinecraftDirectory(classPool);
-            classPool.childFirstLookup = true;
+            appendMinecraftDirectory();
             classPoolInitialized = true;
         } catch (Exception e) {
             LOGGER.error("Failed to initialize ClassPool", e);
         }
     }
 
-    private static void scanMinecraftDirectory(ClassPool pool) {
-        try {
-            Path minecraftDir = findMinecraftDirectory();
-            if (minecraftDir == null || !Files.exists(minecraftDir)) return;
-            try (Stream<Path> paths = Files.walk(minecraftDir)) {
-                paths.filter(Files::isRegularFile)
-                        .filter(p -> p.toString().toLowerCase().endsWith(".jar"))
-                        .forEach(jar -> {
-                            try {
-                                pool.appendClassPath(jar.toAbsolutePath().toString());
-                            } catch (Exception e) {
-                                LOGGER.debug("Cannot add JAR: {}", jar, e);
-                            }
-                        });
+    /** Jars are memory-mapped ({@link MappedJarClassPath}); anything else goes to Javassist's own class paths. */
+    private static void appendPath(String entry) throws NotFoundException {
+        if (entry.toLowerCase().endsWith(".jar")) {
+            try {
+                Path path = Paths.get(entry);
+                if (Files.isRegularFile(path)) {
+                    classPools.appendClassPath(MappedJarClassPath.open(path));
+                    return;
+                }
+            } catch (IOException | java.nio.file.InvalidPathException e) {
+                LOGGER.debug("Cannot map {}, using a JarFile", entry, e);
             }
-        } catch (Exception e) {
-            LOGGER.error("Failed to scan .minecraft directory", e);
         }
+        classPools.appendClassPath(entry);
+    }
+
+    /**
+     * Makes the jars below {@code .minecraft} resolvable through a persisted index instead of
+     * appending each of them; see {@link IndexedClassPath}.
+     */
+    private static void appendMinecraftDirectory() {
+        Path minecraftDir = findMinecraftDirectory();
+        if (minecraftDir == null || !Files.exists(minecraftDir)) return;
+        classPools.appendClassPath(new IndexedClassPath(minecraftDir.toAbsolutePath().normalize(),
+                TransformCache.cacheRoot().resolve("classpath-index.bin")));
+    }
+
+    /**
+     * Puts the game class loader (modlauncher's TransformingClassLoader) in front of every other
+     * class path entry, so the classes it can serve are read from it and never from a jar.
+     */
+    private static void useGameClassLoader(ClassLoader gameClassLoader) {
+        if (!GAME_LOADERS.add(gameClassLoader)) return;
+        classPools.insertClassPath(new LoaderClassPath(gameClassLoader));
+        ClassMetadata.getInstance().addLoader(gameClassLoader);
     }
 
     private static Path findMinecraftDirectory() {
@@ -124,11 +188,11 @@ public class MixinTransformer implements ILaunchPluginService {
         return null;
     }
 
-    private static void appendClassLoaderPath(ClassPool pool, ClassLoader loader) {
+    private static void appendClassLoaderPath(ClassLoader loader) {
         if (!(loader instanceof java.net.URLClassLoader)) return;
         for (URL url : ((java.net.URLClassLoader) loader).getURLs()) {
             try {
-                pool.appendClassPath(java.net.URLDecoder.decode(url.getFile(), "UTF-8"));
+                appendPath(java.net.URLDecoder.decode(url.getFile(), "UTF-8"));
             } catch (Exception ignored) {
             }
         }
@@ -148,106 +212,404 @@ public class MixinTransformer implements ILaunchPluginService {
     @Override
     public boolean processClass(Phase phase, org.objectweb.asm.tree.ClassNode classNode,
             Type classType, String reason) {
-        if (phase != Phase.AFTER || !"classloading".equals(reason)) return false;
+        return processClassWithFlags(phase, classNode, classType, reason) != ComputeFlags.NO_REWRITE;
+    }
+
+    /**
+     * Both engines hand back class files with frames computed, so a simple rewrite is enough,
+     * unless a type in them could not be resolved. Every class passing through is recorded in
+     * {@link ClassMetadata}.
+     */
+    @Override
+    public int processClassWithFlags(Phase phase, org.objectweb.asm.tree.ClassNode classNode,
+            Type classType, String reason) {
+        if (phase != Phase.AFTER || !"classloading".equals(reason)) return ComputeFlags.NO_REWRITE;
 
         String className = classNode.name.replace('/', '.');
 
-        // Prevent double-processing the same class
-        if (!MixinManager.markTransforming(className)) return false;
+        // Loading a mixin can load its target again on this thread; that nested load is not transformed
+        Set<String> transforming = TRANSFORMING.get();
+        if (!transforming.add(className)) return ComputeFlags.NO_REWRITE;
+        try {
+            return transformClass(classNode, className);
+        } finally {
+            transforming.remove(className);
+            ClassMetadata.getInstance().record(classNode);
+        }
+    }
 
+    private int transformClass(org.objectweb.asm.tree.ClassNode classNode, String className) {
         ClassLoader gameClassLoader = Thread.currentThread().getContextClassLoader();
         if (gameClassLoader == null) gameClassLoader = ClassLoader.getSystemClassLoader();
 
-        if (!MixinManager.hasMixins(className, gameClassLoader)) return false;
+        useGameClassLoader(gameClassLoader);
+        // Already replaced by its baked version, mixins included, or looked up and not baked for this input
+        BakedClasses bakedClasses = BakedClasses.getInstance();
+        Boolean bakedInstalled = bakedClasses.takeLookedUp(className);
+        if (Boolean.TRUE.equals(bakedInstalled)) return ComputeFlags.NO_REWRITE;
+
+        // By now every mixin is loaded, so the background pre-transformation can resolve them
+        boolean hasMixins = MixinManager.hasMixins(className, gameClassLoader);
+        ClassLoader loader = gameClassLoader;
+        if (PreTransformer.ENABLED) PreTransformer.start(profiled -> preTransform(profiled, loader));
+        if (!hasMixins) return ComputeFlags.NO_REWRITE;
 
+        MixinTransformEvent event = new MixinTransformEvent();
         try {
-            List<Class<?>> mixins = MixinManager.getMixinsFor(className, gameClassLoader);
-            if (mixins.isEmpty()) return false;
+            List<Class<?>> registered = MixinManager.getMixinsFor(className, gameClassLoader);
+            if (registered.isEmpty()) return ComputeFlags.NO_REWRITE;
+            event.begin();
+
+            LOGGER.info("Applying {} mixin(s) to {}", registered.size(), className);
+            ApplicationPlan plan = ApplicationPlan.forTarget(className, registered);
+            List<Class<?>> mixins = plan.mixins;
+            event.mixins = mixins.size();
+            PreTransformer.record(className);
+
+            long start = System.nanoTime();
+            boolean asm = ASM_ENGINE && AsmMixinEngine.supports(mixins);
+            if (ASM_ENGINE && !asm) LOGGER.info("Mixins for {} need the javassist engine", className);
+            String engine = asm ? "asm" : "javassist";
+            event.engine = engine;
+
+            byte[] originalBytecode = toBytecode(classNode);
+            event.inputBytes = originalBytecode.length;
+            MixinRedefiner.recordOriginal(className, originalBytecode);
+            byte[] baked = bakedInstalled == null && bakedClasses.has(className)
+                    ? bakedClasses.find(className, originalBytecode, mixins) : null;
+            if (baked != null) {
+                installBytecode(classNode, baked, ComputeFlags.SIMPLE_REWRITE);
+                LOGGER.info("Installed baked {} in {} us", className, (System.nanoTime() - start) / 1000);
+                commit(event, className, "baked", baked.length, "applied");
+                return ComputeFlags.SIMPLE_REWRITE;
+            }
+            String cacheKey = TransformCache.key(engine, sharedCallbackInfo, originalBytecode, mixins);
+            TransformCache.Entry result = cacheKey != null ? PreTransformer.take(className, cacheKey, originalBytecode) : null;
+            String source = "pre-transformed ";
+            if (result == null && TransformCache.ENABLED && cacheKey != null) {
+                result = TransformCache.getInstance().get(cacheKey);
+                source = "cached ";
+            }
+            CompletableFuture<TransformCache.Entry> flight = new CompletableFuture<>();
+            if (result == null && cacheKey != null) {
+                CompletableFuture<TransformCache.Entry> running = IN_FLIGHT.putIfAbsent(cacheKey, flight);
+                if (running != null) {
+                    result = running.join();
+                    source = "shared ";
+                }
+            }
+            if (result != null) {
+                installBytecode(classNode, result.bytecode, result.flags);
+            } else {
+                result = runFlight(flight, cacheKey, () -> transform(classNode, originalBytecode, plan, asm));
+                installBytecode(classNode, result.bytecode, result.flags);
+                source = "";
+            }
+
+            LOGGER.info("Successfully applied {} mixin(s) to {} in {} us ({}{})", mixins.size(), className,
+                    (System.nanoTime() - start) / 1000, source, engine);
+            commit(event, className, source.isEmpty() ? "transformed" : source.trim(), result.bytecode.length,
+                    "applied");
+            return result.flags;
+        } catch (Exception e) {
+            LOGGER.error("Failed to apply mixin to {}", className, e);
+            commit(event, className, null, 0, "failed");
+            return ComputeFlags.NO_REWRITE;
+        }
+    }
+
+    private static void commit(MixinTransformEvent event, String className, String source, long outputBytes,
+            String outcome) {
+        if (!event.shouldCommit()) return;
+        event.className = className;
+        event.source = source;
+        event.outputBytes = outputBytes;
+        event.outcome = outcome;
+        event.commit();
+    }
+
+    /**
+     * Transforms already loaded classes again with the mixins now registered for them and
+     * redefines them in one batch, for hot reload; see {@link MixinRedefiner}. Returns the number
+     * of classes redefined.
+     */
+    public static int redefineLoaded(java.lang.instrument.Instrumentation instrumentation, Set<String> targets) {
+        if (!MixinRedefiner.ENABLED) {
+            LOGGER.warn("Redefining mixin targets needs -Drain.mixin.hotReload=true from startup");
+            return 0;
+        }
+        MixinTransformer transformer = new MixinTransformer(false);
+        return MixinRedefiner.redefine(instrumentation, targets, (className, original, loader) ->
+                transformer.transformDetached(className, original, MixinManager.getLoadedMixinsFor(className), loader));
+    }
+
+    /** Forgets what was read from a mixin class that hot reload replaced or removed. */
+    public static void forgetMixin(Class<?> mixinClass) {
+        MixinPlan.evict(mixinClass);
+    }
+
+    /**
+     * Applies the mixins registered for a class to a class file outside of modlauncher, for the
+     * bake tool; {@code loader} resolves the classes it refers to. The result has its frames
+     * computed even if no mixin applies, since coremods may have changed the input.
+     */
+    public static byte[] bake(String className, byte[] bytecode, ClassLoader loader) throws Exception {
+        useGameClassLoader(loader);
+        return new MixinTransformer().transformDetached(className, bytecode,
+                MixinManager.getMixinsFor(className, loader), loader);
+    }
 
-            LOGGER.info("Applying {} mixin(s) to {}", mixins.size(), className);
-            sortMixinsByPriority(mixins);
+    /**
+     * A complete class file with the given mixins applied, for redefinition or baking. Frames
+     * that cannot be computed from {@link ClassMetadata} are computed by loading classes through
+     * {@code loader}, as modlauncher would.
+     */
+    private byte[] transformDetached(String className, byte[] bytecode, List<Class<?>> registered, ClassLoader loader)
+            throws Exception {
+        org.objectweb.asm.tree.ClassNode classNode = new org.objectweb.asm.tree.ClassNode();
+        new org.objectweb.asm.ClassReader(bytecode).accept(classNode, org.objectweb.asm.ClassReader.EXPAND_FRAMES);
+        byte[] originalBytecode = toBytecode(classNode);
 
-            org.objectweb.asm.ClassWriter writer = new org.objectweb.asm.ClassWriter(0);
-            classNode.accept(writer);
-            byte[] originalBytecode = writer.toByteArray();
+        TransformCache.Entry result;
+        if (registered.isEmpty()) {
+            result = withFrames(originalBytecode);
+        } else {
+            ApplicationPlan plan = ApplicationPlan.forTarget(className, registered);
+            result = transform(classNode, originalBytecode, plan, ASM_ENGINE && AsmMixinEngine.supports(plan.mixins));
+        }
+        if ((result.flags & ComputeFlags.COMPUTE_FRAMES) == 0) return result.bytecode;
 
-            CtClass targetClass = classPool.makeClass(new ByteArrayInputStream(originalBytecode));
+        org.objectweb.asm.ClassWriter writer =
+                new org.objectweb.asm.ClassWriter(org.objectweb.asm.ClassWriter.COMPUTE_FRAMES) {
+                    @Override
+                    protected ClassLoader getClassLoader() {
+                        return loader;
+                    }
+                };
+        new org.objectweb.asm.ClassReader(result.bytecode).accept(writer, org.objectweb.asm.ClassReader.SKIP_FRAMES);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Background half of {@link PreTransformer}: transforms a profiled class from the bytes on the
+     * class path. Only already loaded mixins are used, so no class loading is triggered here.
+     */
+    private PreTransformer.Result preTransform(String className, ClassLoader gameClassLoader) {
+        List<Class<?>> registered = MixinManager.getLoadedMixinsFor(className);
+        if (registered.isEmpty()) return null;
+        ApplicationPlan plan = ApplicationPlan.forTarget(className, registered);
+        List<Class<?>> mixins = plan.mixins;
+
+        byte[] classBytes;
+        try (InputStream in = gameClassLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            if (in == null) return null;
+            classBytes = in.readAllBytes();
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read {} for pre-transformation", className, e);
+            return null;
+        }
+
+        // Read the way modlauncher does, so that the bytes (and the cache key) match at load time
+        org.objectweb.asm.tree.ClassNode classNode = new org.objectweb.asm.tree.ClassNode();
+        new org.objectweb.asm.ClassReader(classBytes).accept(classNode, org.objectweb.asm.ClassReader.EXPAND_FRAMES);
+        byte[] originalBytecode = toBytecode(classNode);
+        boolean asm = ASM_ENGINE && AsmMixinEngine.supports(mixins);
+        String cacheKey = TransformCache.key(asm ? "asm" : "javassist", sharedCallbackInfo, originalBytecode, mixins);
+
+        if (cacheKey == null) return null;
+
+        TransformCache.Entry result = TransformCache.ENABLED ? TransformCache.getInstance().get(cacheKey) : null;
+        if (result == null) {
+            CompletableFuture<TransformCache.Entry> flight = new CompletableFuture<>();
+            CompletableFuture<TransformCache.Entry> running = IN_FLIGHT.putIfAbsent(cacheKey, flight);
+            try {
+                result = running != null ? running.join()
+                        : runFlight(flight, cacheKey, () -> transform(classNode, originalBytecode, plan, asm));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return new PreTransformer.Result(cacheKey, originalBytecode, result);
+    }
 
-            for (Class<?> mixinClass : mixins) {
-                if (isPseudoMixin(mixinClass) && !handlePseudoMixin(targetClass, mixinClass))
-                    continue;
+    /**
+     * Runs a transformation registered in {@link #IN_FLIGHT} under {@code cacheKey} (null if it
+     * could not be registered), caches the result and hands it to the threads waiting for it.
+     */
+    private static TransformCache.Entry runFlight(CompletableFuture<TransformCache.Entry> flight, String cacheKey,
+            Callable<TransformCache.Entry> transform) throws Exception {
+        try {
+            TransformCache.Entry result = transform.call();
+            if (TransformCache.ENABLED && cacheKey != null) {
+                TransformCache.getInstance().put(cacheKey, result.flags, result.bytecode);
             }
-            for (Class<?> mixinClass : mixins) {
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (cacheKey != null) IN_FLIGHT.remove(cacheKey, flight);
+        }
+    }
+
+    /**
+     * Runs the selected engine. The ASM engine transforms {@code classNode} in place; the class
+     * file it returns gets its frames from {@link #withFrames}.
+     */
+    private TransformCache.Entry transform(org.objectweb.asm.tree.ClassNode classNode, byte[] originalBytecode,
+            ApplicationPlan plan, boolean asm) throws Exception {
+        if (asm) {
+            new AsmMixinEngine(sharedCallbackInfo).apply(classNode, plan.mixins);
+            return withFrames(toBytecode(classNode));
+        }
+        return transformWithJavassist(originalBytecode, plan);
+    }
+
+    /**
+     * Recomputes the frames of a class file, resolving types through {@link ClassMetadata}
+     * instead of loading them. If one cannot be resolved the class is returned as it is, and
+     * modlauncher computes the frames on load.
+     */
+    private static TransformCache.Entry withFrames(byte[] bytecode) {
+        org.objectweb.asm.ClassReader reader = new org.objectweb.asm.ClassReader(bytecode);
+        ClassMetadata metadata = ClassMetadata.getInstance();
+        metadata.record(reader);
+        org.objectweb.asm.ClassWriter writer = metadata.newFrameWriter();
+        try {
+            reader.accept(writer, org.objectweb.asm.ClassReader.SKIP_FRAMES);
+            return new TransformCache.Entry(ComputeFlags.SIMPLE_REWRITE, writer.toByteArray());
+        } catch (ClassMetadata.UnresolvedTypeException e) {
+            LOGGER.debug("Cannot resolve {} for the frames of {}, leaving them to modlauncher", e.getMessage(),
+                    reader.getClassName());
+            return new TransformCache.Entry(ComputeFlags.COMPUTE_FRAMES, bytecode);
+        }
+    }
+
+    private static byte[] toBytecode(org.objectweb.asm.tree.ClassNode classNode) {
+        org.objectweb.asm.ClassWriter writer = new org.objectweb.asm.ClassWriter(0);
+        classNode.accept(writer);
+        return writer.toByteArray();
+    }
+
+    /** Frames dropped by a bytecode edit ({@link ScopedClassPool#framesInvalidated}) are recomputed here. */
+    private TransformCache.Entry transformWithJavassist(byte[] originalBytecode, ApplicationPlan plan)
+            throws Exception {
+        SharedClassPool shared = classPools.borrow();
+        try (ScopedClassPool pool = new ScopedClassPool(shared)) {
+            byte[] modifiedBytecode = transformWithJavassist(pool, originalBytecode, plan);
+            LOGGER.debug("Class pool: {} scoped, shared {} ({} pool(s))", pool.size(), shared.stats(), classPools.size());
+            if (pool.framesInvalidated()) return withFrames(modifiedBytecode);
+            return new TransformCache.Entry(ComputeFlags.SIMPLE_REWRITE, modifiedBytecode);
+        } finally {
+            classPools.release(shared);
+        }
+    }
+
+    /** The game class loader may serve the original target too, so it is created without the parent check. */
+    private byte[] transformWithJavassist(ScopedClassPool pool, byte[] originalBytecode, ApplicationPlan plan)
+            throws Exception {
+        CtClass targetClass = pool.makeClass(new ByteArrayInputStream(originalBytecode), false);
+        MethodSizeReport sizeReport = MethodSizeReport.capture(targetClass);
+
+        for (Class<?> mixinClass : plan.mixins) {
+            if (isPseudoMixin(mixinClass) && !handlePseudoMixin(targetClass, mixinClass))
+                continue;
+        }
+        FusionPlan fusion = planFusion(targetClass, plan);
+        CallSiteInstrumenter instrumenter = new CallSiteInstrumenter();
+        try {
+            for (int i = 0; i < plan.mixins.size(); i++) {
                 try {
-                    applyMixin(targetClass, mixinClass);
+                    applyMixin(targetClass, plan.mixins.get(i), plan.plans.get(i), fusion.members, instrumenter);
                 } catch (Exception e) {
                     throw new net.rain.api.mixin.throwables.MixinApplyError(e.getMessage());
                 }
             }
-
-            byte[] modifiedBytecode = targetClass.toBytecode();
-            org.objectweb.asm.ClassReader reader = new org.objectweb.asm.ClassReader(modifiedBytecode);
-            org.objectweb.asm.tree.ClassNode newNode = new org.objectweb.asm.tree.ClassNode();
-            reader.accept(newNode, 0);
-
-            classNode.version = newNode.version;
-            classNode.access = newNode.access;
-            classNode.name = newNode.name;
-            classNode.signature = newNode.signature;
-            classNode.superName = newNode.superName;
-            classNode.interfaces = newNode.interfaces;
-            classNode.sourceFile = newNode.sourceFile;
-            classNode.sourceDebug = newNode.sourceDebug;
-            classNode.outerClass = newNode.outerClass;
-            classNode.outerMethod = newNode.outerMethod;
-            classNode.outerMethodDesc = newNode.outerMethodDesc;
-            classNode.visibleAnnotations = newNode.visibleAnnotations;
-            classNode.invisibleAnnotations = newNode.invisibleAnnotations;
-            classNode.visibleTypeAnnotations = newNode.visibleTypeAnnotations;
-            classNode.invisibleTypeAnnotations = newNode.invisibleTypeAnnotations;
-            classNode.attrs = newNode.attrs;
-            classNode.innerClasses = newNode.innerClasses;
-            classNode.nestHostClass = newNode.nestHostClass;
-            classNode.nestMembers = newNode.nestMembers;
-            classNode.permittedSubclasses = newNode.permittedSubclasses;
-            classNode.recordComponents = newNode.recordComponents;
-            classNode.methods.clear();
-            classNode.methods.addAll(newNode.methods);
-            classNode.fields.clear();
-            classNode.fields.addAll(newNode.fields);
-
-            targetClass.detach();
-            LOGGER.info("Successfully applied {} mixin(s) to {}", mixins.size(), className);
-            return true;
-        } catch (Exception e) {
-            LOGGER.error("Failed to apply mixin to {}", className, e);
-            return false;
+            try {
+                instrumenter.applyAll();
+            } catch (CannotCompileException e) {
+                throw new net.rain.api.mixin.throwables.MixinApplyError(e.getMessage());
+            }
+            applyFusedInjections(fusion);
+        } finally {
+            fusion.detachAll();
         }
+
+        sizeReport.report(targetClass);
+        byte[] modifiedBytecode = targetClass.toBytecode();
+        targetClass.detach();
+        return modifiedBytecode;
+    }
+
+    /**
+     * Replaces the contents of the node with the given class file. Frames are skipped when the
+     * flags ask modlauncher to recompute them.
+     */
+    private static void installBytecode(org.objectweb.asm.tree.ClassNode classNode, byte[] bytecode, int flags) {
+        org.objectweb.asm.ClassReader reader = new org.objectweb.asm.ClassReader(bytecode);
+        org.objectweb.asm.tree.ClassNode newNode = new org.objectweb.asm.tree.ClassNode();
+        reader.accept(newNode, (flags & ComputeFlags.COMPUTE_FRAMES) != 0 ? org.objectweb.asm.ClassReader.SKIP_FRAMES : 0);
+
+        classNode.version = newNode.version;
+        classNode.access = newNode.access;
+        classNode.name = newNode.name;
+        classNode.signature = newNode.signature;
+        classNode.superName = newNode.superName;
+        classNode.interfaces = newNode.interfaces;
+        classNode.sourceFile = newNode.sourceFile;
+        classNode.sourceDebug = newNode.sourceDebug;
+        classNode.outerClass = newNode.outerClass;
+        classNode.outerMethod = newNode.outerMethod;
+        classNode.outerMethodDesc = newNode.outerMethodDesc;
+        classNode.visibleAnnotations = newNode.visibleAnnotations;
+        classNode.invisibleAnnotations = newNode.invisibleAnnotations;
+        classNode.visibleTypeAnnotations = newNode.visibleTypeAnnotations;
+        classNode.invisibleTypeAnnotations = newNode.invisibleTypeAnnotations;
+        classNode.attrs = newNode.attrs;
+        classNode.innerClasses = newNode.innerClasses;
+        classNode.nestHostClass = newNode.nestHostClass;
+        classNode.nestMembers = newNode.nestMembers;
+        classNode.permittedSubclasses = newNode.permittedSubclasses;
+        classNode.recordComponents = newNode.recordComponents;
+        classNode.methods.clear();
+        classNode.methods.addAll(newNode.methods);
+        classNode.fields.clear();
+        classNode.fields.addAll(newNode.fields);
     }
 
-    private void applyMixin(CtClass targetClass, Class<?> mixinClass) throws Exception {
+    private void applyMixin(CtClass targetClass, Class<?> mixinClass, MixinPlan mixin, Set<String> fusedInjections,
+            CallSiteInstrumenter instrumenter) throws Exception {
         LOGGER.info("Applying mixin: {} -> {}", mixinClass.getName(), targetClass.getName());
 
         MixinManager.MixinMetadata metadata = MixinManager.getMetadata(mixinClass.getName());
-        if (metadata == null) {
+        if (metadata == null || mixin == null) {
             throw new IllegalStateException("No cached bytecode for mixin: " + mixinClass.getName());
         }
 
         // Get a CtClass for the mixin from its cached bytecode
-        CtClass ctMixinClass = classPool.getOrNull(mixinClass.getName());
+        ClassPool pool = targetClass.getClassPool();
+        CtClass ctMixinClass = pool.getOrNull(mixinClass.getName());
         boolean shouldDetach = false;
         if (ctMixinClass == null) {
-            ctMixinClass = classPool.makeClass(new ByteArrayInputStream(metadata.bytecode));
+            ctMixinClass = pool.makeClass(new ByteArrayInputStream(metadata.bytecode));
             shouldDetach = true;
         }
 
         try {
-            applyClassAnnotations(targetClass, ctMixinClass);
-            applyFieldAnnotations(targetClass, ctMixinClass);
+            applyClassAnnotations(targetClass, mixin);
+            applyFieldAnnotations(targetClass, ctMixinClass, mixin);
 
+            Map<String, CtMethod> declared = new HashMap<>();
             for (CtMethod ctMethod : ctMixinClass.getDeclaredMethods()) {
+                declared.put(ctMethod.getName() + ctMethod.getSignature(), ctMethod);
+            }
+            for (MixinPlan.Member method : mixin.methods) {
+                if (!method.isAnnotated()) continue;
+                CtMethod ctMethod = declared.get(method.name + method.descriptor);
+                if (ctMethod == null) continue;
                 try {
-                    applyMethodAnnotations(targetClass, mixinClass, ctMethod);
+                    applyMethodAnnotations(targetClass, mixinClass, ctMethod, method, fusedInjections, instrumenter);
                 } catch (Exception e) {
                     throw new net.rain.api.mixin.throwables.MixinApplyError(e.getMessage());
                 }
@@ -260,11 +622,11 @@ public class MixinTransformer implements ILaunchPluginService {
     }
 
 
-    private void applyClassAnnotations(CtClass targetClass, CtClass ctMixinClass) throws Exception {
-        Implements impl = (Implements) ctMixinClass.getAnnotation(Implements.class);
+    private void applyClassAnnotations(CtClass targetClass, MixinPlan mixin) throws Exception {
+        Implements impl = mixin.implementsAnnotation;
         if (impl != null) {
             for (Class<?> iface : impl.value()) {
-                CtClass ifaceClass = classPool.get(iface.getName());
+                CtClass ifaceClass = targetClass.getClassPool().get(iface.getName());
                 targetClass.addInterface(ifaceClass);
                 LOGGER.info("Added interface: {} to {}", iface.getName(), targetClass.getName());
             }
@@ -273,28 +635,28 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== Field-level annotations ====================
 
-    private void applyFieldAnnotations(CtClass targetClass, CtClass ctMixinClass) throws Exception {
-        for (CtField ctField : ctMixinClass.getDeclaredFields()) {
-            Shadow shadow = (Shadow) ctField.getAnnotation(Shadow.class);
+    private void applyFieldAnnotations(CtClass targetClass, CtClass ctMixinClass, MixinPlan mixin) throws Exception {
+        for (MixinPlan.Member field : mixin.fields) {
+            Shadow shadow = field.get(Shadow.class);
             if (shadow != null) {
-                applyShadowField(targetClass, ctField, shadow);
+                applyShadowField(targetClass, field, shadow);
                 continue;
             }
-            Unique unique = (Unique) ctField.getAnnotation(Unique.class);
+            Unique unique = field.get(Unique.class);
             if (unique != null) {
-                applyUniqueField(targetClass, ctField, unique);
+                applyUniqueField(targetClass, ctMixinClass.getDeclaredField(field.name), unique);
             }
         }
     }
 
-    private void applyShadowField(CtClass targetClass, CtField ctField, Shadow shadow)
+    private void applyShadowField(CtClass targetClass, MixinPlan.Member field, Shadow shadow)
             throws Exception {
-        String targetName = shadow.target().isEmpty() ? ctField.getName() : shadow.target();
+        String targetName = shadow.target().isEmpty() ? field.name : shadow.target();
         try {
             CtField targetField = targetClass.getField(targetName);
-            if (ctField.getAnnotation(Mutable.class) != null) {
+            if (field.has(Mutable.class)) {
                 targetField.setModifiers(Modifier.clear(targetField.getModifiers(), Modifier.FINAL));
-            } else if (ctField.getAnnotation(Final.class) != null) {
+            } else if (field.has(Final.class)) {
                 targetField.setModifiers(Modifier.setPublic(targetField.getModifiers()) | Modifier.FINAL);
             }
         } catch (NotFoundException e) {
@@ -324,35 +686,58 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== Method-level annotations ====================
 
-    private void applyMethodAnnotations(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
+    private void applyMethodAnnotations(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod,
+            MixinPlan.Member method, Set<String> fusedInjections, CallSiteInstrumenter instrumenter)
             throws Exception {
-        if (ctMethod.getAnnotation(Shadow.class) != null) return;
-        if (ctMethod.getAnnotation(Inject.class) != null)
-            applyInject(targetClass, mixinClass, ctMethod);
-        if (ctMethod.getAnnotation(Overwrite.class) != null)
-            applyOverwrite(targetClass, mixinClass, ctMethod);
-        if (ctMethod.getAnnotation(Redirect.class) != null)
-            applyRedirect(targetClass, mixinClass, ctMethod);
-        if (ctMethod.getAnnotation(ModifyConstant.class) != null)
-            applyModifyConstant(targetClass, mixinClass, ctMethod);
-        if (ctMethod.getAnnotation(ModifyArg.class) != null)
-            applyModifyArg(targetClass, mixinClass, ctMethod);
-        if (ctMethod.getAnnotation(ModifyArgs.class) != null)
-            applyModifyArgs(targetClass, mixinClass, ctMethod);
-        if (ctMethod.getAnnotation(ModifyVariable.class) != null)
-            applyModifyVariable(targetClass, mixinClass, ctMethod);
-        if (ctMethod.getAnnotation(Unique.class) != null)
-            applyUniqueMethod(targetClass, mixinClass, ctMethod);
-        if (ctMethod.getAnnotation(Accessor.class) != null) applyAccessor(targetClass, ctMethod);
-        if (ctMethod.getAnnotation(Invoker.class) != null) applyInvoker(targetClass, ctMethod);
+        if (method.has(Shadow.class)) return;
+        InjectionApplyEvent event = new InjectionApplyEvent();
+        event.begin();
+        String outcome = "failed";
+        try {
+            applyAnnotations(targetClass, mixinClass, ctMethod, method, fusedInjections, instrumenter);
+            outcome = "applied";
+        } finally {
+            if (event.shouldCommit()) {
+                event.targetClass = targetClass.getName();
+                event.mixinClass = mixinClass.getName();
+                event.handler = method.name;
+                event.injectionType = method.annotationNames();
+                event.engine = "javassist";
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    private void applyAnnotations(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod,
+            MixinPlan.Member method, Set<String> fusedInjections, CallSiteInstrumenter instrumenter)
+            throws Exception {
+        if (method.has(Inject.class) && !fusedInjections.contains(injectionKey(mixinClass, ctMethod)))
+            applyInject(targetClass, mixinClass, ctMethod, method, instrumenter);
+        if (method.has(Overwrite.class))
+            applyOverwrite(targetClass, mixinClass, ctMethod, method, instrumenter);
+        if (method.has(Redirect.class))
+            applyRedirect(targetClass, mixinClass, ctMethod, method, instrumenter);
+        if (method.has(ModifyConstant.class))
+            applyModifyConstant(targetClass, mixinClass, ctMethod, method, instrumenter);
+        if (method.has(ModifyArg.class))
+            applyModifyArg(targetClass, mixinClass, ctMethod, method, instrumenter);
+        if (method.has(ModifyArgs.class))
+            applyModifyArgs(targetClass, mixinClass, ctMethod, method, instrumenter);
+        if (method.has(ModifyVariable.class))
+            applyModifyVariable(targetClass, mixinClass, ctMethod, method, instrumenter);
+        if (method.has(Unique.class))
+            applyUniqueMethod(targetClass, mixinClass, ctMethod, method);
+        if (method.has(Accessor.class)) applyAccessor(targetClass, ctMethod, method);
+        if (method.has(Invoker.class)) applyInvoker(targetClass, ctMethod, method);
     }
 
     // ==================== @Inject ====================
 
-    private void applyInject(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
-            throws Exception {
-        Inject inject = (Inject) ctMethod.getAnnotation(Inject.class);
-        CtMethod targetMethod = findMethod(targetClass, inject.method(), inject.descriptor());
+    private void applyInject(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod, MixinPlan.Member handler,
+            CallSiteInstrumenter instrumenter) throws Exception {
+        Inject inject = handler.get(Inject.class);
+        CtMethod targetMethod = findMethod(targetClass, handler.targetNames(inject.method()), inject.descriptor());
         if (targetMethod == null) {
             if (inject.require()) {
                 LOGGER.warn("Inject target not found: {}.{}{}", targetClass.getName(), inject.method(), inject.descriptor());
@@ -375,10 +760,10 @@ public class MixinTransformer implements ILaunchPluginService {
                 injectAtReturn(targetMethod, mixinClass, ctMethod, inject.cancellable());
                 break;
             case "INVOKE":
-                injectAtInvoke(targetMethod, mixinClass, ctMethod, at, inject.cancellable());
+                injectAtInvoke(targetMethod, mixinClass, ctMethod, at, inject.cancellable(), instrumenter);
                 break;
             case "FIELD":
-                injectAtField(targetMethod, mixinClass, ctMethod, at, inject.cancellable());
+                injectAtField(targetMethod, mixinClass, ctMethod, at, inject.cancellable(), instrumenter);
                 break;
             case "TAIL":
                 injectAtTail(targetMethod, mixinClass, ctMethod, inject.cancellable());
@@ -415,74 +800,238 @@ public class MixinTransformer implements ILaunchPluginService {
     }
 
     private void injectAtInvoke(CtMethod targetMethod, Class<?> mixinClass, CtMethod ctMethod,
-            Inject.At at, boolean cancellable)
+            Inject.At at, boolean cancellable, CallSiteInstrumenter instrumenter)
             throws Exception {
         String target = at.target();
         if (target.isEmpty()) {
             LOGGER.warn("INVOKE injection missing target");
             return;
         }
-        final int ordinal = at.ordinal();
         final boolean before = at.before();
-        final int[] count = {0};
-        targetMethod.instrument(new ExprEditor() {
-            @Override
-            public void edit(MethodCall m) throws CannotCompileException {
-                String sig = m.getClassName() + "." + m.getMethodName();
-                if (sig.equals(target) || m.getMethodName().equals(target)) {
-                    if (ordinal == -1 || count[0] == ordinal) {
-                        try {
-                            String code = buildCallbackCode(targetMethod, mixinClass, ctMethod, cancellable);
-                            m.replace(before ? "{ " + code + " $_ = $proceed($$); }" : "{ $_ = $proceed($$); " + code + " }");
-                        } catch (Exception e) {
-                            throw new CannotCompileException(e);
-                        }
-                    }
-                    count[0]++;
-                }
-            }
+        instrumenter.onCall(targetMethod, target, at.ordinal(), m -> {
+            String code = buildCallbackCode(targetMethod, mixinClass, ctMethod, cancellable);
+            return before ? "{ " + code + " $_ = $proceed($$); }" : "{ $_ = $proceed($$); " + code + " }";
         });
     }
 
     private void injectAtField(CtMethod targetMethod, Class<?> mixinClass, CtMethod ctMethod,
-            Inject.At at, boolean cancellable)
+            Inject.At at, boolean cancellable, CallSiteInstrumenter instrumenter)
             throws Exception {
         String target = at.target();
         if (target.isEmpty()) {
             LOGGER.warn("FIELD injection missing target");
             return;
         }
-        final int ordinal = at.ordinal();
         final boolean before = at.before();
-        final int[] count = {0};
-        targetMethod.instrument(new ExprEditor() {
-            @Override
-            public void edit(FieldAccess f) throws CannotCompileException {
-                if (f.getFieldName().equals(target)) {
-                    if (ordinal == -1 || count[0] == ordinal) {
-                        try {
-                            String code = buildCallbackCode(targetMethod, mixinClass, ctMethod, cancellable);
-                            if (before) {
-                                f.replace(f.isReader() ? "{ " + code + " $_ = $proceed(); }" : "{ " + code + " $proceed($$); }");
-                            } else {
-                                f.replace(f.isReader() ? "{ $_ = $proceed(); " + code + " }" : "{ $proceed($$); " + code + " }");
-                            }
-                        } catch (Exception e) {
-                            throw new CannotCompileException(e);
-                        }
-                    }
-                    count[0]++;
-                }
+        instrumenter.onField(targetMethod, target, at.ordinal(), f -> {
+            String code = buildCallbackCode(targetMethod, mixinClass, ctMethod, cancellable);
+            if (before) {
+                return f.isReader() ? "{ " + code + " $_ = $proceed(); }" : "{ " + code + " $proceed($$); }";
             }
+            return f.isReader() ? "{ $_ = $proceed(); " + code + " }" : "{ $proceed($$); " + code + " }";
         });
     }
 
-    // ==================== @Overwrite ====================
+    // ==================== Fused HEAD / RETURN dispatch ====================
+
+    /** Injections sharing one target method and injection point, in priority order. */
+    private static final class FusedSite {
+        final CtMethod targetMethod;
+        final boolean atReturn;
+        final List<Class<?>> mixinClasses = new ArrayList<>();
+        final List<CtMethod> handlers = new ArrayList<>();
+        final List<Boolean> cancellable = new ArrayList<>();
+
+        FusedSite(CtMethod targetMethod, boolean atReturn) {
+            this.targetMethod = targetMethod;
+            this.atReturn = atReturn;
+        }
+    }
+
+    private static final class FusionPlan {
+        final List<FusedSite> sites = new ArrayList<>();
+        final Set<String> members = new HashSet<>();
+        final List<CtClass> loadedMixins = new ArrayList<>();
+
+        void detachAll() {
+            for (CtClass ctClass : loadedMixins) ctClass.detach();
+        }
+    }
+
+    private static String injectionKey(Class<?> mixinClass, CtMethod handler) {
+        return mixinClass.getName() + "." + handler.getName() + handler.getSignature();
+    }
+
+    /**
+     * Groups the HEAD and RETURN injections of all mixins by target method and point. Groups of
+     * two or more are emitted by {@link #applyFusedInjections} as a single dispatcher, and their
+     * members are skipped by {@link #applyInject}. Mixin CtClasses loaded here stay in the pool
+     * until the whole class is transformed.
+     */
+    private FusionPlan planFusion(CtClass targetClass, ApplicationPlan application) throws Exception {
+        FusionPlan plan = new FusionPlan();
+        if (targetClass.isInterface()) return plan;
+
+        Map<String, FusedSite> sites = new LinkedHashMap<>();
+        for (int i = 0; i < application.mixins.size(); i++) {
+            Class<?> mixinClass = application.mixins.get(i);
+            MixinPlan mixin = application.plans.get(i);
+            if (mixin == null || MixinRegistry.getInstance(mixinClass.getName()) == null) continue;
+            MixinManager.MixinMetadata metadata = MixinManager.getMetadata(mixinClass.getName());
+            if (metadata == null) continue;
+
+            CtClass ctMixinClass = targetClass.getClassPool().getOrNull(mixinClass.getName());
+            if (ctMixinClass == null) {
+                ctMixinClass = targetClass.getClassPool().makeClass(new ByteArrayInputStream(metadata.bytecode));
+                plan.loadedMixins.add(ctMixinClass);
+            }
+
+            for (CtMethod handler : ctMixinClass.getDeclaredMethods()) {
+                MixinPlan.Member member = mixin.method(handler.getName(), handler.getSignature());
+                Inject inject = member == null ? null : member.get(Inject.class);
+                if (inject == null) continue;
+                String point = inject.at().value();
+                if (!"HEAD".equals(point) && !"RETURN".equals(point)) continue;
+                CtMethod targetMethod = findMethod(targetClass, member.targetNames(inject.method()), inject.descriptor());
+                if (targetMethod == null) continue;
+
+                String key = targetMethod.getName() + targetMethod.getSignature() + "@" + point;
+                FusedSite site = sites.computeIfAbsent(key, k -> new FusedSite(targetMethod, "RETURN".equals(point)));
+                site.mixinClasses.add(mixinClass);
+                site.handlers.add(handler);
+                site.cancellable.add(inject.cancellable());
+            }
+        }
+
+        for (FusedSite site : sites.values()) {
+            if (site.handlers.size() < 2) continue;
+            plan.sites.add(site);
+            for (int i = 0; i < site.handlers.size(); i++) {
+                plan.members.add(injectionKey(site.mixinClasses.get(i), site.handlers.get(i)));
+            }
+        }
+        return plan;
+    }
+
+    private void applyFusedInjections(FusionPlan plan) throws Exception {
+        for (FusedSite site : plan.sites) {
+            CtMethod targetMethod = site.targetMethod;
+            boolean hasReturn = !targetMethod.getReturnType().equals(CtClass.voidType);
+            if (site.atReturn && hasReturn) {
+                targetMethod.insertAfter(buildFusedReturnCode(site), false);
+            } else if (site.atReturn) {
+                targetMethod.insertAfter(buildFusedCallbackCode(site, false), false);
+            } else {
+                targetMethod.insertBefore(buildFusedCallbackCode(site, site.cancellable.contains(true)));
+            }
+            LOGGER.info("Fused {} {} injection(s) into {}.{}", site.handlers.size(), site.atReturn ? "RETURN" : "HEAD",
+                    targetMethod.getDeclaringClass().getName(), targetMethod.getName());
+        }
+    }
+
+    /**
+     * One dispatcher for a HEAD group (or a RETURN group of a void method). Cancellable handlers
+     * share a single CallbackInfoImpl and the dispatcher returns as soon as one cancels;
+     * non-cancellable handlers keep receiving the shared immutable CallbackInfo, so their
+     * {@code cancel()} stays a no-op.
+     */
+    private String buildFusedCallbackCode(FusedSite site, boolean cancellable) throws Exception {
+        CtMethod targetMethod = site.targetMethod;
+        CtClass targetClass = targetMethod.getDeclaringClass();
+
+        StringBuilder body = new StringBuilder("{\n");
+        if (cancellable) {
+            body.append("    net.rain.api.mixin.impl.CallbackInfoImpl ci = new net.rain.api.mixin.impl.CallbackInfoImpl(\"")
+                    .append(targetMethod.getName()).append("\");\n");
+        }
+        for (int i = 0; i < site.handlers.size(); i++) {
+            Class<?> mixinClass = site.mixinClasses.get(i);
+            CtMethod handler = site.handlers.get(i);
+            if (cancellable && site.cancellable.get(i)) {
+                body.append(buildGuardedHandlerCall(targetMethod, mixinClass, handler, "ci"));
+                body.append("    if (ci.isCancelled()) return true;\n");
+            } else {
+                body.append(buildGuardedHandlerCall(targetMethod, mixinClass, handler,
+                        newCallbackInfo(targetClass, mixinClass, handler)));
+            }
+        }
+        if (cancellable) body.append("    return false;\n");
+        body.append("}");
+
+        int params = targetMethod.getParameterTypes().length;
+        String dispatcher = addFusedDispatcher(targetMethod, site.atReturn, null,
+                cancellable ? CtClass.booleanType : CtClass.voidType, body.toString());
+        String call = dispatcher + "(" + forwardedArguments(params) + ")";
+        if (!cancellable) return "{ " + call + "; }";
+
+        CtClass returnType = targetMethod.getReturnType();
+        String exit = returnType.equals(CtClass.voidType) ? "return;" : "return " + getDefaultValue(returnType) + ";";
+        return "{ if (" + call + ") " + exit + " }";
+    }
+
+    /**
+     * One dispatcher for a RETURN group of a method with a value. Cancellable handlers share one
+     * {@code cir}, so a value set by one is visible to the next, and the first that cancels decides
+     * the returned value. Each non-cancellable handler gets a returnable of its own holding the
+     * original value, as it would unfused, so its {@code cancel()} or {@code setReturnValue} never
+     * reaches the others.
+     */
+    private String buildFusedReturnCode(FusedSite site) throws Exception {
+        CtMethod targetMethod = site.targetMethod;
+        CtClass returnType = targetMethod.getReturnType();
+        boolean cancellable = site.cancellable.contains(true);
+        int params = targetMethod.getParameterTypes().length;
+        String value = "$" + (params + 1);
 
-    private void applyOverwrite(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
+        StringBuilder body = new StringBuilder("{\n");
+        if (cancellable) body.append(declareCallbackInfoReturnable(returnType, targetMethod.getName(), value, "cir"));
+        for (int i = 0; i < site.handlers.size(); i++) {
+            CtMethod handler = site.handlers.get(i);
+            if (site.cancellable.get(i)) {
+                body.append(buildGuardedHandlerCall(targetMethod, site.mixinClasses.get(i), handler, "cir"));
+                body.append("    if (cir.isCancelled()) return ").append(cancelledReturnValue(returnType)).append(";\n");
+            } else {
+                String own = "cir" + i;
+                body.append(declareCallbackInfoReturnable(returnType, handler.getName(), value, own));
+                body.append(buildGuardedHandlerCall(targetMethod, site.mixinClasses.get(i), handler, own));
+            }
+        }
+        if (cancellable) body.append("    return ").append(value).append(";\n");
+        body.append("}");
+
+        String dispatcher = addFusedDispatcher(targetMethod, true, returnType,
+                cancellable ? returnType : CtClass.voidType, body.toString());
+        String arguments = forwardedArguments(params);
+        String call = dispatcher + "(" + arguments + (arguments.isEmpty() ? "" : ", ") + "$_)";
+        return cancellable ? "{ $_ = " + call + "; }" : "{ " + call + "; }";
+    }
+
+    /**
+     * Adds {@code $mf$head$<method>} or {@code $mf$return$<method>}, taking all of the target's
+     * parameters followed by {@code extraParam} if non-null. Overloads are told apart by their
+     * parameter lists, as for the target methods themselves.
+     */
+    private String addFusedDispatcher(CtMethod targetMethod, boolean atReturn, CtClass extraParam,
+            CtClass returnType, String body)
             throws Exception {
-        Overwrite overwrite = (Overwrite) ctMethod.getAnnotation(Overwrite.class);
-        CtMethod targetMethod = findMethod(targetClass, overwrite.method(), overwrite.descriptor());
+        CtClass targetClass = targetMethod.getDeclaringClass();
+        String name = (atReturn ? "$mf$return$" : "$mf$head$") + targetMethod.getName();
+        List<CtClass> params = new ArrayList<>(Arrays.asList(targetMethod.getParameterTypes()));
+        if (extraParam != null) params.add(extraParam);
+
+        CtMethod dispatcher = CtNewMethod.make(returnType, name, params.toArray(new CtClass[0]), null, body, targetClass);
+        dispatcher.setModifiers(Modifier.PRIVATE | AccessFlag.SYNTHETIC
+                | (targetMethod.getModifiers() & Modifier.STATIC));
+        targetClass.addMethod(dispatcher);
+        return name;
+    }
+
+    // ==================== @Overwrite ====================
+
+    private void applyOverwrite(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod, MixinPlan.Member handler,
+            CallSiteInstrumenter instrumenter) throws Exception {
+        Overwrite overwrite = handler.get(Overwrite.class);
+        CtMethod targetMethod = findMethod(targetClass, handler.targetNames(overwrite.method()), overwrite.descriptor());
         if (targetMethod == null) {
             LOGGER.warn("Overwrite target not found: {}.{}", targetClass.getName(), overwrite.method());
             return;
@@ -490,76 +1039,54 @@ public class MixinTransformer implements ILaunchPluginService {
 
         boolean isStatic = (targetMethod.getModifiers() & Modifier.STATIC) != 0;
         CtClass[] targetParams = targetMethod.getParameterTypes();
-        CtClass[] mixinParams = ctMethod.getParameterTypes();
         CtClass returnType = targetMethod.getReturnType();
 
-        StringBuilder body = new StringBuilder("{\n");
-        body.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                .append(mixinClass.getName()).append("\");\n");
-        body.append("    Class[] _pt = new Class[]{");
-        for (int i = 0; i < mixinParams.length; i++) {
-            if (i > 0) body.append(", ");
-            body.append(mixinParams[i].getName()).append(".class");
-        }
-        body.append("};\n");
-        body.append("    Object[] _args = new Object[]{").append(isStatic ? "null" : "$0");
+        List<String> args = new ArrayList<>();
+        args.add(isStatic ? "null" : "$0");
         for (int i = 0; i < targetParams.length; i++) {
-            body.append(", ").append(boxPrimitive(targetParams[i], "$" + (i + 1)));
+            args.add("$" + (i + 1));
         }
-        body.append("};\n");
-        body.append("    Object _res = _mi.getClass().getMethod(\"")
-                .append(ctMethod.getName()).append("\", _pt).invoke(_mi, _args);\n");
+        List<CtClass> argTypes = new ArrayList<>();
+        argTypes.add(isStatic ? null : targetClass);
+        argTypes.addAll(Arrays.asList(targetParams));
+
+        String call = buildHandlerCall(targetClass, mixinClass, ctMethod, !isStatic, args, argTypes);
+        StringBuilder body = new StringBuilder("{\n");
         if (returnType.equals(CtClass.voidType)) {
-            body.append("    return;\n");
+            body.append("    ").append(call).append(";\n");
         } else {
-            body.append("    return ").append(unboxReturn(returnType, "_res")).append(";\n");
+            body.append("    return ").append(convert(call, ctMethod.getReturnType(), returnType)).append(";\n");
         }
         body.append("}");
 
+        instrumenter.apply(targetMethod);
         targetMethod.setBody(body.toString());
         LOGGER.info("Overwrote method: {}.{}", targetClass.getName(), targetMethod.getName());
     }
 
     // ==================== @Redirect ====================
 
-    private void applyRedirect(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
-            throws Exception {
-        Redirect redirect = (Redirect) ctMethod.getAnnotation(Redirect.class);
-        CtMethod targetMethod = findMethod(targetClass, redirect.method(), redirect.descriptor());
+    private void applyRedirect(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod, MixinPlan.Member handler,
+            CallSiteInstrumenter instrumenter) throws Exception {
+        Redirect redirect = handler.get(Redirect.class);
+        CtMethod targetMethod = findMethod(targetClass, handler.targetNames(redirect.method()), redirect.descriptor());
         if (targetMethod == null) {
             LOGGER.warn("Redirect target not found: {}.{}", targetClass.getName(), redirect.method());
             return;
         }
 
         String targetCall = redirect.at().target();
-        final int ordinal = redirect.at().ordinal();
-        final int[] count = {0};
-
-        targetMethod.instrument(new ExprEditor() {
-            @Override
-            public void edit(MethodCall m) throws CannotCompileException {
-                String sig = m.getClassName() + "." + m.getMethodName();
-                if (sig.equals(targetCall) || m.getMethodName().equals(targetCall)) {
-                    if (ordinal == -1 || count[0] == ordinal) {
-                        try {
-                            m.replace(buildRedirectCode(mixinClass, ctMethod, m));
-                        } catch (Exception e) {
-                            throw new CannotCompileException(e);
-                        }
-                    }
-                    count[0]++;
-                }
-            }
-        });
+        instrumenter.onCall(targetMethod, targetCall, redirect.at().ordinal(),
+                m -> buildRedirectCode(mixinClass, ctMethod, m));
         LOGGER.info("Redirected call: {} in {}.{}", targetCall, targetClass.getName(), targetMethod.getName());
     }
 
     // ==================== @ModifyConstant ====================
 
-    private void applyModifyConstant(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
-            throws Exception {
-        ModifyConstant modify = (ModifyConstant) ctMethod.getAnnotation(ModifyConstant.class);
-        CtMethod targetMethod = findMethod(targetClass, modify.method(), modify.descriptor());
+    private void applyModifyConstant(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod, MixinPlan.Member handler,
+            CallSiteInstrumenter instrumenter) throws Exception {
+        ModifyConstant modify = handler.get(ModifyConstant.class);
+        CtMethod targetMethod = findMethod(targetClass, handler.targetNames(modify.method()), modify.descriptor());
         if (targetMethod == null) {
             LOGGER.warn("ModifyConstant target not found: {}.{}", targetClass.getName(), modify.method());
             return;
@@ -567,17 +1094,16 @@ public class MixinTransformer implements ILaunchPluginService {
 
         boolean isStatic = (targetMethod.getModifiers() & Modifier.STATIC) != 0;
         CtClass retCtType = ctMethod.getReturnType();
-        Class<?> retType = Class.forName(retCtType.getName());
+        Class<?> retType = toRuntimeClass(retCtType);
         String retDesc = getTypeDescriptor(retType);
         String helperDesc = "(Ljava/lang/Object;" + retDesc + ")" + retDesc;
 
-        String helperName = "$mc$" + mixinClass.getSimpleName().replaceAll("[^a-zA-Z0-9]", "_")
-                + "$" + ctMethod.getName();
+        String helperName = generatedName("$mc$", mixinClass, ctMethod);
 
         boolean helperExists = false;
         try {
             targetClass.getDeclaredMethod(helperName, new CtClass
-                    []{classPool.get("java.lang.Object"), retCtType});
+                    []{targetClass.getClassPool().get("java.lang.Object"), retCtType});
             helperExists = true;
         } catch (NotFoundException ignored) {
         }
@@ -586,6 +1112,7 @@ public class MixinTransformer implements ILaunchPluginService {
             addModifyConstantHelper(targetClass, mixinClass, ctMethod, helperName, retCtType);
         }
 
+        instrumenter.apply(targetMethod);
         MethodInfo methodInfo = targetMethod.getMethodInfo();
         ConstPool constPool = methodInfo.getConstPool();
         CodeAttribute ca = methodInfo.getCodeAttribute();
@@ -600,35 +1127,28 @@ public class MixinTransformer implements ILaunchPluginService {
             patchConstantBytecode(targetMethod, constant, retType, helperRef, isStatic, constPool, ca);
         }
 
-        methodInfo.rebuildStackMapIf6(classPool, targetClass.getClassFile());
+        // Recomputed from ClassMetadata once the transformation is done, rather than from the class pool
+        ca.setAttribute((StackMapTable) null);
+        ((ScopedClassPool) targetClass.getClassPool()).invalidateFrames();
         LOGGER.info("ModifyConstant applied: {}.{}", targetClass.getName(), targetMethod.getName());
     }
 
     private void addModifyConstantHelper(CtClass targetClass, Class<?> mixinClass,
             CtMethod ctMethod, String helperName, CtClass retCtType)
             throws Exception {
-        CtClass[] mixinParams = ctMethod.getParameterTypes();
+        CtClass objectType = targetClass.getClassPool().get("java.lang.Object");
         CtMethod helper = new CtMethod(retCtType, helperName,
-        new CtClass[]{classPool.get("java.lang.Object"), retCtType}, targetClass);
+        new CtClass[]{objectType, retCtType}, targetClass);
         helper.setModifiers(Modifier.PRIVATE | Modifier.STATIC);
 
+        String call = buildHandlerCall(targetClass, mixinClass, ctMethod, false,
+                Arrays.asList("$1", "$2"), Arrays.asList(objectType, retCtType));
+
         StringBuilder b = new StringBuilder("{\n");
-        b.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                .append(mixinClass.getName()).append("\");\n");
-        b.append("    if (_mi == null) return $2;\n");
+        b.append("    if (!").append(linkGuard(targetClass, mixinClass, ctMethod)).append("()) return $2;\n");
         b.append("    try {\n");
-        b.append("        Class[] _pt = new Class[]{");
-        for (int i = 0; i < mixinParams.length; i++) {
-            if (i > 0) b.append(", ");
-            b.append(mixinParams[i].getName()).append(".class");
-        }
-        b.append("};\n");
-        b.append("        java.lang.reflect.Method _m = _mi.getClass().getMethod(\"")
-                .append(ctMethod.getName()).append("\", _pt);\n");
-        b.append("        Object[] _args = new Object[]{ $1, ")
-                .append(boxPrimitive(retCtType, "$2")).append(" };\n");
-        b.append("        return ").append(unboxReturn(retCtType, "_m.invoke(_mi, _args)")).append(";\n");
-        b.append("    } catch (Exception _e) { _e.printStackTrace(); }\n");
+        b.append("        return ").append(convert(call, ctMethod.getReturnType(), retCtType)).append(";\n");
+        b.append("    } catch (Throwable _e) { ").append(reportFailure(mixinClass, ctMethod, "_e")).append(" }\n");
         b.append("    return $2;\n");
         b.append("}\n");
 
@@ -757,110 +1277,64 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== @ModifyArg ====================
 
-    private void applyModifyArg(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
-            throws Exception {
-        ModifyArg modify = (ModifyArg) ctMethod.getAnnotation(ModifyArg.class);
-        CtMethod targetMethod = findMethod(targetClass, modify.method(), modify.descriptor());
+    private void applyModifyArg(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod, MixinPlan.Member handler,
+            CallSiteInstrumenter instrumenter) throws Exception {
+        ModifyArg modify = handler.get(ModifyArg.class);
+        CtMethod targetMethod = findMethod(targetClass, handler.targetNames(modify.method()), modify.descriptor());
         if (targetMethod == null) {
             LOGGER.warn("ModifyArg target not found: {}.{}", targetClass.getName(), modify.method());
             return;
         }
 
-        String target = modify.at().target();
-        final int ordinal = modify.at().ordinal();
         final int argIndex = modify.index();
-        final int[] count = {0};
-
-        targetMethod.instrument(new ExprEditor() {
-            @Override
-            public void edit(MethodCall m) throws CannotCompileException {
-                String sig = m.getClassName() + "." + m.getMethodName();
-                if (sig.equals(target) || m.getMethodName().equals(target)) {
-                    if (ordinal == -1 || count[0] == ordinal) {
-                        try {
-                            m.replace(buildModifyArgCode(mixinClass, ctMethod, m, argIndex));
-                        } catch (Exception e) {
-                            throw new CannotCompileException(e);
-                        }
-                    }
-                    count[0]++;
-                }
-            }
-        });
+        instrumenter.onCall(targetMethod, modify.at().target(), modify.at().ordinal(),
+                m -> buildModifyArgCode(mixinClass, ctMethod, m, argIndex));
         LOGGER.info("ModifyArg applied: index {} in {}.{}", argIndex, targetClass.getName(), targetMethod.getName());
     }
 
     // ==================== @ModifyArgs ====================
 
-    private void applyModifyArgs(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
-            throws Exception {
-        ModifyArgs modify = (ModifyArgs) ctMethod.getAnnotation(ModifyArgs.class);
-        CtMethod targetMethod = findMethod(targetClass, modify.method(), modify.descriptor());
+    private void applyModifyArgs(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod, MixinPlan.Member handler,
+            CallSiteInstrumenter instrumenter) throws Exception {
+        ModifyArgs modify = handler.get(ModifyArgs.class);
+        CtMethod targetMethod = findMethod(targetClass, handler.targetNames(modify.method()), modify.descriptor());
         if (targetMethod == null) {
             LOGGER.warn("ModifyArgs target not found: {}.{}", targetClass.getName(), modify.method());
             return;
         }
 
-        String target = modify.at().target();
-        final int ordinal = modify.at().ordinal();
-        final int[] count = {0};
-
-        targetMethod.instrument(new ExprEditor() {
-            @Override
-            public void edit(MethodCall m) throws CannotCompileException {
-                String sig = m.getClassName() + "." + m.getMethodName();
-                if (sig.equals(target) || m.getMethodName().equals(target)) {
-                    if (ordinal == -1 || count[0] == ordinal) {
-                        try {
-                            m.replace(buildModifyArgsCode(mixinClass, ctMethod, m));
-                        } catch (Exception e) {
-                            throw new CannotCompileException(e);
-                        }
-                    }
-                    count[0]++;
-                }
-            }
-        });
+        instrumenter.onCall(targetMethod, modify.at().target(), modify.at().ordinal(),
+                m -> buildModifyArgsCode(mixinClass, ctMethod, m));
         LOGGER.info("ModifyArgs applied: {}.{}", targetClass.getName(), targetMethod.getName());
     }
 
     // ==================== @ModifyVariable ====================
 
-    private void applyModifyVariable(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
-            throws Exception {
-        ModifyVariable modify = (ModifyVariable) ctMethod.getAnnotation(ModifyVariable.class);
-        CtMethod targetMethod = findMethod(targetClass, modify.method(), modify.descriptor());
+    private void applyModifyVariable(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod, MixinPlan.Member handler,
+            CallSiteInstrumenter instrumenter) throws Exception {
+        ModifyVariable modify = handler.get(ModifyVariable.class);
+        CtMethod targetMethod = findMethod(targetClass, handler.targetNames(modify.method()), modify.descriptor());
         if (targetMethod == null) {
             LOGGER.warn("ModifyVariable target not found: {}.{}", targetClass.getName(), modify.method());
             return;
         }
 
         boolean isStatic = (targetMethod.getModifiers() & Modifier.STATIC) != 0;
-        CtClass[] mixinParams = ctMethod.getParameterTypes();
         CtClass varCtType = ctMethod.getReturnType();
         int index = modify.index();
         String name = modify.name();
         String varRef = name.isEmpty() ? ("$" + index) : name;
         String selfArg = isStatic ? "null" : "$0";
 
-        StringBuilder ptSb = new StringBuilder();
-        for (int i = 0; i < mixinParams.length; i++) {
-            if (i > 0) ptSb.append(", ");
-            ptSb.append(mixinParams[i].getName()).append(".class");
-        }
+        String call = buildHandlerCall(targetClass, mixinClass, ctMethod, !isStatic,
+                Arrays.asList(selfArg, varRef), Arrays.asList(isStatic ? null : targetClass, varCtType));
 
         String code = "{\n"
-                + "    Object _mvMi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\""
-                + mixinClass.getName() + "\");\n"
-                + "    if (_mvMi != null) try {\n"
-                + "        Class[] _mvPt = new Class[]{" + ptSb + "};\n"
-                + "        java.lang.reflect.Method _mvM = _mvMi.getClass().getMethod(\""
-                + ctMethod.getName() + "\", _mvPt);\n"
-                + "        Object[] _mvArgs = new Object[]{ " + selfArg + ", "
-                + boxPrimitive(varCtType, varRef) + " };\n"
-                + "        Object _mvRes = _mvM.invoke(_mvMi, _mvArgs);\n"
-                + "        " + varRef + " = " + unboxReturn(varCtType, "_mvRes") + ";\n"
-                + "    } catch (Exception _mvE) { _mvE.printStackTrace(); }\n"
+                + "    if (" + linkGuard(targetClass, mixinClass, ctMethod) + "()) {\n"
+                + "    try {\n"
+                + "        " + varRef + " = " + call + ";\n"
+                + "    } catch (Throwable _mvE) { " + reportFailure(mixinClass, ctMethod, "_mvE") + " }\n"
+                + "    }\n"
                 + "}\n";
 
         String point = "HEAD";
@@ -895,26 +1369,9 @@ public class MixinTransformer implements ILaunchPluginService {
                 targetMethod.insertAfter(code, true);
                 break;
             case "INVOKE":
-                {
-                    final int[] cnt = {0};
-                    targetMethod.instrument(new ExprEditor() {
-                        @Override
-                        public void edit(MethodCall m) throws CannotCompileException {
-                            String sig = m.getClassName() + "." + m.getMethodName();
-                            if (sig.equals(finalTarget) || m.getMethodName().equals(finalTarget)) {
-                                if (finalOrdinal == -1 || cnt[0] == finalOrdinal) {
-                                    try {
-                                        m.replace("{ $_ = $proceed($$); " + finalCode + " }");
-                                    } catch (Exception e) {
-                                        throw new CannotCompileException(e);
-                                    }
-                                }
-                                cnt[0]++;
-                            }
-                        }
-                    });
-                    break;
-                }
+                instrumenter.onCall(targetMethod, finalTarget, finalOrdinal,
+                        m -> "{ $_ = $proceed($$); " + finalCode + " }");
+                break;
             default:
                 targetMethod.insertBefore(code);
         }
@@ -923,15 +1380,15 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== @Unique (method) ====================
 
-    private void applyUniqueMethod(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod)
-            throws Exception {
+    private void applyUniqueMethod(CtClass targetClass, Class<?> mixinClass, CtMethod ctMethod,
+            MixinPlan.Member method) throws Exception {
         String methodName = ctMethod.getName();
         CtClass[] paramTypes = ctMethod.getParameterTypes();
         CtClass returnType = ctMethod.getReturnType();
 
         try {
             targetClass.getDeclaredMethod(methodName, paramTypes);
-            Unique unique = (Unique) ctMethod.getAnnotation(Unique.class);
+            Unique unique = method.get(Unique.class);
             if (unique != null && !unique.silent()) {
                 LOGGER.warn("Unique method already exists: {}.{}", targetClass.getName(), methodName);
             }
@@ -939,30 +1396,24 @@ public class MixinTransformer implements ILaunchPluginService {
         } catch (NotFoundException ignored) {
         }
 
-        boolean isStatic = (ctMethod.getModifiers() & Modifier.STATIC) != 0;
+        if (method.mixin.merge && mergeMethod(targetClass, method.mixin, ctMethod, methodName, ctMethod.getModifiers())) {
+            return;
+        }
+
         CtMethod newMethod = new CtMethod(returnType, methodName, paramTypes, targetClass);
         newMethod.setModifiers(ctMethod.getModifiers());
 
-        StringBuilder body = new StringBuilder("{\n");
-        body.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                .append(mixinClass.getName()).append("\");\n");
-        body.append("    Class[] _pt = new Class[]{");
-        for (int i = 0; i < paramTypes.length; i++) {
-            if (i > 0) body.append(", ");
-            body.append(paramTypes[i].getName()).append(".class");
-        }
-        body.append("};\n");
-        body.append("    Object[] _args = new Object[]{").append(isStatic ? "null" : "$0");
+        List<String> args = new ArrayList<>();
         for (int i = 0; i < paramTypes.length; i++) {
-            body.append(", ").append(boxPrimitive(paramTypes[i], "$" + (i + 1)));
+            args.add("$" + (i + 1));
         }
-        body.append("};\n");
-        body.append("    Object _res = _mi.getClass().getMethod(\"")
-                .append(methodName).append("\", _pt).invoke(_mi, _args);\n");
+        String call = buildHandlerCall(targetClass, mixinClass, ctMethod,
+                !Modifier.isStatic(ctMethod.getModifiers()), args, Arrays.asList(paramTypes));
+        StringBuilder body = new StringBuilder("{\n");
         if (returnType.equals(CtClass.voidType)) {
-            body.append("    return;\n");
+            body.append("    ").append(call).append(";\n");
         } else {
-            body.append("    return ").append(unboxReturn(returnType, "_res")).append(";\n");
+            body.append("    return ").append(call).append(";\n");
         }
         body.append("}");
 
@@ -973,8 +1424,8 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== @Accessor ====================
 
-    private void applyAccessor(CtClass targetClass, CtMethod ctMethod) throws Exception {
-        Accessor accessor = (Accessor) ctMethod.getAnnotation(Accessor.class);
+    private void applyAccessor(CtClass targetClass, CtMethod ctMethod, MixinPlan.Member method) throws Exception {
+        Accessor accessor = method.get(Accessor.class);
         String fieldName = accessor.value();
         if (fieldName.isEmpty()) {
             String mn = ctMethod.getName();
@@ -997,8 +1448,8 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== @Invoker ====================
 
-    private void applyInvoker(CtClass targetClass, CtMethod ctMethod) throws Exception {
-        Invoker invoker = (Invoker) ctMethod.getAnnotation(Invoker.class);
+    private void applyInvoker(CtClass targetClass, CtMethod ctMethod, MixinPlan.Member method) throws Exception {
+        Invoker invoker = method.get(Invoker.class);
         String targetMethodName = invoker.value().isEmpty() ? ctMethod.getName() : invoker.value();
         CtClass returnType = ctMethod.getReturnType();
         CtMethod invokerCtMethod = new CtMethod(returnType, ctMethod.getName(),
@@ -1012,141 +1463,211 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== Code Builders ====================
 
+    /**
+     * Builds injection code for HEAD, TAIL, INVOKE and FIELD injection points. Mixin method
+     * signature: (TargetClass self, TargetParam1, ..., CallbackInfo ci). The dispatch itself is
+     * outlined into a helper (see {@link #outlineInjection}); the site only forwards the target's
+     * parameters and, for cancellable injections, tests the returned flag.
+     */
     private String buildCallbackCode(CtMethod targetMethod, Class<?> mixinClass,
             CtMethod ctInjectMethod, boolean cancellable)
             throws Exception {
-        boolean isStatic = (targetMethod.getModifiers() & Modifier.STATIC) != 0;
-        CtClass[] mixinParams = ctInjectMethod.getParameterTypes();
-        CtClass[] targetParams = targetMethod.getParameterTypes();
+        CtClass targetClass = targetMethod.getDeclaringClass();
+        CtClass returnType = targetMethod.getReturnType();
+        String exit = returnType.equals(CtClass.voidType) ? "return;" : "return " + getDefaultValue(returnType) + ";";
 
-        StringBuilder code = new StringBuilder("{\n");
+        if (targetClass.isInterface()) {
+            StringBuilder code = new StringBuilder("{\n");
+            code.append(buildCallbackBody(targetMethod, mixinClass, ctInjectMethod, cancellable));
+            if (cancellable) code.append("    if (ci.isCancelled()) ").append(exit).append("\n");
+            return code.append("}\n").toString();
+        }
+
+        int forwarded = forwardedParameterCount(targetMethod, ctInjectMethod);
+        StringBuilder body = new StringBuilder("{\n");
+        body.append(buildCallbackBody(targetMethod, mixinClass, ctInjectMethod, cancellable));
+        if (cancellable) body.append("    return ci.isCancelled();\n");
+        body.append("}");
+        String helper = outlineInjection(targetMethod, mixinClass, ctInjectMethod, forwarded,
+                null, cancellable ? CtClass.booleanType : CtClass.voidType, body.toString());
+
+        String call = helper + "(" + forwardedArguments(forwarded) + ")";
+        return cancellable ? "{ if (" + call + ") " + exit + " }" : "{ " + call + "; }";
+    }
+
+    /**
+     * Builds injection code for RETURN injection points. Mixin method signature: (TargetClass self,
+     * TargetParam1, ..., CallbackInfo[Returnable] ci). The outlined helper takes the forwarded
+     * parameters followed by the return value and, when cancellable, returns the (possibly
+     * replaced) value.
+     */
+    private String buildReturnCallbackCode(CtMethod targetMethod, Class<?> mixinClass,
+            CtMethod ctInjectMethod, boolean cancellable, boolean hasReturnValue)
+            throws Exception {
+        if (!hasReturnValue) return buildCallbackCode(targetMethod, mixinClass, ctInjectMethod, false);
+
+        CtClass targetClass = targetMethod.getDeclaringClass();
+        CtClass returnType = targetMethod.getReturnType();
+
+        if (targetClass.isInterface()) {
+            StringBuilder code = new StringBuilder("{\n");
+            code.append(buildReturnCallbackBody(targetMethod, mixinClass, ctInjectMethod, "$_"));
+            if (cancellable) code.append("    if (cir.isCancelled()) $_ = ").append(cancelledReturnValue(returnType)).append(";\n");
+            return code.append("}\n").toString();
+        }
+
+        int forwarded = forwardedParameterCount(targetMethod, ctInjectMethod);
+        String value = "$" + (forwarded + 1);
+        StringBuilder body = new StringBuilder("{\n");
+        body.append(buildReturnCallbackBody(targetMethod, mixinClass, ctInjectMethod, value));
+        if (cancellable) {
+            body.append("    return cir.isCancelled() ? ").append(cancelledReturnValue(returnType))
+                    .append(" : ").append(value).append(";\n");
+        }
+        body.append("}");
+        String helper = outlineInjection(targetMethod, mixinClass, ctInjectMethod, forwarded,
+                returnType, cancellable ? returnType : CtClass.voidType, body.toString());
+
+        String arguments = forwardedArguments(forwarded);
+        String call = helper + "(" + arguments + (arguments.isEmpty() ? "" : ", ") + "$_)";
+        return cancellable ? "{ $_ = " + call + "; }" : "{ " + call + "; }";
+    }
+
+    /**
+     * Statements that create {@code ci} and invoke the handler. Target parameters are referenced
+     * as {@code $1..$n}, which holds both inline and inside an outlined helper whose leading
+     * parameters mirror the target's.
+     */
+    private String buildCallbackBody(CtMethod targetMethod, Class<?> mixinClass,
+            CtMethod ctInjectMethod, boolean cancellable)
+            throws Exception {
+        CtClass targetClass = targetMethod.getDeclaringClass();
+        StringBuilder code = new StringBuilder();
         if (cancellable) {
             code.append("    net.rain.api.mixin.impl.CallbackInfoImpl ci = ")
                     .append("new net.rain.api.mixin.impl.CallbackInfoImpl(\"")
                     .append(ctInjectMethod.getName()).append("\");\n");
         } else {
             code.append("    net.rain.api.mixin.callback.CallbackInfo ci = ")
-                    .append("new net.rain.api.mixin.impl.CallbackInfoImpl(\"")
-                    .append(ctInjectMethod.getName()).append("\");\n");
+                    .append(newCallbackInfo(targetClass, mixinClass, ctInjectMethod)).append(";\n");
         }
+        code.append(buildGuardedHandlerCall(targetMethod, mixinClass, ctInjectMethod, "ci"));
+        return code.toString();
+    }
 
-        code.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                .append(mixinClass.getName()).append("\");\n");
-        code.append("    if (_mi == null) { return");
-        if (!targetMethod.getReturnType().equals(CtClass.voidType)) {
-            code.append(" ").append(getDefaultValue(targetMethod.getReturnType()));
-        }
-        code.append("; }\n");
+    private String buildReturnCallbackBody(CtMethod targetMethod, Class<?> mixinClass,
+            CtMethod ctInjectMethod, String value)
+            throws Exception {
+        CtClass returnType = targetMethod.getReturnType();
+        return declareCallbackInfoReturnable(returnType, ctInjectMethod.getName(), value, "cir")
+                + buildGuardedHandlerCall(targetMethod, mixinClass, ctInjectMethod, "cir");
+    }
 
-        code.append("    try {\n");
-        code.append("        Class[] _pt = new Class[]{");
-        for (int i = 0; i < mixinParams.length; i++) {
-            if (i > 0) code.append(", ");
-            code.append(mixinParams[i].getName()).append(".class");
+    /** Declares {@code name}, primitive-specialized where the return type allows it. */
+    private String declareCallbackInfoReturnable(CtClass returnType, String id, String value, String name) {
+        String specialized = specializedReturnable(returnType);
+        if (specialized != null) {
+            String impl = "net.rain.api.mixin.impl." + specialized + "CallbackInfoReturnableImpl";
+            return "    " + impl + " " + name + " = new " + impl + "(\"" + id + "\", " + value + ");\n";
         }
-        code.append("};\n");
+        return "    net.rain.api.mixin.impl.CallbackInfoReturnableImpl " + name + " = "
+                + "new net.rain.api.mixin.impl.CallbackInfoReturnableImpl(\"" + id + "\", "
+                + boxPrimitive(returnType, value) + ");\n";
+    }
 
-        code.append("        java.lang.reflect.Method _m = _mi.getClass().getMethod(\"")
-                .append(ctInjectMethod.getName()).append("\", _pt);\n");
+    /** The handler call for an @Inject, wrapped so that a failing handler never breaks the target. */
+    private String buildGuardedHandlerCall(CtMethod targetMethod, Class<?> mixinClass,
+            CtMethod ctInjectMethod, String ciName)
+            throws Exception {
+        boolean isStatic = (targetMethod.getModifiers() & Modifier.STATIC) != 0;
+        CtClass targetClass = targetMethod.getDeclaringClass();
+        CtClass[] mixinParams = ctInjectMethod.getParameterTypes();
+        CtClass[] targetParams = targetMethod.getParameterTypes();
 
         // args[0] = this/null, args[1..n-1] = original params, args[n] = ci
-        code.append("        Object[] _args = new Object[]{").append(isStatic ? "null" : "$0");
+        List<String> args = new ArrayList<>();
+        List<CtClass> argTypes = new ArrayList<>();
+        args.add(isStatic ? "null" : "$0");
+        argTypes.add(isStatic ? null : targetClass);
         for (int i = 1; i < mixinParams.length; i++) {
-            code.append(", ");
             if (i == mixinParams.length - 1) {
-                code.append("ci");
+                args.add(ciName);
+                argTypes.add(null);
             } else {
-                int pIdx = i;
-                CtClass pType = targetParams[i - 1];
-                code.append(boxPrimitive(pType, "$" + pIdx));
+                args.add("$" + i);
+                argTypes.add(targetParams[i - 1]);
             }
         }
-        code.append("};\n");
 
-        code.append("        _m.invoke(_mi, _args);\n");
-        code.append("    } catch (NoSuchMethodException _e) {\n");
-        code.append("        System.err.println(\"[Mixin] Method not found: \" + _e.getMessage());\n");
-        code.append("    } catch (Exception _e) {\n");
-        code.append("        System.err.println(\"[Mixin] Invocation failed: \" + _e.getMessage());\n");
-        code.append("        _e.printStackTrace();\n");
+        StringBuilder code = new StringBuilder();
+        code.append("    if (").append(linkGuard(targetClass, mixinClass, ctInjectMethod)).append("()) {\n");
+        code.append("    try {\n");
+        code.append("        ").append(buildHandlerCall(targetClass, mixinClass, ctInjectMethod, !isStatic, args, argTypes)).append(";\n");
+        code.append("    } catch (Throwable _e) {\n");
+        code.append("        ").append(reportFailure(mixinClass, ctInjectMethod, "_e")).append("\n");
         code.append("    }\n");
+        code.append("    }\n");
+        return code.toString();
+    }
 
-        if (cancellable) {
-            code.append("    if (((net.rain.api.mixin.impl.CallbackInfoImpl) ci).isCancelled()) {\n");
-            code.append("        return");
-            if (!targetMethod.getReturnType().equals(CtClass.voidType)) {
-                code.append(" ").append(getDefaultValue(targetMethod.getReturnType()));
-            }
-            code.append(";\n    }\n");
+    private String cancelledReturnValue(CtClass returnType) {
+        String specialized = specializedReturnable(returnType);
+        if (specialized != null) {
+            return "cir.getReturnValue" + ((CtPrimitiveType) returnType).getDescriptor() + "()";
         }
+        return unboxReturn(returnType, "cir.getReturnValue()");
+    }
 
-        code.append("}\n");
-        return code.toString();
+    /** Statement handing a caught handler exception to {@code MixinFailures}. */
+    private static String reportFailure(Class<?> mixinClass, CtMethod handler, String exception) {
+        return "net.rain.api.mixin.runtime.MixinFailures.report(\"" + mixinClass.getName() + "\", \""
+                + handler.getName() + "\", " + exception + ");";
+    }
+
+    /** Number of leading target parameters an @Inject handler receives between self and ci. */
+    private int forwardedParameterCount(CtMethod targetMethod, CtMethod ctInjectMethod)
+            throws NotFoundException {
+        int count = Math.max(0, ctInjectMethod.getParameterTypes().length - 2);
+        return Math.min(count, targetMethod.getParameterTypes().length);
+    }
+
+    private static String forwardedArguments(int count) {
+        StringBuilder arguments = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            if (i > 1) arguments.append(", ");
+            arguments.append("$").append(i);
+        }
+        return arguments.toString();
     }
 
     /**
-     * Builds injection code for RETURN injection points. Mixin method signature: (TargetClass self,
-     * CallbackInfo[Returnable] ci) args: [this/null, cir/ci]
+     * Adds the private synthetic helper {@code $mi$<Mixin>$<handler>} to the target and returns
+     * its name. The helper takes the first {@code forwarded} target parameters, then
+     * {@code extraParam} if non-null, and has the target method's static-ness so that {@code $0}
+     * and merged instance handlers keep working. Keeping CallbackInfo setup, the handler call and
+     * its try/catch out of line leaves only a few bytes at each injection point, so several
+     * injections do not push a hot target past the JIT's inlining and compilation size limits.
      */
-    private String buildReturnCallbackCode(CtMethod targetMethod, Class<?> mixinClass,
-            CtMethod ctInjectMethod, boolean cancellable, boolean hasReturnValue)
+    private String outlineInjection(CtMethod targetMethod, Class<?> mixinClass, CtMethod handler,
+            int forwarded, CtClass extraParam, CtClass returnType, String body)
             throws Exception {
-        boolean isStatic = (targetMethod.getModifiers() & Modifier.STATIC) != 0;
-        CtClass[] mixinParams = ctInjectMethod.getParameterTypes();
-        CtClass returnType = targetMethod.getReturnType();
+        CtClass targetClass = targetMethod.getDeclaringClass();
+        String helperName = generatedName("$mi$", mixinClass, handler);
 
-        StringBuilder code = new StringBuilder("{\n");
-
-        if (hasReturnValue) {
-            code.append("    net.rain.api.mixin.impl.CallbackInfoReturnableImpl cir = ")
-                    .append("new net.rain.api.mixin.impl.CallbackInfoReturnableImpl(\"")
-                    .append(ctInjectMethod.getName()).append("\", ")
-                    .append(boxPrimitive(returnType, "$_")).append(");\n");
-
-            code.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                    .append(mixinClass.getName()).append("\");\n");
-            code.append("    if (_mi != null) try {\n");
-            code.append("        Class[] _pt = new Class[]{");
-            for (int i = 0; i < mixinParams.length; i++) {
-                if (i > 0) code.append(", ");
-                code.append(mixinParams[i].getName()).append(".class");
-            }
-            code.append("};\n");
-            code.append("        java.lang.reflect.Method _m = _mi.getClass().getMethod(\"")
-                    .append(ctInjectMethod.getName()).append("\", _pt);\n");
-            code.append("        Object[] _args = new Object[]{ ")
-                    .append(isStatic ? "null" : "$0").append(", cir };\n");
-            code.append("        _m.invoke(_mi, _args);\n");
-            code.append("    } catch (Exception _e) { _e.printStackTrace(); }\n");
-
-            if (cancellable) {
-                code.append("    if (cir.isCancelled()) {\n");
-                code.append("        $_ = ").append(unboxReturn(returnType, "cir.getReturnValue()")).append(";\n");
-                code.append("    }\n");
-            }
-        } else {
-            code.append("    net.rain.api.mixin.callback.CallbackInfo ci = ")
-                    .append("new net.rain.api.mixin.impl.CallbackInfoImpl(\"")
-                    .append(ctInjectMethod.getName()).append("\");\n");
-            code.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                    .append(mixinClass.getName()).append("\");\n");
-            code.append("    if (_mi != null) try {\n");
-            code.append("        Class[] _pt = new Class[]{");
-            for (int i = 0; i < mixinParams.length; i++) {
-                if (i > 0) code.append(", ");
-                code.append(mixinParams[i].getName()).append(".class");
-            }
-            code.append("};\n");
-            code.append("        java.lang.reflect.Method _m = _mi.getClass().getMethod(\"")
-                    .append(ctInjectMethod.getName()).append("\", _pt);\n");
-            code.append("        Object[] _args = new Object[]{ ")
-                    .append(isStatic ? "null" : "$0").append(", ci };\n");
-            code.append("        _m.invoke(_mi, _args);\n");
-            code.append("    } catch (Exception _e) { _e.printStackTrace(); }\n");
+        List<CtClass> params = new ArrayList<>(Arrays.asList(targetMethod.getParameterTypes()).subList(0, forwarded));
+        if (extraParam != null) params.add(extraParam);
+        CtClass[] paramTypes = params.toArray(new CtClass[0]);
+        try {
+            targetClass.getDeclaredMethod(helperName, paramTypes);
+            return helperName;
+        } catch (NotFoundException ignored) {
         }
 
-        code.append("}\n");
-        return code.toString();
+        CtMethod helper = CtNewMethod.make(returnType, helperName, paramTypes, null, body, targetClass);
+        helper.setModifiers(Modifier.PRIVATE | AccessFlag.SYNTHETIC
+                | (targetMethod.getModifiers() & Modifier.STATIC));
+        targetClass.addMethod(helper);
+        return helperName;
     }
 
     /**
@@ -1159,44 +1680,41 @@ public class MixinTransformer implements ILaunchPluginService {
             throws Exception {
         CtClass[] calleeParams;
         CtClass calleeReturn;
+        CtClass calleeClass;
         try {
             calleeParams = methodCall.getMethod().getParameterTypes();
             calleeReturn = methodCall.getMethod().getReturnType();
+            calleeClass = methodCall.getMethod().getDeclaringClass();
         } catch (NotFoundException e) {
             LOGGER.warn("Cannot resolve redirected method params, falling back to $proceed", e);
             return "{ $_ = $proceed($$); }";
         }
 
-        CtClass[] mixinParams = ctRedirectMethod.getParameterTypes();
-
-        StringBuilder code = new StringBuilder("{\n");
-        code.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                .append(mixinClass.getName()).append("\");\n");
-        code.append("    if (_mi == null) { $_ = $proceed($$); }\n");
-        code.append("    else try {\n");
-        code.append("        Class[] _pt = new Class[]{");
-        for (int i = 0; i < mixinParams.length; i++) {
-            if (i > 0) code.append(", ");
-            code.append(mixinParams[i].getName()).append(".class");
-        }
-        code.append("};\n");
-        code.append("        java.lang.reflect.Method _m = _mi.getClass().getMethod(\"")
-                .append(ctRedirectMethod.getName()).append("\", _pt);\n");
-
         // args: [$0 (this of enclosing), callee arg1, arg2, ...]
-        code.append("        Object[] _args = new Object[]{ $0");
+        List<String> args = new ArrayList<>();
+        List<CtClass> argTypes = new ArrayList<>();
+        args.add("$0");
+        argTypes.add(calleeClass);
         for (int i = 0; i < calleeParams.length; i++) {
-            code.append(", ").append(boxPrimitive(calleeParams[i], "$" + (i + 1)));
+            args.add("$" + (i + 1));
+            argTypes.add(calleeParams[i]);
         }
-        code.append("};\n");
+        String call = buildHandlerCall(methodCall.getEnclosingClass(), mixinClass, ctRedirectMethod,
+                isInstanceContext(methodCall), args, argTypes);
 
-        code.append("        Object _res = _m.invoke(_mi, _args);\n");
+        StringBuilder code = new StringBuilder("{\n");
+        code.append("    if (").append(linkGuard(methodCall.getEnclosingClass(), mixinClass, ctRedirectMethod)).append("()) {\n");
+        code.append("    try {\n");
         if (calleeReturn.equals(CtClass.voidType)) {
-            code.append("        $_ = null;\n");
+            code.append("        ").append(call).append(";\n");
         } else {
-            code.append("        $_ = ").append(unboxReturn(calleeReturn, "_res")).append(";\n");
+            code.append("        $_ = ").append(convert(call, ctRedirectMethod.getReturnType(), calleeReturn)).append(";\n");
         }
-        code.append("    } catch (Exception _e) { _e.printStackTrace(); $_ = $proceed($$); }\n");
+        code.append("    } catch (Throwable _e) { ").append(reportFailure(mixinClass, ctRedirectMethod, "_e"))
+                .append(" $_ = $proceed($$); }\n");
+        code.append("    } else {\n");
+        code.append("        $_ = $proceed($$);\n");
+        code.append("    }\n");
         code.append("}\n");
         return code.toString();
     }
@@ -1209,88 +1727,425 @@ public class MixinTransformer implements ILaunchPluginService {
     private String buildModifyArgCode(Class<?> mixinClass, CtMethod ctMethod,
             MethodCall methodCall, int argIndex)
             throws Exception {
-        CtClass[] mixinParams = ctMethod.getParameterTypes();
+        CtClass[] calleeParams;
+        CtClass calleeClass;
+        try {
+            calleeParams = methodCall.getMethod().getParameterTypes();
+            calleeClass = methodCall.getMethod().getDeclaringClass();
+        } catch (NotFoundException e) {
+            return "{ $_ = $proceed($$); }";
+        }
 
+        String call = buildHandlerCall(methodCall.getEnclosingClass(), mixinClass, ctMethod,
+                isInstanceContext(methodCall), Arrays.asList("$0", "$" + (argIndex + 1)),
+                Arrays.asList(calleeClass, calleeParams[argIndex]));
+
+        // Only the handler is guarded; the callee runs once, outside the try, with whatever it produced
         StringBuilder code = new StringBuilder("{\n");
-        code.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                .append(mixinClass.getName()).append("\");\n");
+        code.append("    ").append(calleeParams[argIndex].getName()).append(" _newArg = $")
+                .append(argIndex + 1).append(";\n");
         code.append("    try {\n");
-        code.append("        Class[] _pt = new Class[]{");
-        for (int i = 0; i < mixinParams.length; i++) {
+        code.append("        if (").append(linkGuard(methodCall.getEnclosingClass(), mixinClass, ctMethod))
+                .append("()) _newArg = ").append(convert(call, ctMethod.getReturnType(), calleeParams[argIndex]))
+                .append(";\n");
+        code.append("    } catch (Throwable _e) { ").append(reportFailure(mixinClass, ctMethod, "_e"))
+                .append(" _newArg = $").append(argIndex + 1).append("; }\n");
+        code.append("    $_ = $proceed(");
+        for (int i = 0; i < calleeParams.length; i++) {
             if (i > 0) code.append(", ");
-            code.append(mixinParams[i].getName()).append(".class");
+            code.append(i == argIndex ? "_newArg" : "$" + (i + 1));
         }
-        code.append("};\n");
-        code.append("        java.lang.reflect.Method _m = _mi.getClass().getMethod(\"")
-                .append(ctMethod.getName()).append("\", _pt);\n");
-        code.append("        Object[] _args = new Object[]{ $0, $").append(argIndex + 1).append(" };\n");
-        code.append("        Object _newArg = _m.invoke(_mi, _args);\n");
+        code.append(");\n");
+        code.append("}\n");
+        return code.toString();
+    }
 
+    /**
+     * Builds ModifyArgs code. Mixin method signature: (TargetClass self, Args args) args: [$0
+     * (this), argsObj]
+     */
+    private String buildModifyArgsCode(Class<
+                    ?> mixinClass, CtMethod ctMethod, MethodCall methodCall)
+            throws Exception {
         CtClass[] calleeParams;
+        CtClass calleeClass;
         try {
             calleeParams = methodCall.getMethod().getParameterTypes();
+            calleeClass = methodCall.getMethod().getDeclaringClass();
         } catch (NotFoundException e) {
-            code.append("        $_ = $proceed($$);\n");
-            code.append("    } catch (Exception _e) { _e.printStackTrace(); $_ = $proceed($$); }\n");
-            code.append("}\n");
-            return code.toString();
+            return "{ $_ = $proceed($$); }";
         }
 
-        code.append("        Object[] _newCallArgs = new Object[]{");
+        String call = buildHandlerCall(methodCall.getEnclosingClass(), mixinClass, ctMethod,
+                isInstanceContext(methodCall), Arrays.asList("$0", "_argsObj"), Arrays.asList(calleeClass, null));
+
+        // Arguments are stored unboxed by kind, so the call itself never allocates wrappers.
+        StringBuilder kinds = new StringBuilder();
+        for (CtClass param : calleeParams) {
+            kinds.append(param.isPrimitive() ? ((CtPrimitiveType) param).getDescriptor() : 'L');
+        }
+
+        StringBuilder code = new StringBuilder("{\n");
+        code.append("    if (").append(linkGuard(methodCall.getEnclosingClass(), mixinClass, ctMethod)).append("()) {\n");
+        code.append("    net.rain.api.mixin.impl.TypedArgsImpl _argsObj = new net.rain.api.mixin.impl.TypedArgsImpl(\"")
+                .append(kinds).append("\");\n");
+        for (int i = 0; i < calleeParams.length; i++) {
+            code.append("    _argsObj.").append(typedArgsAccessor(calleeParams[i], "set")).append("(")
+                    .append(i).append(", ").append(calleeParams[i].isPrimitive() ? "" : "(Object) ")
+                    .append("$").append(i + 1).append(");\n");
+        }
+        // A handler that fails part way through leaves the arguments it already set behind, so the
+        // callee then gets the original ones; either way it runs once, outside the try
+        code.append("    try {\n");
+        code.append("        ").append(call).append(";\n");
+        code.append("    } catch (Throwable _e) { ").append(reportFailure(mixinClass, ctMethod, "_e"))
+                .append(" _argsObj = null; }\n");
+        code.append("    if (_argsObj != null) {\n");
+        code.append("        $_ = $proceed(");
         for (int i = 0; i < calleeParams.length; i++) {
             if (i > 0) code.append(", ");
-            if (i == argIndex) {
-                code.append(unboxReturn(calleeParams[i], "_newArg"));
+            if (calleeParams[i].isPrimitive()) {
+                code.append(narrowingCast(calleeParams[i]))
+                        .append("_argsObj.").append(typedArgsAccessor(calleeParams[i], "get")).append("(").append(i).append(")");
             } else {
-                code.append("$").append(i + 1);
+                code.append("(").append(calleeParams[i].getName()).append(") _argsObj.getObject(").append(i).append(")");
             }
         }
-        code.append("};\n");
+        code.append(");\n");
+        code.append("    } else {\n");
+        code.append("        $_ = $proceed($$);\n");
+        code.append("    }\n");
+        code.append("    } else {\n");
+        code.append("        $_ = $proceed($$);\n");
+        code.append("    }\n");
+        code.append("}\n");
+        return code.toString();
+    }
 
-        CtClass calleeReturn;
+    /**
+     * Returns the prefix of the primitive-specialized CallbackInfoReturnable for a return type
+     * ({@code Int}, {@code Long}, ...), or null when the value has to travel boxed.
+     */
+    private static String specializedReturnable(CtClass type) {
+        if (type == CtClass.intType) return "Int";
+        if (type == CtClass.longType) return "Long";
+        if (type == CtClass.floatType) return "Float";
+        if (type == CtClass.doubleType) return "Double";
+        if (type == CtClass.booleanType) return "Boolean";
+        return null;
+    }
+
+    /**
+     * Returns the TypedArgsImpl accessor for a parameter type. byte, short and char travel through
+     * the int accessor (see {@link #narrowingCast}), references through the untyped {@code set} /
+     * {@code getObject}.
+     */
+    private static String typedArgsAccessor(CtClass type, String prefix) {
+        if (type == CtClass.longType) return prefix + "Long";
+        if (type == CtClass.floatType) return prefix + "Float";
+        if (type == CtClass.doubleType) return prefix + "Double";
+        if (type == CtClass.booleanType) return prefix + "Boolean";
+        if (type.isPrimitive()) return prefix + "Int";
+        return prefix;
+    }
+
+    /**
+     * The cast that turns the int read back from the int accessor into a byte, short or char
+     * argument; Javassist does not narrow when resolving {@code $proceed}.
+     */
+    private static String narrowingCast(CtClass type) {
+        if (type == CtClass.byteType || type == CtClass.shortType || type == CtClass.charType) {
+            return "(" + type.getName() + ") ";
+        }
+        return "";
+    }
+
+    /**
+     * Returns the expression that supplies the CallbackInfo for a non-cancellable injection. Such
+     * sites share one {@code ImmutableCallbackInfo} held in a static field of the target, so they
+     * allocate nothing per call. Cancellable sites always construct a fresh
+     * {@code CallbackInfoImpl} as a local of exact type that never escapes the injection point, a
+     * shape C2 escape analysis scalar-replaces once the handler is inlined.
+     */
+    private String newCallbackInfo(CtClass targetClass, Class<?> mixinClass, CtMethod handler)
+            throws Exception {
+        String allocation = "new net.rain.api.mixin.impl.CallbackInfoImpl(\"" + handler.getName() + "\")";
+        if (!sharedCallbackInfo || targetClass.isInterface()) return allocation;
+
+        String fieldName = generatedName("$ci$", mixinClass, handler);
         try {
-            calleeReturn = methodCall.getMethod().getReturnType();
-        } catch (NotFoundException e) {
-            calleeReturn = CtClass.voidType;
+            targetClass.getDeclaredField(fieldName);
+            return fieldName;
+        } catch (NotFoundException ignored) {
         }
 
-        if (calleeReturn.equals(CtClass.voidType)) {
-            code.append("        $proceed(_newCallArgs);\n");
-        } else {
-            code.append("        $_ = $proceed(_newCallArgs);\n");
+        CtField field = new CtField(targetClass.getClassPool().get("net.rain.api.mixin.callback.CallbackInfo"),
+                fieldName, targetClass);
+        field.setModifiers(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL | AccessFlag.SYNTHETIC);
+        targetClass.addField(field, CtField.Initializer.byExpr(
+                "new net.rain.api.mixin.impl.ImmutableCallbackInfo(\"" + handler.getName() + "\")"));
+        return fieldName;
+    }
+
+    // ==================== Handler linkage ====================
+
+    /**
+     * Builds a direct call to the mixin handler. Arguments are converted to the handler's
+     * parameter types; a null entry in {@code argTypes} passes the argument through unchanged.
+     */
+    private String buildHandlerCall(CtClass targetClass, Class<?> mixinClass, CtMethod handler,
+            boolean instanceContext, List<String> args, List<CtClass> argTypes)
+            throws Exception {
+        CtClass[] handlerParams = handler.getParameterTypes();
+        if (handlerParams.length != args.size()) {
+            throw new CannotCompileException("Handler " + mixinClass.getName() + "." + handler.getName()
+                    + handler.getSignature() + " expects " + handlerParams.length
+                    + " argument(s) but the injection point supplies " + args.size());
         }
-        code.append("    } catch (Exception _e) { _e.printStackTrace(); $_ = $proceed($$); }\n");
-        code.append("}\n");
-        return code.toString();
+
+        StringBuilder call = new StringBuilder(linkHandler(targetClass, mixinClass, handler, instanceContext)).append("(");
+        for (int i = 0; i < handlerParams.length; i++) {
+            if (i > 0) call.append(", ");
+            CtClass argType = argTypes.get(i);
+            call.append(argType == null ? args.get(i) : convert(args.get(i), argType, handlerParams[i]));
+        }
+        return call.append(")").toString();
     }
 
     /**
-     * Builds ModifyArgs code. Mixin method signature: (TargetClass self, Args args) args: [$0
-     * (this), argsObj]
+     * Returns the name of a private static stub in the target class whose body is a single
+     * invokedynamic linked to the handler by {@code MixinBootstrap}. The stub has the handler's
+     * own descriptor, so a call costs no registry lookup, boxing or reflection.
+     * <p>
+     * In merge mode the handler body is transplanted into the target instead, and the returned
+     * name is that of the merged copy. Instance handlers can only be merged where the call site
+     * has a {@code this}.
      */
-    private String buildModifyArgsCode(Class<
-                    ?> mixinClass, CtMethod ctMethod, MethodCall methodCall)
+    private String linkHandler(CtClass targetClass, Class<?> mixinClass, CtMethod handler,
+            boolean instanceContext)
             throws Exception {
-        CtClass[] mixinParams = ctMethod.getParameterTypes();
+        MixinPlan mixin = MixinPlan.of(mixinClass);
+        if (mixin != null && mixin.merge && (instanceContext || Modifier.isStatic(handler.getModifiers()))) {
+            String mergedName = generatedName("$mm$", mixinClass, handler);
+            try {
+                targetClass.getDeclaredMethod(mergedName, handler.getParameterTypes());
+                return mergedName;
+            } catch (NotFoundException ignored) {
+            }
+            int modifiers = AccessFlag.PRIVATE | AccessFlag.SYNTHETIC
+                    | (handler.getModifiers() & Modifier.STATIC);
+            if (mergeMethod(targetClass, mixin, handler, mergedName, modifiers)) {
+                // merged copies bypass MixinBootstrap, so they end their own failure streak
+                targetClass.getDeclaredMethod(mergedName, handler.getParameterTypes()).insertAfter(
+                        "net.rain.api.mixin.runtime.MixinFailures.succeeded(\"" + mixinClass.getName() + "\", \""
+                                + handler.getName() + "\");", false);
+                return mergedName;
+            }
+        }
 
-        StringBuilder code = new StringBuilder("{\n");
-        code.append("    net.rain.api.mixin.impl.ArgsImpl _argsObj = new net.rain.api.mixin.impl.ArgsImpl($$);\n");
-        code.append("    Object _mi = net.rain.api.mixin.manager.MixinRegistry.getInstance(\"")
-                .append(mixinClass.getName()).append("\");\n");
-        code.append("    try {\n");
-        code.append("        Class[] _pt = new Class[]{");
-        for (int i = 0; i < mixinParams.length; i++) {
-            if (i > 0) code.append(", ");
-            code.append(mixinParams[i].getName()).append(".class");
-        }
-        code.append("};\n");
-        code.append("        java.lang.reflect.Method _m = _mi.getClass().getMethod(\"")
-                .append(ctMethod.getName()).append("\", _pt);\n");
-        code.append("        _m.invoke(_mi, new Object[]{ $0, _argsObj });\n");
-        code.append("        $_ = $proceed(_argsObj.getArgs());\n");
-        code.append("    } catch (Exception _e) { _e.printStackTrace(); $_ = $proceed($$); }\n");
-        code.append("}\n");
-        return code.toString();
+        String stubName = generatedName("$md$", mixinClass, handler);
+        CtClass[] paramTypes = handler.getParameterTypes();
+        try {
+            targetClass.getDeclaredMethod(stubName, paramTypes);
+            return stubName;
+        } catch (NotFoundException ignored) {
+        }
+
+        ClassFile classFile = targetClass.getClassFile();
+        ConstPool constPool = classFile.getConstPool();
+        int bootstrap = addBootstrapMethod(classFile, "bootstrap", BOOTSTRAP_DESC,
+                constPool.addStringInfo(mixinClass.getName()),
+                constPool.addStringInfo(handler.getName()),
+                constPool.addStringInfo(describeInjection(mixin, handler)));
+
+        String descriptor = handler.getSignature();
+        MethodInfo stub = new MethodInfo(constPool, stubName, descriptor);
+        stub.setAccessFlags(AccessFlag.PRIVATE | AccessFlag.STATIC | AccessFlag.SYNTHETIC);
+        Bytecode code = new Bytecode(constPool);
+        int locals = code.addLoadParameters(paramTypes, 0);
+        code.addInvokedynamic(bootstrap, handler.getName(), descriptor);
+        code.addReturn(handler.getReturnType());
+        code.setMaxLocals(locals);
+        stub.setCodeAttribute(code.toCodeAttribute());
+
+        targetClass.addMethod(CtMethod.make(stub, targetClass));
+        return stubName;
+    }
+
+    /**
+     * Returns the name of {@code $mg$<Mixin>$<handler>()Z}, a private static stub whose body is an
+     * invokedynamic linked by {@code MixinBootstrap.guard}. It answers whether the injection is
+     * currently enabled; see {@code MixinSwitches}.
+     */
+    private String linkGuard(CtClass targetClass, Class<?> mixinClass, CtMethod handler) throws Exception {
+        String guardName = generatedName("$mg$", mixinClass, handler);
+        try {
+            targetClass.getDeclaredMethod(guardName, new CtClass[0]);
+            return guardName;
+        } catch (NotFoundException ignored) {
+        }
+
+        ClassFile classFile = targetClass.getClassFile();
+        ConstPool constPool = classFile.getConstPool();
+        int bootstrap = addBootstrapMethod(classFile, "guard", GUARD_BOOTSTRAP_DESC,
+                constPool.addStringInfo(mixinClass.getName()),
+                constPool.addStringInfo(handler.getName()));
+
+        MethodInfo stub = new MethodInfo(constPool, guardName, "()Z");
+        stub.setAccessFlags(AccessFlag.PRIVATE | AccessFlag.STATIC | AccessFlag.SYNTHETIC);
+        Bytecode code = new Bytecode(constPool);
+        code.addInvokedynamic(bootstrap, "enabled", "()Z");
+        code.addReturn(CtClass.booleanType);
+        code.setMaxLocals(0);
+        stub.setCodeAttribute(code.toCodeAttribute());
+
+        targetClass.addMethod(CtMethod.make(stub, targetClass));
+        return guardName;
+    }
+
+    /**
+     * Returns the name of a member generated in the target for one mixin handler: the prefix, then
+     * the mixin's binary name and the handler name, mangled as JNI does ({@code _} to {@code _1},
+     * {@code $} to {@code _00024}, {@code .} to {@code _}). The mangling is reversible, so an existing
+     * member with this name was generated for exactly this mixin and handler and is safe to reuse,
+     * while two mixins that share a simple name in different packages never collide.
+     */
+    private static String generatedName(String prefix, Class<?> mixinClass, CtMethod handler) {
+        return prefix + mangle(mixinClass.getName()) + "$" + mangle(handler.getName());
+    }
+
+    private static String mangle(String name) {
+        StringBuilder mangled = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.') mangled.append('_');
+            else if (c == '_') mangled.append("_1");
+            else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) mangled.append(c);
+            else mangled.append(String.format("_0%04x", (int) c));
+        }
+        return mangled.toString();
+    }
+
+    private int addBootstrapMethod(ClassFile classFile, String bootstrapName, String bootstrapDesc,
+            int... arguments) {
+        ConstPool constPool = classFile.getConstPool();
+        int methodRef = constPool.addMethodHandleInfo(ConstPool.REF_invokeStatic,
+                constPool.addMethodrefInfo(constPool.addClassInfo(BOOTSTRAP_CLASS), bootstrapName, bootstrapDesc));
+
+        BootstrapMethodsAttribute existing =
+                (BootstrapMethodsAttribute) classFile.getAttribute(BootstrapMethodsAttribute.tag);
+        BootstrapMethodsAttribute.BootstrapMethod[] methods = existing == null
+                ? new BootstrapMethodsAttribute.BootstrapMethod[0]
+                : existing.getMethods();
+        methods = Arrays.copyOf(methods, methods.length + 1);
+        methods[methods.length - 1] = new BootstrapMethodsAttribute.BootstrapMethod(methodRef, arguments);
+        classFile.addAttribute(new BootstrapMethodsAttribute(constPool, methods));
+        return methods.length - 1;
+    }
+
+    /** Names the target method and injection point of a handler, e.g. {@code tick@HEAD}. */
+    private String describeInjection(MixinPlan mixin, CtMethod handler) {
+        MixinPlan.Member member = mixin == null ? null : mixin.method(handler.getName(), handler.getSignature());
+        return member != null ? member.injection : handler.getName() + "@UNIQUE";
+    }
+
+    // ==================== Merge mode ====================
+
+    /**
+     * Copies a mixin method's bytecode into the target class under {@code name}. References to
+     * the mixin class become references to the target, so {@code this} is the target instance
+     * and @Shadow members resolve to direct field and method accesses. Returns false, leaving the
+     * target untouched, if the copied code refers to a mixin member that has no counterpart in
+     * the target.
+     */
+    private boolean mergeMethod(CtClass targetClass, MixinPlan mixin, CtMethod source, String name, int modifiers)
+            throws Exception {
+        CtClass ctMixinClass = source.getDeclaringClass();
+        ClassMap classMap = new ClassMap();
+        classMap.put(ctMixinClass.getName(), targetClass.getName());
+
+        CtMethod merged = CtNewMethod.copy(source, name, targetClass, classMap);
+        merged.setModifiers(modifiers);
+        MethodInfo methodInfo = merged.getMethodInfo();
+        methodInfo.removeAttribute(AnnotationsAttribute.visibleTag);
+        methodInfo.removeAttribute(AnnotationsAttribute.invisibleTag);
+        methodInfo.removeAttribute(ParameterAnnotationsAttribute.visibleTag);
+        methodInfo.removeAttribute(ParameterAnnotationsAttribute.invisibleTag);
+
+        String unresolved = remapShadowReferences(targetClass, mixin, methodInfo);
+        if (unresolved != null) {
+            LOGGER.warn("Cannot merge {}.{} into {}: no target member for {}, delegating instead",
+                    ctMixinClass.getName(), source.getName(), targetClass.getName(), unresolved);
+            return false;
+        }
+
+        targetClass.addMethod(merged);
+        LOGGER.info("Merged method: {}.{} -> {}.{}", ctMixinClass.getName(), source.getName(),
+                targetClass.getName(), name);
+        return true;
+    }
+
+    /**
+     * Rewrites field and method references on the target class in merged code to the names the
+     * @Shadow declarations resolve to, and checks that every such reference exists. Returns the
+     * first member that cannot be resolved, or null.
+     */
+    private String remapShadowReferences(CtClass targetClass, MixinPlan mixin, MethodInfo methodInfo)
+            throws Exception {
+        CodeAttribute ca = methodInfo.getCodeAttribute();
+        if (ca == null) return null;
+
+        Map<String, String> fieldNames = new HashMap<>();
+        for (MixinPlan.Member field : mixin.fields) {
+            Shadow shadow = field.get(Shadow.class);
+            if (shadow != null && !shadow.target().isEmpty()) fieldNames.put(field.name, shadow.target());
+        }
+        Map<String, String> methodNames = new HashMap<>();
+        for (MixinPlan.Member method : mixin.methods) {
+            if (!method.has(Shadow.class)) continue;
+            CtMethod resolved = findMethod(targetClass, method.targetNames(method.name), method.descriptor);
+            if (resolved != null) methodNames.put(method.name, resolved.getName());
+        }
+
+        ConstPool constPool = methodInfo.getConstPool();
+        String targetName = targetClass.getName();
+        CodeIterator iter = ca.iterator();
+        while (iter.hasNext()) {
+            int pos = iter.next();
+            int op = iter.byteAt(pos);
+            if (op == Opcode.GETFIELD || op == Opcode.PUTFIELD || op == Opcode.GETSTATIC || op == Opcode.PUTSTATIC) {
+                int index = iter.u16bitAt(pos + 1);
+                if (!targetName.equals(constPool.getFieldrefClassName(index))) continue;
+                String name = constPool.getFieldrefName(index);
+                String type = constPool.getFieldrefType(index);
+                String mapped = fieldNames.getOrDefault(name, name);
+                try {
+                    targetClass.getField(mapped, type);
+                } catch (NotFoundException e) {
+                    return "field " + name;
+                }
+                if (!mapped.equals(name)) {
+                    iter.write16bit(constPool.addFieldrefInfo(constPool.addClassInfo(targetName), mapped, type), pos + 1);
+                }
+            } else if (op == Opcode.INVOKEVIRTUAL || op == Opcode.INVOKESPECIAL || op == Opcode.INVOKESTATIC) {
+                int index = iter.u16bitAt(pos + 1);
+                if (constPool.getTag(index) != ConstPool.CONST_Methodref
+                        || !targetName.equals(constPool.getMethodrefClassName(index))) continue;
+                String name = constPool.getMethodrefName(index);
+                String type = constPool.getMethodrefType(index);
+                String mapped = methodNames.getOrDefault(name, name);
+                if (!mapped.equals(name)) {
+                    iter.write16bit(constPool.addMethodrefInfo(constPool.addClassInfo(targetName), mapped, type), pos + 1);
+                } else if (!MethodInfo.nameInit.equals(name)) {
+                    try {
+                        targetClass.getMethod(name, type);
+                    } catch (NotFoundException e) {
+                        return "method " + name + type;
+                    }
+                }
+            }
+        }
+        return null;
     }
 
     // ==================== Type Helpers ====================
@@ -1330,6 +2185,19 @@ public class MixinTransformer implements ILaunchPluginService {
         return "((" + type.getName() + ")" + varName + ")";
     }
 
+    /**
+     * Converts a Javassist expression of type {@code from} to {@code to}, boxing, unboxing or
+     * casting as needed.
+     */
+    private String convert(String expr, CtClass from, CtClass to) throws NotFoundException {
+        if (from.equals(to)) return expr;
+        if (from.isPrimitive() && to.isPrimitive()) return "((" + to.getName() + ")" + expr + ")";
+        if (from.isPrimitive()) return boxPrimitive(from, expr);
+        if (to.isPrimitive()) return unboxReturn(to, expr);
+        if (from.subtypeOf(to)) return expr;
+        return "((" + to.getName() + ")" + expr + ")";
+    }
+
     private String getDefaultValue(CtClass type) {
         if (!type.isPrimitive()) return "null";
         try {
@@ -1347,6 +2215,25 @@ public class MixinTransformer implements ILaunchPluginService {
         return "null";
     }
 
+    /** Class.forName cannot resolve primitive names. */
+    private static Class<?> toRuntimeClass(CtClass type) throws ClassNotFoundException {
+        if (type.isPrimitive()) {
+            switch (type.getName()) {
+                case "int": return int.class;
+                case "long": return long.class;
+                case "float": return float.class;
+                case "double": return double.class;
+                case "boolean": return boolean.class;
+                case "byte": return byte.class;
+                case "short": return short.class;
+                case "char": return char.class;
+                case "void": return void.class;
+                default: throw new ClassNotFoundException(type.getName());
+            }
+        }
+        return Class.forName(type.getName());
+    }
+
     private String getTypeDescriptor(Class<?> type) {
         if (type == int.class) return "I";
         if (type == float.class) return "F";
@@ -1362,27 +2249,24 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== findMethod with MCP->SRG mapping support ====================
 
-    private CtMethod findMethod(CtClass targetClass, String methodName, String descriptor) {
-        // Try to find SRG name from MCP name (for Forge 1.20.1)
-        String srgName = MinecraftHelper.findSrgMethodName(targetClass.getName(), methodName);
-
-        List<String> candidates = new ArrayList<>();
-        if (srgName != null && !srgName.equals(methodName)) {
-            candidates.add(srgName);
-        }
-        candidates.add(methodName);
-
-        for (String name : candidates) {
-            try {
-                if (descriptor.isEmpty()) {
-                    return targetClass.getDeclaredMethod(name);
-                }
-                for (CtMethod m : targetClass.getDeclaredMethods()) {
-                    if (m.getName().equals(name) && m.getSignature().equals(descriptor)) {
-                        return m;
-                    }
+    /**
+     * Looks the target method up by each of {@code names} in turn (see {@link MixinPlan#targetNames}),
+     * through the transformation's name index of the target's declared methods. Methods added to
+     * the target after the index was built are found by scanning.
+     */
+    private CtMethod findMethod(CtClass targetClass, List<String> names, String descriptor) {
+        ClassPool pool = targetClass.getClassPool();
+        for (String name : names) {
+            List<CtMethod> indexed = pool instanceof ScopedClassPool
+                    ? ((ScopedClassPool) pool).declaredMethods(targetClass, name)
+                    : List.of();
+            for (CtMethod m : indexed) {
+                if (descriptor.isEmpty() || m.getSignature().equals(descriptor)) return m;
+            }
+            for (CtMethod m : targetClass.getDeclaredMethods()) {
+                if (m.getName().equals(name) && (descriptor.isEmpty() || m.getSignature().equals(descriptor))) {
+                    return m;
                 }
-            } catch (NotFoundException ignored) {
             }
         }
         return null;
@@ -1390,17 +2274,8 @@ public class MixinTransformer implements ILaunchPluginService {
 
     // ==================== Utility ====================
 
-    private void sortMixinsByPriority(List<Class<?>> mixins) {
-        mixins.sort((a, b) -> {
-            try {
-                IMixin ma = (IMixin) MixinRegistry.getInstance(a.getName());
-                IMixin mb = (IMixin) MixinRegistry.getInstance(b.getName());
-                if (ma == null || mb == null) return 0;
-                return Integer.compare(mb.getPriority(), ma.getPriority());
-            } catch (Exception e) {
-                return 0;
-            }
-        });
+    private boolean isInstanceContext(MethodCall methodCall) {
+        return (methodCall.where().getModifiers() & Modifier.STATIC) == 0;
     }
 
     private boolean isPseudoMixin(Class<?> mixinClass) {
@@ -0,0 +1,195 @@
+package net.rain.api.mixin.transformer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Profile-guided pre-transformation. Every session records the mixin targets in the order they
+ * were transformed; the next session transforms those classes on a background fork/join pool,
+ * starting as soon as the mixins are registered, so that class loading on the main thread only
+ * has to pick up the result with {@link #take}.
+ * <p>
+ * A result is only used if it was computed from the same class bytes and mixins the transformer
+ * sees at load time (the {@link TransformCache} key), so a stale profile just falls back to inline
+ * transformation. The background reads classes from the class path, so a class that an earlier
+ * transformer (a coremod, an access transformer) changes never matches: once seen, it is left out
+ * of the profile, until the {@link ClassMetadata#fingerprint() class path} changes. Disabled with
+ * {@code -Drain.mixin.preTransform=false}.
+ */
+final class PreTransformer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreTransformer.class);
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("rain.mixin.preTransform", "true"));
+    private static final int THREADS = Integer.getInteger("rain.mixin.preTransform.threads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final Path PROFILE = TransformCache.cacheRoot().resolve("transform-profile.txt");
+
+    private static final Set<String> RECORDED = Collections.synchronizedSet(new LinkedHashSet<>());
+    /** Classes changed by an earlier transformer, which pre-transformation cannot see. */
+    private static final Set<String> SKIPPED = ConcurrentHashMap.newKeySet();
+    private static final String SKIPPED_PREFIX = "-";
+    private static final String FINGERPRINT_PREFIX = "# ";
+    private static final Map<String, Task> TASKS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int CLAIMED = 2;
+
+    /** A pre-transformed class, the input it was computed from and the cache key of that input. */
+    static final class Result {
+        final String key;
+        final byte[] input;
+        final TransformCache.Entry entry;
+
+        Result(String key, byte[] input, TransformCache.Entry entry) {
+            this.key = key;
+            this.input = input;
+            this.entry = entry;
+        }
+    }
+
+    private static final class Task {
+        final AtomicInteger state = new AtomicInteger(PENDING);
+        final CompletableFuture<Result> result = new CompletableFuture<>();
+    }
+
+    private PreTransformer() {
+    }
+
+    /** Records a transformed target for the next session's profile. */
+    static void record(String className) {
+        if (ENABLED && !SKIPPED.contains(className)) RECORDED.add(className);
+    }
+
+    /**
+     * Starts pre-transforming the classes of the previous session's profile, once per session.
+     * {@code transform} computes the result for one class name, or null if it has nothing to do.
+     */
+    static void start(Function<String, Result> transform) {
+        if (!ENABLED || !STARTED.compareAndSet(false, true)) return;
+        Runtime.getRuntime().addShutdownHook(new Thread(PreTransformer::saveProfile, "Rain Mixin Profile"));
+
+        List<String> profile = loadProfile();
+        if (profile.isEmpty()) return;
+
+        LOGGER.info("Pre-transforming {} class(es) from the last session on {} thread(s)", profile.size(), THREADS);
+        for (String className : profile) TASKS.put(className, new Task());
+
+        ForkJoinPool pool = new ForkJoinPool(THREADS, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        AtomicInteger remaining = new AtomicInteger(profile.size());
+        long start = System.nanoTime();
+        for (String className : profile) {
+            pool.execute(() -> {
+                try {
+                    run(className, TASKS.get(className), transform);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        LOGGER.info("Pre-transformation finished in {} ms",
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        pool.shutdown();
+                    }
+                }
+            });
+        }
+    }
+
+    private static void run(String className, Task task, Function<String, Result> transform) {
+        if (task == null || !task.state.compareAndSet(PENDING, RUNNING)) return;
+        try {
+            task.result.complete(transform.apply(className));
+        } catch (Throwable e) {
+            LOGGER.warn("Pre-transformation of {} failed, it will be transformed inline", className, e);
+            task.result.complete(null);
+        }
+    }
+
+    /**
+     * Returns the pre-transformed result for a class being loaded, if it was computed from input
+     * with the given key. Waits for a transformation already in progress; one that has not started
+     * yet is cancelled, and the caller transforms inline. {@code input} is the class as the
+     * transformer received it.
+     */
+    static TransformCache.Entry take(String className, String key, byte[] input) {
+        Task task = TASKS.remove(className);
+        if (task == null || task.state.compareAndSet(PENDING, CLAIMED)) return null;
+
+        Result result = task.result.join();
+        if (result == null) return null;
+        if (!result.key.equals(key)) {
+            if (!Arrays.equals(result.input, input)) {
+                LOGGER.debug("{} was changed by an earlier transformer, no longer pre-transforming it", className);
+                RECORDED.remove(className);
+                SKIPPED.add(className);
+            } else {
+                LOGGER.debug("Pre-transformed {} does not match the loaded class, transforming inline", className);
+            }
+            return null;
+        }
+        return result.entry;
+    }
+
+    /**
+     * The profiled classes in load order. Skipped classes are read into {@link #SKIPPED} if the
+     * profile was written for the current class path.
+     */
+    private static List<String> loadProfile() {
+        if (!Files.isRegularFile(PROFILE)) return Collections.emptyList();
+        try {
+            List<String> lines = Files.readAllLines(PROFILE, StandardCharsets.UTF_8);
+            boolean sameClassPath = !lines.isEmpty()
+                    && lines.get(0).equals(FINGERPRINT_PREFIX + ClassMetadata.fingerprint());
+            List<String> profile = new ArrayList<>();
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(FINGERPRINT_PREFIX)) continue;
+                if (!line.startsWith(SKIPPED_PREFIX)) {
+                    profile.add(line);
+                } else if (sameClassPath) {
+                    SKIPPED.add(line.substring(SKIPPED_PREFIX.length()));
+                }
+            }
+            profile.removeAll(SKIPPED);
+            return profile;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read transform profile {}", PROFILE, e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static void saveProfile() {
+        List<String> lines = new ArrayList<>();
+        synchronized (RECORDED) {
+            lines.addAll(RECORDED);
+        }
+        if (lines.isEmpty()) return;
+        for (String className : SKIPPED) lines.add(SKIPPED_PREFIX + className);
+        lines.add(0, FINGERPRINT_PREFIX + ClassMetadata.fingerprint());
+        try {
+            Files.createDirectories(PROFILE.getParent());
+            Files.write(PROFILE, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write transform profile {}", PROFILE, e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class pool of a single transformation. The target and any mixin parsed from cached bytecode
+ * live only here; everything else comes from the {@link SharedClassPool} and is pinned for the
+ * rest of the transformation, so Javassist sees the same CtClass for a name even if the shared
+ * pool evicts it in the meantime. {@link #close} drops all of it.
+ */
+final class ScopedClassPool extends ClassPool implements AutoCloseable {
+    private final Map<CtClass, Map<String, List<CtMethod>>> methodIndex = new IdentityHashMap<>();
+    private boolean framesInvalidated;
+
+    ScopedClassPool(SharedClassPool parent) {
+        super(parent);
+    }
+
+    @Override
+    protected synchronized CtClass get0(String classname, boolean useCache) throws NotFoundException {
+        CtClass ctClass = super.get0(classname, useCache);
+        if (ctClass != null && useCache && ctClass.getClassPool() != this) cacheCtClass(classname, ctClass, false);
+        return ctClass;
+    }
+
+    /**
+     * The declared methods of {@code ctClass} named {@code name}, in declaration order, from an
+     * index built on the first lookup. Methods added to the class later are not in it.
+     */
+    synchronized List<CtMethod> declaredMethods(CtClass ctClass, String name) {
+        Map<String, List<CtMethod>> byName = methodIndex.get(ctClass);
+        if (byName == null) {
+            byName = new HashMap<>();
+            for (CtMethod method : ctClass.getDeclaredMethods()) {
+                byName.computeIfAbsent(method.getName(), k -> new ArrayList<>(1)).add(method);
+            }
+            methodIndex.put(ctClass, byName);
+        }
+        return byName.getOrDefault(name, List.of());
+    }
+
+    /** Records that an edit dropped a method's stack map, so the target's frames must be recomputed. */
+    synchronized void invalidateFrames() {
+        framesInvalidated = true;
+    }
+
+    synchronized boolean framesInvalidated() {
+        return framesInvalidated;
+    }
+
+    /** Classes created in or pinned to this pool, including the primitive types. */
+    synchronized int size() {
+        return classes.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        classes.clear();
+        methodIndex.clear();
+    }
+}
@@ -0,0 +1,63 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class pool transformations resolve referenced types through: the JDK, the launch class path,
+ * the game class loader and the {@code .minecraft} index. It is used by one transformation at a
+ * time (see {@link ClassPoolStripes}). Unlike {@code ClassPool.getDefault()} it keeps only the
+ * {@code rain.mixin.classPool.maxEntries} (2048 by default) most recently used CtClasses, so hot
+ * types such as {@code java.lang.Object} stay parsed while parameter types, interfaces and
+ * superclasses needed by a single transformation are dropped again. Transformations never add to
+ * it directly; they work in a {@link ScopedClassPool}.
+ */
+final class SharedClassPool extends ClassPool {
+    private static final int MAX_ENTRIES = Math.max(16, Integer.getInteger("rain.mixin.classPool.maxEntries", 2048));
+
+    private final Map<String, CtClass> cache = new LinkedHashMap<String, CtClass>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CtClass> eldest) {
+            if (size() <= MAX_ENTRIES) return false;
+            evictions++;
+            return true;
+        }
+    };
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    SharedClassPool() {
+        super(null);
+    }
+
+    /** Primitive types are kept in the base class table and never evicted. */
+    @Override
+    protected synchronized CtClass getCached(String classname) {
+        CtClass ctClass = cache.get(classname);
+        if (ctClass == null) ctClass = super.getCached(classname);
+        if (ctClass != null) hits++;
+        else misses++;
+        return ctClass;
+    }
+
+    @Override
+    protected synchronized void cacheCtClass(String classname, CtClass ctClass, boolean dynamic) {
+        cache.put(classname, ctClass);
+    }
+
+    @Override
+    protected synchronized CtClass removeCached(String classname) {
+        CtClass removed = cache.remove(classname);
+        return removed != null ? removed : super.removeCached(classname);
+    }
+
+    synchronized String stats() {
+        long lookups = hits + misses;
+        return String.format("%d/%d classes, %.1f%% hit rate over %d lookups, %d evicted",
+                cache.size(), MAX_ENTRIES, lookups == 0 ? 0.0 : 100.0 * hits / lookups, lookups, evictions);
+    }
+}
@@ -0,0 +1,237 @@
+package net.rain.api.mixin.transformer;
+
+import net.rain.api.core.HashHelper;
+import net.rain.api.mixin.manager.MixinManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of transformed classes. The key is a SHA-256 over the untransformed
+ * class bytes, the name and bytecode of every applied mixin in application order, the engine and
+ * {@link #ENGINE_VERSION}, and the {@link ClassMetadata#fingerprint() fingerprint} of the class
+ * path and mods, since the generated code also depends on the classes it resolves there. An entry
+ * can only be hit by a transformation that would produce the same output. Entries live in a small
+ * in-memory LRU and under {@code <gameDir>/RainJava/cache/transformed}, which carries them across
+ * launches and is kept under {@code rain.mixin.cache.maxBytes} (256 MB) by deleting the entries
+ * least recently used.
+ * <p>
+ * Disabled with {@code -Drain.mixin.cache=false}; the directory can be moved with
+ * {@code -Drain.mixin.cacheDir}.
+ */
+final class TransformCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransformCache.class);
+
+    /** Bump whenever a change to either engine alters the bytecode it generates. */
+    static final int ENGINE_VERSION = 4;
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("rain.mixin.cache", "true"));
+    private static final int MEMORY_ENTRIES = Integer.getInteger("rain.mixin.cache.memoryEntries", 256);
+    private static final long MAX_BYTES = Long.getLong("rain.mixin.cache.maxBytes", 256L << 20);
+    private static final int MAGIC = 0x524D4331; // "RMC1"
+
+    private static final TransformCache INSTANCE = new TransformCache(cacheDirectory());
+
+    private final Path directory;
+    private final Map<String, Entry> memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+    /** Bytes of the entries on disk, counted on the first write of a launch; guarded by this. */
+    private long diskBytes = -1;
+
+    /** Transformed class bytes and the {@code ComputeFlags} the engine returned with them. */
+    static final class Entry {
+        final int flags;
+        final byte[] bytecode;
+
+        Entry(int flags, byte[] bytecode) {
+            this.flags = flags;
+            this.bytecode = bytecode;
+        }
+    }
+
+    private TransformCache(Path directory) {
+        this.directory = directory;
+    }
+
+    static TransformCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** {@code <gameDir>/RainJava/cache}, or {@code -Drain.mixin.cacheDir}. */
+    static Path cacheRoot() {
+        String configured = System.getProperty("rain.mixin.cacheDir");
+        if (configured != null) return Paths.get(configured);
+        return Paths.get(".").toAbsolutePath().normalize().resolve("RainJava").resolve("cache");
+    }
+
+    private static Path cacheDirectory() {
+        return cacheRoot().resolve("transformed");
+    }
+
+    static String key(String engine, boolean sharedCallbackInfo, byte[] classBytes, List<Class<?>> mixins) {
+        MessageDigest digest = HashHelper.newDigest();
+        digest.update((engine + ":" + ENGINE_VERSION + ":" + sharedCallbackInfo + ":" + ClassMetadata.fingerprint())
+                .getBytes(StandardCharsets.UTF_8));
+        HashHelper.update(digest, classBytes);
+        for (Class<?> mixinClass : mixins) {
+            MixinManager.MixinMetadata metadata = MixinManager.getMetadata(mixinClass.getName());
+            if (metadata == null) return null;
+            HashHelper.update(digest, mixinClass.getName().getBytes(StandardCharsets.UTF_8));
+            HashHelper.update(digest, metadata.bytecode);
+        }
+        return HashHelper.hex(digest.digest());
+    }
+
+    Entry get(String key) {
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry == null) {
+            entry = read(key);
+            if (entry != null) {
+                synchronized (memory) {
+                    memory.put(key, entry);
+                }
+            }
+        }
+        return entry;
+    }
+
+    void put(String key, int flags, byte[] bytecode) {
+        Entry entry = new Entry(flags, bytecode);
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        write(key, entry);
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".bin");
+    }
+
+    private Entry read(String key) {
+        Path file = file(key);
+        if (!Files.isRegularFile(file)) return null;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC) throw new IOException("bad header");
+            int flags = in.readInt();
+            byte[] bytecode = new byte[in.readInt()];
+            in.readFully(bytecode);
+            touch(file);
+            return new Entry(flags, bytecode);
+        } catch (IOException e) {
+            LOGGER.warn("Discarding unreadable transform cache entry {}: {}", file, e.toString());
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+    }
+
+    /** Written to a temporary file and moved into place, so a crash never leaves a torn entry. */
+    private void write(String key, Entry entry) {
+        Path file = file(key);
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(entry.bytecode.length + 12);
+            try (DataOutputStream out = new DataOutputStream(buffer)) {
+                out.writeInt(MAGIC);
+                out.writeInt(entry.flags);
+                out.writeInt(entry.bytecode.length);
+                out.write(entry.bytecode);
+            }
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            Files.write(temp, buffer.toByteArray());
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            written(buffer.size());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write transform cache entry {}: {}", file, e.toString());
+        }
+    }
+
+    /** Marks an entry as used, for {@link #evict}. */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.debug("Cannot touch {}", file, e);
+        }
+    }
+
+    private synchronized void written(long bytes) {
+        if (diskBytes < 0) {
+            diskBytes = 0;
+            for (Path file : entries()) diskBytes += file.toFile().length();
+        } else {
+            diskBytes += bytes;
+        }
+        if (diskBytes > MAX_BYTES) evict();
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is down to three quarters of
+     * {@link #MAX_BYTES}, so that it is not pruned again on the next write. Entries keyed on an
+     * older class path or older mixins are never hit again and go first.
+     */
+    private void evict() {
+        List<Path> files = entries();
+        Map<Path, Long> used = new HashMap<>();
+        for (Path file : files) used.put(file, file.toFile().lastModified());
+        files.sort(Comparator.comparing(used::get));
+
+        long target = MAX_BYTES / 4 * 3;
+        int deleted = 0;
+        for (Path file : files) {
+            if (diskBytes <= target) break;
+            long size = file.toFile().length();
+            try {
+                Files.deleteIfExists(file);
+                diskBytes -= size;
+                deleted++;
+            } catch (IOException e) {
+                LOGGER.debug("Cannot delete transform cache entry {}", file, e);
+            }
+        }
+        LOGGER.info("Evicted {} transform cache entries, {} KB left", deleted, diskBytes / 1024);
+    }
+
+    private List<Path> entries() {
+        if (!Files.isDirectory(directory)) return new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(".bin"))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException e) {
+            LOGGER.warn("Cannot list transform cache {}: {}", directory, e.toString());
+            return new ArrayList<>();
+        }
+    }
+}
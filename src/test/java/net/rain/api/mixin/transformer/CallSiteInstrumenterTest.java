@@ -0,0 +1,75 @@
+package net.rain.api.mixin.transformer;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.LoaderClassPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CallSiteInstrumenterTest {
+    private static final AtomicInteger COPIES = new AtomicInteger();
+
+    private CtClass target;
+    private CallSiteInstrumenter instrumenter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ClassPool pool = new ClassPool(true);
+        pool.appendClassPath(new LoaderClassPath(getClass().getClassLoader()));
+        // A copy under a new name, so that it can be defined next to the original and the other copies
+        String copy = CallSiteTarget.class.getName() + "$Instrumented" + COPIES.incrementAndGet();
+        target = pool.getAndRename(CallSiteTarget.class.getName(), copy);
+        instrumenter = new CallSiteInstrumenter();
+    }
+
+    private Class<?> instrument() throws Exception {
+        instrumenter.applyAll();
+        return target.toClass(CallSiteTarget.class);
+    }
+
+    @Test
+    void everyProceedRunsTheNextLayerOnce() throws Exception {
+        // Proceeds twice, once from inside an expression, after reassigning $1
+        instrumenter.onCall(target.getDeclaredMethod("callAdd"), "add", -1,
+                m -> "{ $1 = $1 * 2; $_ = $proceed($$) + $proceed(1, $2); }");
+        instrumenter.onCall(target.getDeclaredMethod("callAdd"), "add", -1,
+                m -> "{ int _n = $2 + 1; $_ = $proceed($1, _n); }");
+        instrumenter.onCall(target.getDeclaredMethod("callAdd"), "add", -1, m -> "{ $_ = $proceed($$) * 100; }");
+        Class<?> instrumented = instrument();
+
+        Object instance = instrumented.getDeclaredConstructor().newInstance();
+        assertEquals((6 + 11) * 100 + (1 + 11) * 100, instrumented.getMethod("callAdd", int.class).invoke(instance, 3));
+        assertEquals(2, instrumented.getField("adds").get(null));
+    }
+
+    @Test
+    void nestsVoidStaticCalls() throws Exception {
+        instrumenter.onCall(target.getDeclaredMethod("callLog"), "log", -1, m -> "{ $_ = $proceed($1, \"a\"); }");
+        instrumenter.onCall(target.getDeclaredMethod("callLog"), "log", -1,
+                m -> "{ $proceed($1, $2 + \"b\"); $_ = $proceed($$); }");
+        Class<?> instrumented = instrument();
+
+        assertEquals("aba", instrumented.getMethod("callLog").invoke(null));
+    }
+
+    @Test
+    void nestsFieldAccesses() throws Exception {
+        instrumenter.onField(target.getDeclaredMethod("readField"), "field", -1, f -> "{ $_ = $proceed() + 1; }");
+        instrumenter.onField(target.getDeclaredMethod("readField"), "field", -1, f -> "{ $_ = $proceed() * 10; }");
+        instrumenter.onField(target.getDeclaredMethod("writeField"), "field", -1, f -> "{ $proceed($1 + 1); }");
+        instrumenter.onField(target.getDeclaredMethod("writeField"), "field", -1, f -> "{ $proceed($1 * 10); }");
+        instrumenter.onField(target.getDeclaredMethod("readStaticField"), "sfield", -1, f -> "{ $_ = $proceed() + 1; }");
+        instrumenter.onField(target.getDeclaredMethod("readStaticField"), "sfield", -1, f -> "{ $_ = $proceed() * 10; }");
+        Class<?> instrumented = instrument();
+
+        Object instance = instrumented.getDeclaredConstructor().newInstance();
+        assertEquals(7 * 10 + 1, instrumented.getMethod("readField").invoke(instance));
+        instrumented.getMethod("writeField", int.class).invoke(instance, 2);
+        assertEquals((2 + 1) * 10 * 10 + 1, instrumented.getMethod("readField").invoke(instance));
+        assertEquals(3 * 10 + 1, instrumented.getMethod("readStaticField").invoke(instance));
+    }
+}
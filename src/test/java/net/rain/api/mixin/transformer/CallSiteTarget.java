@@ -0,0 +1,39 @@
+package net.rain.api.mixin.transformer;
+
+/** Instrumented by {@link CallSiteInstrumenterTest}. */
+public class CallSiteTarget {
+    public static int adds;
+    public static int sfield = 3;
+    public int field = 7;
+
+    public int add(int a, int b) {
+        adds++;
+        return a + b;
+    }
+
+    public static void log(StringBuilder sb, String s) {
+        sb.append(s);
+    }
+
+    public int callAdd(int x) {
+        return add(x, 10);
+    }
+
+    public static String callLog() {
+        StringBuilder sb = new StringBuilder();
+        log(sb, "x");
+        return sb.toString();
+    }
+
+    public int readField() {
+        return field;
+    }
+
+    public void writeField(int value) {
+        field = value;
+    }
+
+    public int readStaticField() {
+        return sfield;
+    }
+}
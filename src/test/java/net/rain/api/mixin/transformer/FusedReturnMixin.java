@@ -0,0 +1,34 @@
+package net.rain.api.mixin.transformer;
+
+import net.rain.api.mixin.IMixin;
+import net.rain.api.mixin.annotation.*;
+import net.rain.api.mixin.callback.IntCallbackInfoReturnable;
+
+public class FusedReturnMixin implements IMixin {
+    @Override
+    public String getTargetClass() {
+        return "net.rain.api.mixin.transformer.FusedReturnTarget";
+    }
+
+    @Inject(method = "untouched", at = @At("RETURN"))
+    public void leakOnUntouched(Object self, IntCallbackInfoReturnable cir) {
+        cir.setReturnValueI(99);
+        cir.cancel();
+    }
+
+    @Inject(method = "untouched", at = @At("RETURN"), cancellable = true)
+    public void observeUntouched(Object self, IntCallbackInfoReturnable cir) {
+    }
+
+    @Inject(method = "replaced", at = @At("RETURN"))
+    public void leakOnReplaced(Object self, IntCallbackInfoReturnable cir) {
+        cir.setReturnValueI(99);
+        cir.cancel();
+    }
+
+    @Inject(method = "replaced", at = @At("RETURN"), cancellable = true)
+    public void replace(Object self, IntCallbackInfoReturnable cir) {
+        cir.setReturnValueI(7);
+        cir.cancel();
+    }
+}
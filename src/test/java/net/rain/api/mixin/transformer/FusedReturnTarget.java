@@ -0,0 +1,12 @@
+package net.rain.api.mixin.transformer;
+
+/** Target of {@link FusedReturnMixin}: methods whose RETURN injections are fused into one dispatcher. */
+public class FusedReturnTarget {
+    public int untouched() {
+        return 1;
+    }
+
+    public int replaced() {
+        return 1;
+    }
+}
@@ -0,0 +1,34 @@
+package net.rain.api.mixin.transformer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FusedReturnTest {
+    private static final String TARGET = FusedReturnTarget.class.getName();
+    private static final String MIXIN = FusedReturnMixin.class.getName();
+
+    private Class<?> target;
+    private Object instance;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MixinTargetLoader.cacheMixins(List.of(MIXIN));
+        target = new MixinTargetLoader(getClass().getClassLoader(), List.of(TARGET), List.of(MIXIN), true)
+                .loadClass(TARGET);
+        instance = target.getDeclaredConstructor().newInstance();
+    }
+
+    @Test
+    void nonCancellableHandlerCannotCancelForLaterHandlers() throws Exception {
+        assertEquals(1, target.getMethod("untouched").invoke(instance));
+    }
+
+    @Test
+    void cancellableHandlerStillDecidesTheReturnValue() throws Exception {
+        assertEquals(7, target.getMethod("replaced").invoke(instance));
+    }
+}
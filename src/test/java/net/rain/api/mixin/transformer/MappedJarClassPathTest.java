@@ -0,0 +1,132 @@
+package net.rain.api.mixin.transformer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedJarClassPathTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsStoredAndDeflatedEntriesLikeZipFile() throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("a/Stored.class", content(1, 300));
+        entries.put("a/Deflated.class", content(2, 5000));
+        entries.put("a/Empty.class", new byte[0]);
+        entries.put("b/c/Nested$Inner.class", content(3, 70_000));
+        Path jar = write("mixed.jar", entries, Set.of("a/Stored.class", "a/Empty.class"));
+
+        MappedJarClassPath classPath = MappedJarClassPath.open(jar);
+        assertMatchesZipFile(jar, classPath, List.of("a.Stored", "a.Deflated", "a.Empty", "b.c.Nested$Inner"));
+    }
+
+    @Test
+    void missingEntryIsNotFound() throws Exception {
+        Path jar = write("small.jar", Map.of("a/Present.class", content(4, 100)), Set.of());
+
+        MappedJarClassPath classPath = MappedJarClassPath.open(jar);
+        assertNull(classPath.openClassfile("a.Missing"));
+        assertNull(classPath.find("a.Missing"));
+        assertNull(classPath.openClassfile("Present"));
+        assertNotNull(classPath.find("a.Present"));
+    }
+
+    @Test
+    void listsClassEntriesOnly() throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("META-INF/MANIFEST.MF", content(5, 10));
+        entries.put("META-INF/versions/9/module-info.class", content(6, 10));
+        entries.put("a/A.class", content(7, 10));
+        entries.put("a/resource.txt", content(8, 10));
+        entries.put("b/B.class", content(9, 10));
+        Path jar = write("listed.jar", entries, Set.of());
+
+        assertEquals(List.of("a.A", "b.B"), MappedJarClassPath.open(jar).classNames());
+    }
+
+    @Test
+    void readsZip64Archive() throws Exception {
+        // More than 0xFFFF entries: the end record then defers to the zip64 end of central directory
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 66_000; i++) {
+            entries.put("z/C" + i + ".class", content(i, 8 + i % 16));
+            if (i % 9_999 == 0 || i == 65_999) names.add("z.C" + i);
+        }
+        Path jar = write("zip64.jar", entries, Set.of("z/C0.class", "z/C65999.class"));
+
+        MappedJarClassPath classPath = MappedJarClassPath.open(jar);
+        assertEquals(66_000, classPath.classNames().size());
+        assertMatchesZipFile(jar, classPath, names);
+    }
+
+    private static void assertMatchesZipFile(Path jar, MappedJarClassPath classPath, List<String> classNames)
+            throws Exception {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            for (String className : classNames) {
+                String entryName = className.replace('.', '/') + ".class";
+                ZipEntry entry = zip.getEntry(entryName);
+                assertNotNull(entry, entryName);
+                byte[] expected;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    expected = in.readAllBytes();
+                }
+                try (InputStream in = classPath.openClassfile(className)) {
+                    assertNotNull(in, className);
+                    assertArrayEquals(expected, in.readAllBytes(), className);
+                }
+                assertEquals("jar:" + jar.toUri() + "!/" + entryName, classPath.find(className).toString());
+            }
+        }
+    }
+
+    /** Writes a jar with {@link ZipOutputStream}; entries named in {@code stored} are not compressed. */
+    private Path write(String name, Map<String, byte[]> entries, Set<String> stored) throws IOException {
+        Path jar = directory.resolve(name);
+        try (OutputStream file = Files.newOutputStream(jar); ZipOutputStream out = new ZipOutputStream(file)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                byte[] bytes = entry.getValue();
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                if (stored.contains(entry.getKey())) {
+                    CRC32 crc = new CRC32();
+                    crc.update(bytes);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(bytes.length);
+                    zipEntry.setCompressedSize(bytes.length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                out.putNextEntry(zipEntry);
+                out.write(bytes);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    /** Compressible but not constant, so deflated entries span several blocks. */
+    private static byte[] content(int seed, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = (byte) ((i * 31 + seed) % 97 + (i / 512));
+        return bytes;
+    }
+}
@@ -0,0 +1,70 @@
+package net.rain.api.mixin.transformer;
+
+import net.rain.api.mixin.manager.MixinManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Defines test and benchmark targets and their mixins itself, from the class files on the class
+ * path, so that they are kept apart from the untransformed copies of the application class
+ * loader. Targets are passed through {@link MixinTransformer#bake}, which applies the registered
+ * mixins outside modlauncher the way the bake tool does; with {@code transform} off they are
+ * defined as they are, as a baseline.
+ */
+final class MixinTargetLoader extends ClassLoader {
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Set<String> targets;
+    private final Set<String> isolated = new HashSet<>();
+    private final boolean transform;
+
+    MixinTargetLoader(ClassLoader parent, Collection<String> targets, Collection<String> mixins, boolean transform) {
+        super("MixinTargetLoader", parent);
+        this.targets = new HashSet<>(targets);
+        this.isolated.addAll(targets);
+        this.isolated.addAll(mixins);
+        this.transform = transform;
+    }
+
+    /** Hands the mixins' class files to {@link MixinManager}, as compiling RainJava sources would. */
+    static void cacheMixins(Collection<String> mixins) throws IOException {
+        for (String mixin : mixins) MixinManager.cacheMixinBytecode(mixin, read(mixin), null);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!isolated.contains(name)) return super.loadClass(name, resolve);
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) loaded = findClass(name);
+            if (resolve) resolveClass(loaded);
+            return loaded;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        if (!isolated.contains(name)) throw new ClassNotFoundException(name);
+        try {
+            byte[] bytecode = read(name);
+            if (transform && targets.contains(name)) bytecode = MixinTransformer.bake(name, bytecode, this);
+            return defineClass(name, bytecode, 0, bytecode.length);
+        } catch (Exception e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    static byte[] read(String className) throws IOException {
+        String resource = className.replace('.', '/') + ".class";
+        try (InputStream in = MixinTargetLoader.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) throw new IOException("Not on the class path: " + resource);
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package net.rain.api.mixin.transformer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ModifyArgsTest {
+    private static final String TARGET = ShortCharTarget.class.getName();
+    private static final String MIXIN = ShortCharMixin.class.getName();
+
+    @Test
+    void modifiesShortAndCharArguments() throws Exception {
+        MixinTargetLoader.cacheMixins(List.of(MIXIN));
+        ClassLoader loader = new MixinTargetLoader(getClass().getClassLoader(), List.of(TARGET), List.of(MIXIN), true);
+
+        Class<?> target = loader.loadClass(TARGET);
+        Object instance = target.getDeclaredConstructor().newInstance();
+        int result = (int) target.getMethod("call", short.class, char.class).invoke(instance, (short) 2, 'a');
+
+        assertEquals(3 * 1000 + 'b', result);
+    }
+}
@@ -0,0 +1,18 @@
+package net.rain.api.mixin.transformer;
+
+import net.rain.api.mixin.IMixin;
+import net.rain.api.mixin.annotation.*;
+import net.rain.api.mixin.callback.Args;
+
+public class ShortCharMixin implements IMixin {
+    @Override
+    public String getTargetClass() {
+        return "net.rain.api.mixin.transformer.ShortCharTarget";
+    }
+
+    @ModifyArgs(method = "call", at = @At(value = "INVOKE", target = "combine"))
+    public void incrementBoth(Object self, Args args) {
+        args.setInt(0, args.getInt(0) + 1);
+        args.setInt(1, args.getInt(1) + 1);
+    }
+}
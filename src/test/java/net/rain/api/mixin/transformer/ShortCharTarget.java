@@ -0,0 +1,12 @@
+package net.rain.api.mixin.transformer;
+
+/** Target of {@link ShortCharMixin}: a call whose parameters are narrower than int. */
+public class ShortCharTarget {
+    public static int combine(short s, char c) {
+        return s * 1000 + c;
+    }
+
+    public int call(short s, char c) {
+        return combine(s, c);
+    }
+}